@@ -1,11 +1,15 @@
 package com.allan.libraryapi;
 
+import com.allan.libraryapi.api.logging.StructuredLogWriter;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class LibraryApiApplication {
 
 	@Bean
@@ -13,6 +17,11 @@ public class LibraryApiApplication {
 		return new ModelMapper();
 	}
 
+	@Bean(destroyMethod = "close")
+	public StructuredLogWriter structuredLogWriter(@Value("${library.logging.queue-capacity:8192}") int capacity) {
+		return new StructuredLogWriter(capacity);
+	}
+
 	public static void main(String[] args) {
 		SpringApplication.run(LibraryApiApplication.class, args);
 	}
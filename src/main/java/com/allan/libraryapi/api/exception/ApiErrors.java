@@ -1,32 +1,48 @@
 package com.allan.libraryapi.api.exception;
 
 import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.exception.ValidationException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Corpo de erro da API. Imutavel, entao o ApplicationControllerAdvice reaproveita a mesma
+ * instancia para mensagens que se repetem.
+ */
 public class ApiErrors {
 
-    private List<String> errors;
+    private final List<String> errors;
 
     public ApiErrors(BindingResult bindingResult) {
-        this.errors = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
 
-        bindingResult.getAllErrors().forEach(error -> this.errors.add(error.getDefaultMessage()));
+        bindingResult.getAllErrors().forEach(error -> errors.add(error.getDefaultMessage()));
 
+        this.errors = Collections.unmodifiableList(errors);
     }
 
     public ApiErrors(BusinessException ex) {
 
-        this.errors = Arrays.asList(ex.getMessage());
+        this(ex.getMessage());
     }
 
     public ApiErrors(ResponseStatusException ex) {
 
-        this.errors = Arrays.asList(ex.getReason());
+        this(ex.getReason());
+    }
+
+    public ApiErrors(ValidationException ex) {
+
+        this.errors = ex.getErrors();
+    }
+
+    public ApiErrors(String message) {
+
+        this.errors = Collections.singletonList(message);
     }
 
     public List<String> getErrors() {
@@ -1,6 +1,8 @@
 package com.allan.libraryapi.api.exception;
 
 import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.exception.NotFoundException;
+import com.allan.libraryapi.exception.ValidationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -10,9 +12,22 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 @RestControllerAdvice
 public class ApplicationControllerAdvice {
 
+    //as mensagens de erro de negocio sao constantes; o limite so protege contra mensagens dinamicas
+    static final int MAX_CACHED_ERRORS = 256;
+
+    private static final ApiErrors NOT_FOUND = new ApiErrors(NotFoundException.INSTANCE);
+    //a mensagem do DateTimeParseException repete o texto recebido: fica fora da resposta e do cache
+    private static final ApiErrors INVALID_DATE = new ApiErrors("Invalid date");
+
+    private final ConcurrentMap<String, ApiErrors> cachedErrors = new ConcurrentHashMap<>();
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiErrors habdleValidationException(MethodArgumentNotValidException ex) {
@@ -21,17 +36,52 @@ public class ApplicationControllerAdvice {
         return  new ApiErrors(bindingResult);
     }
 
+    @ExceptionHandler(ValidationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiErrors handleValidationException(ValidationException ex) {
+
+        return new ApiErrors(ex);
+    }
+
+    @ExceptionHandler(NotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ApiErrors handleNotFoundException(NotFoundException ex) {
+
+        return NOT_FOUND;
+    }
+
     @ExceptionHandler(BusinessException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiErrors habdleBusinessException(BusinessException ex) {
 
-        return new ApiErrors(ex);
+        return cached(ex.getMessage());
+    }
+
+    @ExceptionHandler(DateTimeParseException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiErrors handleDateTimeParseException(DateTimeParseException ex) {
+
+        return INVALID_DATE;
     }
 
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity handleResponseStatusException(ResponseStatusException ex) {
-        return new ResponseEntity(new ApiErrors(ex), ex.getStatus());
+        return new ResponseEntity(cached(ex.getReason()), ex.getStatus());
 
     }
 
+    private ApiErrors cached(String message) {
+        if (message == null) {
+            return new ApiErrors(message);
+        }
+
+        ApiErrors errors = cachedErrors.get(message);
+        if (errors == null) {
+            errors = new ApiErrors(message);
+            if (cachedErrors.size() < MAX_CACHED_ERRORS) {
+                cachedErrors.putIfAbsent(message, errors);
+            }
+        }
+        return errors;
+    }
 }
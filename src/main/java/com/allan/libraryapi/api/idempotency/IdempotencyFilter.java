@@ -0,0 +1,335 @@
+package com.allan.libraryapi.api.idempotency;
+
+import com.allan.libraryapi.model.repository.IdempotencyRecordRepository;
+import com.allan.libraryapi.tenant.TenantContext;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Suporte ao header Idempotency-Key no POST /api/books e no POST /api/loans.
+ *
+ * A primeira requisicao com uma chave executa normalmente e a resposta fica guardada pelo TTL
+ * configurado se for 2xx ou um 4xx que a repeticao receberia de novo (nao 408, 409 e 429); as repeticoes recebem a mesma resposta sem passar pelo
+ * controller. Uma repeticao que chega enquanto a primeira ainda esta executando espera por
+ * ela em vez de executar em paralelo. A resposta guarda o hash do corpo da requisicao: a mesma
+ * chave com outro corpo recebe 422 em vez da resposta de outra operacao; corpos acima de
+ * library.idempotency.max-request-bytes recebem 413 sem serem lidos inteiros.
+ *
+ * Roda depois do RateLimitFilter, entao um 429 do controle de admissao nunca e gravado.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 50)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final String API_KEY_HEADER = "X-API-Key";
+    static final String REPLAYED_METRIC = "library.idempotency.replayed";
+    static final int MAX_KEY_LENGTH = 255;
+
+    private static final String IN_PROGRESS_BODY = "{\"errors\":[\"Request with this Idempotency-Key is still in progress\"]}";
+    private static final String INVALID_KEY_BODY = "{\"errors\":[\"Invalid Idempotency-Key\"]}";
+    private static final String BODY_TOO_LARGE_BODY = "{\"errors\":[\"Request body too large\"]}";
+    private static final String KEY_REUSED_BODY = "{\"errors\":[\"Idempotency-Key reused with a different request body\"]}";
+
+    //marcador para a espera que estourou o tempo (null indica que a primeira execucao falhou)
+    private static final StoredResponse TIMED_OUT = new StoredResponse(0, null, new byte[0], 0, null);
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final long waitMillis;
+    private final int maxBodyBytes;
+    private final int maxRequestBytes;
+    private final IdempotencyStore store;
+
+    private final ConcurrentMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyFilter(@Value("${library.idempotency.enabled:true}") boolean enabled,
+                             @Value("${library.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                             @Value("${library.idempotency.wait-ms:10000}") long waitMillis,
+                             @Value("${library.idempotency.max-entries:10000}") int maxEntries,
+                             @Value("${library.idempotency.max-body-bytes:4000}") int maxBodyBytes,
+                             @Value("${library.idempotency.max-request-bytes:65536}") int maxRequestBytes,
+                             @Value("${library.idempotency.store:memory}") String storeType,
+                             ObjectProvider<IdempotencyRecordRepository> repository) {
+        this.enabled = enabled;
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        this.waitMillis = waitMillis;
+        this.maxBodyBytes = maxBodyBytes;
+        this.maxRequestBytes = maxRequestBytes;
+
+        if ("database".equals(storeType)) {
+            IdempotencyRecordRepository recordRepository = repository.getIfAvailable();
+            if (recordRepository == null) {
+                throw new IllegalStateException(
+                        "library.idempotency.store=database requires an IdempotencyRecordRepository bean");
+            }
+            this.store = new JpaIdempotencyStore(recordRepository);
+        } else {
+            this.store = new InMemoryIdempotencyStore(maxEntries);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null || !isIdempotentRoute(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            write(response, HttpStatus.BAD_REQUEST.value(), MediaType.APPLICATION_JSON_VALUE,
+                    INVALID_KEY_BODY.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        String key = storeKey(request, idempotencyKey);
+        //o corpo e lido antes para comparar com o da requisicao original e repassado ao controller
+        byte[] requestBody = readBody(request);
+        if (requestBody == null) {
+            write(response, HttpStatus.PAYLOAD_TOO_LARGE.value(), MediaType.APPLICATION_JSON_VALUE,
+                    BODY_TOO_LARGE_BODY.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        String requestHash = sha256(requestBody);
+
+        while (true) {
+            StoredResponse stored = store.find(key, System.currentTimeMillis());
+            if (stored != null) {
+                replay(response, stored, requestHash);
+                return;
+            }
+
+            CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, execution);
+            if (running == null) {
+                execute(new CachedBodyRequest(request, requestBody), response, chain, key, requestHash, execution);
+                return;
+            }
+
+            StoredResponse result = await(running);
+            if (result == TIMED_OUT) {
+                write(response, HttpStatus.CONFLICT.value(), MediaType.APPLICATION_JSON_VALUE,
+                        IN_PROGRESS_BODY.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            if (result != null) {
+                replay(response, result, requestHash);
+                return;
+            }
+            //a primeira execucao falhou com excecao: tenta de novo como se fosse a primeira
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${library.idempotency.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        store.evictExpired(System.currentTimeMillis());
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                         String key, String requestHash, CompletableFuture<StoredResponse> execution)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        StoredResponse result = null;
+        try {
+            //a chave pode ter sido gravada entre a consulta e o putIfAbsent
+            result = store.find(key, System.currentTimeMillis());
+            if (result != null) {
+                replay(response, result, requestHash);
+                return;
+            }
+
+            chain.doFilter(request, wrapper);
+
+            byte[] body = wrapper.getContentAsByteArray();
+            result = new StoredResponse(wrapper.getStatus(), wrapper.getContentType(), body,
+                    System.currentTimeMillis() + ttlMillis, requestHash);
+            if (!isReplayable(wrapper.getStatus())) {
+                //quem esperava por esta execucao executa de novo, como faria numa repeticao posterior
+                result = null;
+            } else if (body.length <= maxBodyBytes) {
+                store.save(key, result);
+            }
+            wrapper.copyBodyToResponse();
+        } finally {
+            execution.complete(result);
+            inFlight.remove(key, execution);
+        }
+    }
+
+    //null se o corpo passar de maxRequestBytes; le no maximo um byte alem do limite
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > maxRequestBytes) {
+            return null;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        InputStream input = request.getInputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = input.read(buffer, 0, Math.min(buffer.length, maxRequestBytes + 1 - body.size()))) > 0) {
+            body.write(buffer, 0, read);
+            if (body.size() > maxRequestBytes) {
+                return null;
+            }
+        }
+        return body.toByteArray();
+    }
+
+    //408, 409 e 429 dependem do momento: a repeticao deve executar de novo, nao receber o mesmo erro
+    static boolean isReplayable(int status) {
+        if (status >= 200 && status < 300) {
+            return true;
+        }
+        return status >= 400 && status < 500
+                && status != HttpStatus.REQUEST_TIMEOUT.value()
+                && status != HttpStatus.CONFLICT.value()
+                && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return TIMED_OUT;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return TIMED_OUT;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private void replay(HttpServletResponse response, StoredResponse stored, String requestHash) throws IOException {
+        if (!requestHash.equals(stored.getRequestHash())) {
+            write(response, HttpStatus.UNPROCESSABLE_ENTITY.value(), MediaType.APPLICATION_JSON_VALUE,
+                    KEY_REUSED_BODY.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        Metrics.counter(REPLAYED_METRIC).increment();
+        response.setHeader(REPLAYED_HEADER, "true");
+        write(response, stored.getStatus(), stored.getContentType(), stored.getBody());
+    }
+
+    private static void write(HttpServletResponse response, int status, String contentType, byte[] body)
+            throws IOException {
+        response.setStatus(status);
+        if (contentType != null) {
+            response.setContentType(contentType);
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    static boolean isIdempotentRoute(HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod())) {
+            return false;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.equals("/api/books") || path.equals("/api/loans");
+    }
+
+    //a chave vale por tenant, cliente e rota: o mesmo valor enviado por clientes diferentes nao colide
+    static String storeKey(HttpServletRequest request, String idempotencyKey) {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        String client = apiKey != null && !apiKey.isEmpty() ? apiKey : request.getRemoteAddr();
+        String raw = TenantContext.current() + '\n' + request.getRequestURI() + '\n' + client + '\n' + idempotencyKey;
+        return sha256(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //devolve ao controller o corpo que o filtro ja leu
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? encoding : StandardCharsets.UTF_8.name()));
+        }
+    }
+}
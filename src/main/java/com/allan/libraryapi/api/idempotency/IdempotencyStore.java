@@ -0,0 +1,13 @@
+package com.allan.libraryapi.api.idempotency;
+
+public interface IdempotencyStore {
+
+    /**
+     * @return a resposta gravada para a chave, ou null se nao houver ou se ja expirou
+     */
+    StoredResponse find(String key, long now);
+
+    void save(String key, StoredResponse response);
+
+    void evictExpired(long now);
+}
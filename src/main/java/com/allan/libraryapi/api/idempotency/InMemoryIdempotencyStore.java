@@ -0,0 +1,52 @@
+package com.allan.libraryapi.api.idempotency;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Guarda as respostas em memoria, limitado a {@code maxEntries}. Como todas as entradas tem o
+ * mesmo TTL, a ordem de insercao e tambem a ordem de expiracao: a limpeza para na primeira
+ * entrada ainda valida e, cheio, o mapa descarta a mais antiga.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Map<String, StoredResponse> responses;
+
+    public InMemoryIdempotencyStore(int maxEntries) {
+        this.responses = new LinkedHashMap<String, StoredResponse>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized StoredResponse find(String key, long now) {
+        StoredResponse response = responses.get(key);
+        if (response != null && response.isExpired(now)) {
+            responses.remove(key);
+            return null;
+        }
+        return response;
+    }
+
+    @Override
+    public synchronized void save(String key, StoredResponse response) {
+        responses.remove(key);
+        responses.put(key, response);
+    }
+
+    @Override
+    public synchronized void evictExpired(long now) {
+        Iterator<StoredResponse> iterator = responses.values().iterator();
+        while (iterator.hasNext() && iterator.next().isExpired(now)) {
+            iterator.remove();
+        }
+    }
+
+    synchronized int size() {
+        return responses.size();
+    }
+}
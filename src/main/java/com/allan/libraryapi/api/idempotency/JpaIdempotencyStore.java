@@ -0,0 +1,43 @@
+package com.allan.libraryapi.api.idempotency;
+
+import com.allan.libraryapi.model.entity.IdempotencyRecord;
+import com.allan.libraryapi.model.repository.IdempotencyRecordRepository;
+
+/**
+ * Guarda as respostas no banco, para que a repeticao funcione mesmo se cair em outra instancia
+ * ou depois de um restart.
+ */
+public class JpaIdempotencyStore implements IdempotencyStore {
+
+    private final IdempotencyRecordRepository repository;
+
+    public JpaIdempotencyStore(IdempotencyRecordRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public StoredResponse find(String key, long now) {
+        return repository.findById(key)
+                .filter(record -> record.getExpiresAt() > now)
+                .map(record -> new StoredResponse(record.getStatus(), record.getContentType(),
+                        record.getBody(), record.getExpiresAt(), record.getRequestHash()))
+                .orElse(null);
+    }
+
+    @Override
+    public void save(String key, StoredResponse response) {
+        repository.save(IdempotencyRecord.builder()
+                .key(key)
+                .status(response.getStatus())
+                .contentType(response.getContentType())
+                .body(response.getBody())
+                .expiresAt(response.getExpiresAt())
+                .requestHash(response.getRequestHash())
+                .build());
+    }
+
+    @Override
+    public void evictExpired(long now) {
+        repository.deleteExpired(now);
+    }
+}
@@ -0,0 +1,46 @@
+package com.allan.libraryapi.api.idempotency;
+
+/**
+ * Resposta gravada para uma Idempotency-Key, devolvida de novo nas repeticoes da requisicao.
+ */
+public final class StoredResponse {
+
+    private final int status;
+    private final String contentType;
+    private final byte[] body;
+    private final long expiresAt;
+    //hash SHA-256 (hex) do corpo da requisicao que gerou a resposta
+    private final String requestHash;
+
+    public StoredResponse(int status, String contentType, byte[] body, long expiresAt, String requestHash) {
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+        this.expiresAt = expiresAt;
+        this.requestHash = requestHash;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+}
@@ -0,0 +1,104 @@
+package com.allan.libraryapi.api.logging;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log de acesso em JSON das rotas de livros e emprestimos: request id, rota, campos de filtro,
+ * paginacao, status, tempo total e tempo gasto nos repositorios.
+ *
+ * O request id vem do header X-Request-Id ou e gerado, volta na resposta e fica no MDC
+ * enquanto a requisicao executa.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    static final String REQUEST_ID_HEADER = "X-Request-Id";
+    static final String REQUEST_ID_MDC = "requestId";
+    static final int MAX_REQUEST_ID_LENGTH = 64;
+
+    private final boolean enabled;
+    private final StructuredLogWriter logWriter;
+
+    public AccessLogFilter(@Value("${library.logging.access.enabled:true}") boolean enabled,
+                           StructuredLogWriter logWriter) {
+        this.enabled = enabled;
+        this.logWriter = logWriter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/api/books") && !path.startsWith("/api/loans");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String requestId = requestId(request);
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+        MDC.put(REQUEST_ID_MDC, requestId);
+
+        RequestTimings timings = RequestTimings.start(requestId);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            AccessLogRecord record = new AccessLogRecord();
+            record.durationNanos = System.nanoTime() - start;
+            record.requestId = requestId;
+            record.method = request.getMethod();
+            record.path = request.getRequestURI();
+            record.title = request.getParameter("title");
+            record.author = request.getParameter("author");
+            record.isbn = request.getParameter("isbn");
+            record.match = request.getParameter("match");
+            record.page = intParameter(request, "page");
+            record.size = intParameter(request, "size");
+            record.status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+            record.queries = timings.getQueries();
+            record.queryNanos = timings.getQueryNanos();
+
+            RequestTimings.finish();
+            MDC.remove(REQUEST_ID_MDC);
+            logWriter.log(record);
+        }
+    }
+
+    private static String requestId(HttpServletRequest request) {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId != null && !requestId.isEmpty() && requestId.length() <= MAX_REQUEST_ID_LENGTH) {
+            return requestId;
+        }
+        return Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+    private static Integer intParameter(HttpServletRequest request, String name) {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
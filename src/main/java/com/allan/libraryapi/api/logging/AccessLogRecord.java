@@ -0,0 +1,45 @@
+package com.allan.libraryapi.api.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+final class AccessLogRecord implements StructuredLogRecord {
+
+    private static final Logger LOG = LoggerFactory.getLogger("library.access");
+
+    String requestId;
+    String method;
+    String path;
+    String title;
+    String author;
+    String isbn;
+    String match;
+    Integer page;
+    Integer size;
+    int status;
+    long durationNanos;
+    int queries;
+    long queryNanos;
+
+    @Override
+    public Logger logger() {
+        return LOG;
+    }
+
+    @Override
+    public void appendJson(JsonLine json) {
+        json.field("requestId", requestId)
+                .field("method", method)
+                .field("path", path)
+                .field("title", title)
+                .field("author", author)
+                .field("isbn", isbn)
+                .field("match", match)
+                .field("page", page)
+                .field("size", size)
+                .field("status", status)
+                .millis("durationMs", durationNanos)
+                .field("queries", queries)
+                .millis("queryMs", queryNanos);
+    }
+}
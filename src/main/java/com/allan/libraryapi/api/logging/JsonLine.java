@@ -0,0 +1,120 @@
+package com.allan.libraryapi.api.logging;
+
+import java.util.List;
+
+/**
+ * Monta um objeto JSON de uma linha sobre um StringBuilder reaproveitado. Campos nulos sao
+ * omitidos.
+ */
+public final class JsonLine {
+
+    private final StringBuilder out;
+    private boolean first;
+
+    JsonLine(StringBuilder out) {
+        this.out = out;
+    }
+
+    JsonLine begin() {
+        out.setLength(0);
+        out.append('{');
+        first = true;
+        return this;
+    }
+
+    String end() {
+        return out.append('}').toString();
+    }
+
+    public JsonLine field(String name, String value) {
+        if (value != null) {
+            name(name);
+            out.append('"');
+            escape(value);
+            out.append('"');
+        }
+        return this;
+    }
+
+    public JsonLine field(String name, long value) {
+        name(name);
+        out.append(value);
+        return this;
+    }
+
+    public JsonLine field(String name, Integer value) {
+        if (value != null) {
+            name(name);
+            out.append(value.intValue());
+        }
+        return this;
+    }
+
+    public JsonLine field(String name, List<String> values) {
+        name(name);
+        out.append('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append('"');
+            escape(values.get(i));
+            out.append('"');
+        }
+        out.append(']');
+        return this;
+    }
+
+    //nanossegundos escritos como milissegundos com tres casas
+    public JsonLine millis(String name, long nanos) {
+        name(name);
+        long micros = nanos / 1000;
+        out.append(micros / 1000).append('.');
+        long fraction = micros % 1000;
+        if (fraction < 100) {
+            out.append('0');
+        }
+        if (fraction < 10) {
+            out.append('0');
+        }
+        out.append(fraction);
+        return this;
+    }
+
+    private void name(String name) {
+        if (!first) {
+            out.append(',');
+        }
+        first = false;
+        out.append('"').append(name).append("\":");
+    }
+
+    private void escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+    }
+}
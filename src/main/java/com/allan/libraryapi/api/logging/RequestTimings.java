@@ -0,0 +1,47 @@
+package com.allan.libraryapi.api.logging;
+
+/**
+ * Tempo gasto em chamadas de repositorio durante a requisicao atual, somado pelo
+ * SlowQueryLogAspect e lido pelo AccessLogFilter. Um objeto por thread, reaproveitado.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = ThreadLocal.withInitial(RequestTimings::new);
+
+    private String requestId;
+    private int queries;
+    private long queryNanos;
+
+    private RequestTimings() {
+    }
+
+    static RequestTimings start(String requestId) {
+        RequestTimings timings = CURRENT.get();
+        timings.requestId = requestId;
+        timings.queries = 0;
+        timings.queryNanos = 0;
+        return timings;
+    }
+
+    static void finish() {
+        CURRENT.get().requestId = null;
+    }
+
+    static void addQuery(long nanos) {
+        RequestTimings timings = CURRENT.get();
+        timings.queries++;
+        timings.queryNanos += nanos;
+    }
+
+    static String currentRequestId() {
+        return CURRENT.get().requestId;
+    }
+
+    int getQueries() {
+        return queries;
+    }
+
+    long getQueryNanos() {
+        return queryNanos;
+    }
+}
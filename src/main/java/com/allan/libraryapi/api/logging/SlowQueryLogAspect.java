@@ -0,0 +1,48 @@
+package com.allan.libraryapi.api.logging;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede as chamadas ao BookRepository. O tempo entra no log de acesso da requisicao e as
+ * chamadas acima de library.logging.slow-query.threshold-ms viram um log com o SQL gerado
+ * (capturado pelo SqlCapture).
+ */
+@Aspect
+@Component
+public class SlowQueryLogAspect {
+
+    private final long thresholdNanos;
+    private final StructuredLogWriter logWriter;
+
+    public SlowQueryLogAspect(@Value("${library.logging.slow-query.threshold-ms:200}") long thresholdMillis,
+                              StructuredLogWriter logWriter) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.logWriter = logWriter;
+    }
+
+    @Around("this(com.allan.libraryapi.model.repository.BookRepository)")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean outermost = SqlCapture.begin();
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (outermost) {
+                List<String> sql = SqlCapture.end();
+                RequestTimings.addQuery(elapsed);
+                if (elapsed >= thresholdNanos) {
+                    logWriter.log(new SlowQueryRecord(RequestTimings.currentRequestId(),
+                            "BookRepository." + joinPoint.getSignature().getName(), elapsed, sql));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.allan.libraryapi.api.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+final class SlowQueryRecord implements StructuredLogRecord {
+
+    private static final Logger LOG = LoggerFactory.getLogger("library.slow-query");
+
+    private final String requestId;
+    private final String repositoryMethod;
+    private final long durationNanos;
+    private final List<String> sql;
+
+    SlowQueryRecord(String requestId, String repositoryMethod, long durationNanos, List<String> sql) {
+        this.requestId = requestId;
+        this.repositoryMethod = repositoryMethod;
+        this.durationNanos = durationNanos;
+        this.sql = sql;
+    }
+
+    @Override
+    public Logger logger() {
+        return LOG;
+    }
+
+    @Override
+    public void appendJson(JsonLine json) {
+        json.field("requestId", requestId)
+                .field("repository", repositoryMethod)
+                .millis("durationMs", durationNanos)
+                .field("sql", sql);
+    }
+}
@@ -0,0 +1,45 @@
+package com.allan.libraryapi.api.logging;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StatementInspector do Hibernate que guarda o SQL gerado enquanto uma chamada de repositorio
+ * esta sendo medida pelo SlowQueryLogAspect. Fora dessas chamadas nao guarda nada.
+ *
+ * Registrado em spring.jpa.properties.hibernate.session_factory.statement_inspector.
+ */
+public class SqlCapture implements StatementInspector {
+
+    static final int MAX_STATEMENTS = 10;
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> captured = CAPTURED.get();
+        if (captured != null && captured.size() < MAX_STATEMENTS) {
+            captured.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * @return false se ja havia uma captura em andamento nesta thread (chamada aninhada)
+     */
+    static boolean begin() {
+        if (CAPTURED.get() != null) {
+            return false;
+        }
+        CAPTURED.set(new ArrayList<>(2));
+        return true;
+    }
+
+    static List<String> end() {
+        List<String> captured = CAPTURED.get();
+        CAPTURED.remove();
+        return captured;
+    }
+}
@@ -0,0 +1,14 @@
+package com.allan.libraryapi.api.logging;
+
+import org.slf4j.Logger;
+
+/**
+ * Registro de log que e montado na thread da requisicao e so vira JSON na thread do
+ * StructuredLogWriter.
+ */
+public interface StructuredLogRecord {
+
+    Logger logger();
+
+    void appendJson(JsonLine json);
+}
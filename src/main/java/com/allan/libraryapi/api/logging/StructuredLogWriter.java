@@ -0,0 +1,81 @@
+package com.allan.libraryapi.api.logging;
+
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Escreve os logs estruturados numa thread propria.
+ *
+ * A thread da requisicao so enfileira o registro (offer sem bloqueio); a serializacao para JSON
+ * e a chamada ao appender acontecem aqui, em lotes, reaproveitando o mesmo StringBuilder. Com a fila
+ * cheia o registro e descartado e contado em library.log.dropped.
+ */
+@Slf4j
+public class StructuredLogWriter implements AutoCloseable {
+
+    public static final String DROPPED_METRIC = "library.log.dropped";
+
+    private static final int BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final BlockingQueue<StructuredLogRecord> queue;
+    private final Thread writer;
+    private final JsonLine json = new JsonLine(new StringBuilder(512));
+    private volatile boolean running = true;
+
+    public StructuredLogWriter(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::run, "structured-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void log(StructuredLogRecord record) {
+        if (!queue.offer(record)) {
+            Metrics.counter(DROPPED_METRIC).increment();
+        }
+    }
+
+    //a thread dorme entre os lotes em vez de esperar na fila, assim o offer da requisicao
+    //nunca precisa acordar o writer
+    private void run() {
+        List<StructuredLogRecord> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            queue.drainTo(batch, BATCH_SIZE);
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            for (StructuredLogRecord record : batch) {
+                try {
+                    write(record);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to write structured log record", e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(StructuredLogRecord record) {
+        if (!record.logger().isInfoEnabled()) {
+            return;
+        }
+        record.appendJson(json.begin());
+        record.logger().info(json.end());
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
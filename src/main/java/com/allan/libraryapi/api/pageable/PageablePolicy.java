@@ -0,0 +1,81 @@
+package com.allan.libraryapi.api.pageable;
+
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Limita o tamanho de pagina, a profundidade da paginacao e os campos de ordenacao aceitos nas
+ * buscas de livros e no historico de emprestimos.
+ *
+ * A profundidade e limitada por (page + 1) * size: cada shard da busca em memoria mantem
+ * offset + size resultados na fila, e no banco o offset e percorrido linha a linha.
+ *
+ * Os campos de ordenacao sao configurados como pares nome:propriedade, onde o nome e o
+ * que o cliente envia em ?sort= e a propriedade e o atributo indexado da entidade.
+ */
+@Component
+public class PageablePolicy {
+
+    static final String REJECTED_METRIC = "library.search.pageable.rejected";
+
+    private final int maxPageSize;
+    private final long maxResultWindow;
+    private final Map<String, String> sortableFields;
+
+    public PageablePolicy(
+            @Value("${library.search.max-page-size:100}") int maxPageSize,
+            @Value("${library.search.max-result-window:10000}") long maxResultWindow,
+            @Value("${library.search.sortable-fields:id:id,title:title,author:author,isbn:isbn}") String sortableFields) {
+        this.maxPageSize = maxPageSize;
+        this.maxResultWindow = maxResultWindow;
+        this.sortableFields = parseSortableFields(sortableFields);
+    }
+
+    public Pageable check(Pageable pageable) {
+        if (pageable.getPageSize() > maxPageSize) {
+            throw reject("page_size", "Page size must be at most " + maxPageSize);
+        }
+        if (pageable.getOffset() + pageable.getPageSize() > maxResultWindow) {
+            throw reject("page_depth", "Page must end within the first " + maxResultWindow + " results");
+        }
+
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order order : pageable.getSort()) {
+            String property = sortableFields.get(order.getProperty());
+            if (property == null) {
+                throw reject("sort_field", "Sort not allowed on field " + order.getProperty());
+            }
+
+            //ignoreCase nao e repassado: lower() na ordenacao impede o uso do indice
+            orders.add(new Sort.Order(order.getDirection(), property, order.getNullHandling()));
+        }
+
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(orders));
+    }
+
+    private ResponseStatusException reject(String reason, String message) {
+        Metrics.counter(REJECTED_METRIC, "reason", reason).increment();
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+    }
+
+    private static Map<String, String> parseSortableFields(String value) {
+        Map<String, String> fields = new HashMap<>();
+        for (String pair : value.split(",")) {
+            String[] parts = pair.trim().split(":");
+            String name = parts[0].trim();
+            fields.put(name, parts.length > 1 ? parts[1].trim() : name);
+        }
+        return fields;
+    }
+}
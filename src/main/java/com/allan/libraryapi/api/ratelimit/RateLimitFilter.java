@@ -0,0 +1,218 @@
+package com.allan.libraryapi.api.ratelimit;
+
+import com.allan.libraryapi.tenant.TenantContext;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Controle de admissao das rotas de livros e emprestimos.
+ *
+ * Cada cliente (header X-API-Key ou IP) tem um token bucket de leitura e outro de escrita
+ * dentro do seu tenant, e cada tenant tem mais um par de buckets para todos os seus clientes
+ * juntos (library.ratelimit.tenant.*), para que uma filial nao consuma a capacidade das outras.
+ * Alem disso, o numero de requisicoes simultaneas nessas rotas e limitado ao tamanho do
+ * pool JDBC, para que um cliente nao segure todas as conexoes.
+ *
+ * Os buckets de cliente ficam limitados a library.ratelimit.max-clients. Com o mapa cheio, os
+ * buckets parados (cheios de novo) sao removidos, no maximo uma vez por SWEEP_INTERVAL_NANOS; um
+ * cliente novo que ainda nao couber divide com os outros nessa situacao um bucket de reserva do
+ * seu tenant, do mesmo tamanho do de um cliente. Os buckets de tenant sao limitados pela lista
+ * fechada de tenants do TenantFilter.
+ *
+ * Roda antes da idempotencia: uma requisicao recusada aqui nunca fica gravada sob a
+ * Idempotency-Key.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 40)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String API_KEY_HEADER = "X-API-Key";
+    static final String THROTTLED_METRIC = "library.ratelimit.throttled";
+    static final String READ = "read";
+    static final String WRITE = "write";
+    static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final String TOO_MANY_REQUESTS_BODY = "{\"errors\":[\"Too many requests\"]}";
+
+    private final boolean enabled;
+    private final double readPerSecond;
+    private final int readBurst;
+    private final double writePerSecond;
+    private final int writeBurst;
+    private final double tenantReadPerSecond;
+    private final int tenantReadBurst;
+    private final double tenantWritePerSecond;
+    private final int tenantWriteBurst;
+    private final int maxClients;
+    private final long concurrencyWaitMillis;
+    private final Semaphore concurrency;
+
+    private final ConcurrentMap<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TokenBucket> tenantBuckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private volatile long nextSweepAt = System.nanoTime();
+
+    public RateLimitFilter(
+            @Value("${library.ratelimit.enabled:true}") boolean enabled,
+            @Value("${library.ratelimit.read.per-second:50}") double readPerSecond,
+            @Value("${library.ratelimit.read.burst:100}") int readBurst,
+            @Value("${library.ratelimit.write.per-second:10}") double writePerSecond,
+            @Value("${library.ratelimit.write.burst:20}") int writeBurst,
+            @Value("${library.ratelimit.tenant.read.per-second:500}") double tenantReadPerSecond,
+            @Value("${library.ratelimit.tenant.read.burst:1000}") int tenantReadBurst,
+            @Value("${library.ratelimit.tenant.write.per-second:100}") double tenantWritePerSecond,
+            @Value("${library.ratelimit.tenant.write.burst:200}") int tenantWriteBurst,
+            @Value("${library.ratelimit.max-clients:10000}") int maxClients,
+            @Value("${library.ratelimit.concurrency-wait-ms:100}") long concurrencyWaitMillis,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maxConcurrent) {
+        this.enabled = enabled;
+        this.readPerSecond = readPerSecond;
+        this.readBurst = readBurst;
+        this.writePerSecond = writePerSecond;
+        this.writeBurst = writeBurst;
+        this.tenantReadPerSecond = tenantReadPerSecond;
+        this.tenantReadBurst = tenantReadBurst;
+        this.tenantWritePerSecond = tenantWritePerSecond;
+        this.tenantWriteBurst = tenantWriteBurst;
+        this.maxClients = maxClients;
+        this.concurrencyWaitMillis = concurrencyWaitMillis;
+        this.concurrency = new Semaphore(maxConcurrent);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || bucketName(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String bucketName = bucketName(request);
+        String tenantId = TenantContext.current();
+        boolean read = READ.equals(bucketName);
+        long now = System.nanoTime();
+
+        String clientBucket = bucketName + ":" + tenantId + ":" + clientKey(request);
+        long wait = clientBucket(clientBucket, bucketName + ":" + tenantId, now,
+                read ? readPerSecond : writePerSecond, read ? readBurst : writeBurst).tryConsume(now);
+        if (wait > 0) {
+            reject(response, bucketName, "rate", wait);
+            return;
+        }
+
+        String tenantBucket = bucketName + ":" + tenantId;
+        wait = tenantBuckets.computeIfAbsent(tenantBucket, key -> new TokenBucket(
+                read ? tenantReadPerSecond : tenantWritePerSecond, read ? tenantReadBurst : tenantWriteBurst))
+                .tryConsume(now);
+        if (wait > 0) {
+            reject(response, bucketName, "tenant", wait);
+            return;
+        }
+
+        boolean acquired;
+        try {
+            acquired = concurrency.tryAcquire(concurrencyWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            reject(response, bucketName, "concurrency", TimeUnit.SECONDS.toNanos(1));
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    private TokenBucket clientBucket(String key, String tenantBucket, long now, double perSecond, int burst) {
+        TokenBucket bucket = clientBuckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+
+        if (clientBuckets.size() >= maxClients) {
+            sweepFullBuckets(now);
+            if (clientBuckets.size() >= maxClients) {
+                return tenantBuckets.computeIfAbsent("overflow:" + tenantBucket, name -> new TokenBucket(perSecond, burst));
+            }
+        }
+
+        bucket = new TokenBucket(perSecond, burst);
+        TokenBucket existing = clientBuckets.putIfAbsent(key, bucket);
+        return existing != null ? existing : bucket;
+    }
+
+    //percorre o mapa inteiro: no maximo uma vez por intervalo, e so uma thread por vez
+    private void sweepFullBuckets(long now) {
+        if (now - nextSweepAt < 0 || !sweeping.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            clientBuckets.values().removeIf(bucket -> bucket.isFull(now));
+            nextSweepAt = now + SWEEP_INTERVAL_NANOS;
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private void reject(HttpServletResponse response, String bucketName, String reason, long waitNanos)
+            throws IOException {
+        Metrics.counter(THROTTLED_METRIC, "bucket", bucketName, "reason", reason).increment();
+
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(TOO_MANY_REQUESTS_BODY);
+    }
+
+    static String bucketName(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+
+        if (path.startsWith("/api/books")) {
+            if (HttpMethod.GET.matches(method)) {
+                return READ;
+            }
+            if (HttpMethod.POST.matches(method)) {
+                return WRITE;
+            }
+        }
+
+        if (path.startsWith("/api/loans") && HttpMethod.POST.matches(method)) {
+            return WRITE;
+        }
+
+        return null;
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        return apiKey != null && !apiKey.isEmpty() ? apiKey : request.getRemoteAddr();
+    }
+}
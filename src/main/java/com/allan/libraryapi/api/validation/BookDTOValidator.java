@@ -0,0 +1,59 @@
+package com.allan.libraryapi.api.validation;
+
+import com.allan.libraryapi.dto.BookDTO;
+import com.allan.libraryapi.exception.ValidationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validacao do BookDTO escrita a mao, no lugar do @Valid: sem metadados por reflexao nem
+ * objetos de violacao, e nenhuma alocacao quando o corpo e valido. As mensagens seguem as
+ * do @NotEmpty e saem no mesmo formato do ApiErrors.
+ */
+public final class BookDTOValidator {
+
+    static final String NOT_EMPTY = "must not be empty";
+    static final String INVALID_ISBN = "invalid ISBN";
+
+    private BookDTOValidator() {
+    }
+
+    public static void validate(BookDTO dto) {
+        List<String> errors = null;
+
+        if (isEmpty(dto.getTitle())) {
+            errors = add(errors, NOT_EMPTY);
+        }
+        if (isEmpty(dto.getAuthor())) {
+            errors = add(errors, NOT_EMPTY);
+        }
+        errors = validateIsbn(dto.getIsbn(), errors);
+
+        if (errors != null) {
+            throw new ValidationException(errors);
+        }
+    }
+
+    static List<String> validateIsbn(String isbn, List<String> errors) {
+        if (isEmpty(isbn)) {
+            return add(errors, NOT_EMPTY);
+        }
+        if (!Isbn.isValid(isbn)) {
+            return add(errors, INVALID_ISBN);
+        }
+        return errors;
+    }
+
+    static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    static List<String> add(List<String> errors, String message) {
+        if (errors == null) {
+            errors = new ArrayList<>(3);
+        }
+        errors.add(message);
+        return errors;
+    }
+}
@@ -0,0 +1,54 @@
+package com.allan.libraryapi.api.validation;
+
+/**
+ * Validacao de ISBN-10 e ISBN-13 pelo digito verificador. Hifens e espacos sao ignorados.
+ */
+public final class Isbn {
+
+    private Isbn() {
+    }
+
+    public static boolean isValid(String isbn) {
+        if (isbn == null) {
+            return false;
+        }
+
+        int digits = 0;
+        int sum10 = 0;
+        int sum13 = 0;
+        boolean checkX = false;
+
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            if (checkX) {
+                return false;
+            }
+
+            int value;
+            if (c >= '0' && c <= '9') {
+                value = c - '0';
+            } else if ((c == 'X' || c == 'x') && digits == 9) {
+                value = 10;
+                checkX = true;
+            } else {
+                return false;
+            }
+
+            digits++;
+            if (digits > 13) {
+                return false;
+            }
+            //ISBN-10: pesos 10..1; ISBN-13: pesos alternados 1 e 3
+            sum10 += value * (11 - digits);
+            sum13 += (digits % 2 == 1) ? value : value * 3;
+        }
+
+        if (digits == 10) {
+            return sum10 % 11 == 0;
+        }
+        return digits == 13 && !checkX && sum13 % 10 == 0;
+    }
+}
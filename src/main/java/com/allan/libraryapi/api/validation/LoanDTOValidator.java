@@ -0,0 +1,42 @@
+package com.allan.libraryapi.api.validation;
+
+import com.allan.libraryapi.dto.LoanDTO;
+import com.allan.libraryapi.dto.ReturnedLoanDTO;
+import com.allan.libraryapi.exception.ValidationException;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.allan.libraryapi.api.validation.BookDTOValidator.NOT_EMPTY;
+import static com.allan.libraryapi.api.validation.BookDTOValidator.add;
+import static com.allan.libraryapi.api.validation.BookDTOValidator.isEmpty;
+
+public final class LoanDTOValidator {
+
+    static final String NOT_NULL = "must not be null";
+
+    private LoanDTOValidator() {
+    }
+
+    //sem digito verificador: o ISBN so localiza um livro ja cadastrado, inclusive os de antes dessa validacao
+    public static void validate(LoanDTO dto) {
+        List<String> errors = null;
+
+        if (isEmpty(dto.getIsbn())) {
+            errors = add(errors, NOT_EMPTY);
+        }
+        if (isEmpty(dto.getCustomer())) {
+            errors = add(errors, NOT_EMPTY);
+        }
+
+        if (errors != null) {
+            throw new ValidationException(errors);
+        }
+    }
+
+    public static void validate(ReturnedLoanDTO dto) {
+        if (dto.getReturned() == null) {
+            throw new ValidationException(Collections.singletonList(NOT_NULL));
+        }
+    }
+}
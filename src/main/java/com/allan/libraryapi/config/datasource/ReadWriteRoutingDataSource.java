@@ -0,0 +1,54 @@
+package com.allan.libraryapi.config.datasource;
+
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envia transacoes readOnly para as replicas saudaveis (em rodizio) e todo o resto para o
+ * primario. Precisa ficar atras de um LazyConnectionDataSourceProxy: a conexao so pode ser
+ * escolhida depois que a transacao ja foi marcada como readOnly.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String ROUTED_METRIC = "library.datasource.routed";
+
+    private final List<String> replicas;
+    private final ReplicaLagMonitor lagMonitor;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(List<String> replicas, ReplicaLagMonitor lagMonitor) {
+        this.replicas = new ArrayList<>(replicas);
+        this.lagMonitor = lagMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String target = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                ? healthyReplica()
+                : PRIMARY;
+
+        Metrics.counter(ROUTED_METRIC, "target", target).increment();
+        return target;
+    }
+
+    private String healthyReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(1, size));
+
+        for (int i = 0; i < size; i++) {
+            String replica = replicas.get((start + i) % size);
+            if (lagMonitor.isHealthy(replica)) {
+                return replica;
+            }
+        }
+
+        //nenhuma replica em dia: a leitura cai no primario
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,33 @@
+package com.allan.libraryapi.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pools das replicas de leitura, por nome. Fecha os pools junto com o contexto.
+ */
+public class ReplicaDataSources implements AutoCloseable {
+
+    private final Map<String, DataSource> dataSources;
+
+    public ReplicaDataSources(Map<String, DataSource> dataSources) {
+        this.dataSources = Collections.unmodifiableMap(new LinkedHashMap<>(dataSources));
+    }
+
+    public Map<String, DataSource> asMap() {
+        return dataSources;
+    }
+
+    @Override
+    public void close() {
+        dataSources.values().forEach(dataSource -> {
+            if (dataSource instanceof HikariDataSource) {
+                ((HikariDataSource) dataSource).close();
+            }
+        });
+    }
+}
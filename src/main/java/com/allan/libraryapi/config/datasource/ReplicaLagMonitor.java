@@ -0,0 +1,131 @@
+package com.allan.libraryapi.config.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede o atraso de cada replica com uma tabela de heartbeat: o primario grava o horario
+ * atual e cada replica e lida para ver o quanto esta atrasada. Replica que nao responde,
+ * nao tem o heartbeat ou passa de maxLagMillis sai da rotacao ate se recuperar.
+ *
+ * A medicao roda numa thread propria, fora do pool do @Scheduled, para nao esperar atras dos
+ * outros jobs. Uma medicao mais velha que duas vezes checkIntervalMillis vale como atraso
+ * desconhecido: se a thread parar, as replicas saem da rotacao em vez de ficarem com o
+ * ultimo valor bom.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    static final long UNKNOWN_LAG = -1;
+
+    private static final String CREATE_TABLE =
+            "create table if not exists replication_heartbeat (id int primary key, beat_at bigint not null)";
+
+    private final JdbcTemplate primary;
+    private final Map<String, JdbcTemplate> replicas = new LinkedHashMap<>();
+    private final long maxLagMillis;
+    private final long checkIntervalMillis;
+    private final Map<String, Sample> lagByReplica = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaLagMonitor(DataSource primary, Map<String, DataSource> replicas, long maxLagMillis,
+                             long checkIntervalMillis) {
+        this.primary = new JdbcTemplate(primary);
+        replicas.forEach((name, dataSource) -> this.replicas.put(name, new JdbcTemplate(dataSource)));
+        this.maxLagMillis = maxLagMillis;
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            primary.execute(CREATE_TABLE);
+        } catch (RuntimeException e) {
+            log.warn("Could not create replication heartbeat table on primary: {}", e.getMessage());
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        try {
+            beat(now);
+        } catch (RuntimeException e) {
+            log.warn("Could not write replication heartbeat on primary: {}", e.getMessage());
+        }
+
+        replicas.forEach((name, replica) -> lagByReplica.put(name, new Sample(lagOf(replica, now), now)));
+    }
+
+    public boolean isHealthy(String replica) {
+        long lag = lagMillis(replica);
+        return lag != UNKNOWN_LAG && lag <= maxLagMillis;
+    }
+
+    public long lagMillis(String replica) {
+        Sample sample = lagByReplica.get(replica);
+        if (sample == null || System.currentTimeMillis() - sample.sampledAt > 2 * checkIntervalMillis) {
+            return UNKNOWN_LAG;
+        }
+        return sample.lagMillis;
+    }
+
+    //uma excecao que escapasse cancelaria as proximas execucoes do agendamento
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh replica lag", e);
+        }
+    }
+
+    private void beat(long now) {
+        if (primary.update("update replication_heartbeat set beat_at = ? where id = 1", now) == 0) {
+            primary.update("insert into replication_heartbeat (id, beat_at) values (1, ?)", now);
+        }
+    }
+
+    private static long lagOf(JdbcTemplate replica, long now) {
+        try {
+            Long beatAt = replica.queryForObject("select max(beat_at) from replication_heartbeat", Long.class);
+            return beatAt == null ? UNKNOWN_LAG : Math.max(0, now - beatAt);
+        } catch (RuntimeException e) {
+            return UNKNOWN_LAG;
+        }
+    }
+
+    private static final class Sample {
+
+        private final long lagMillis;
+        private final long sampledAt;
+
+        Sample(long lagMillis, long sampledAt) {
+            this.lagMillis = lagMillis;
+            this.sampledAt = sampledAt;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.allan.libraryapi.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ativado com library.datasource.routing.enabled=true. Substitui o DataSource padrao do
+ * Spring Boot por um primario e um conjunto de replicas de leitura.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.datasource.routing.enabled", havingValue = "true")
+public class RoutingDataSourceConfig {
+
+    @Value("${library.datasource.primary.url}")
+    private String primaryUrl;
+
+    @Value("${library.datasource.replicas.urls}")
+    private String[] replicaUrls;
+
+    @Value("${library.datasource.username:sa}")
+    private String username;
+
+    @Value("${library.datasource.password:}")
+    private String password;
+
+    @Value("${library.datasource.routing.max-lag-ms:5000}")
+    private long maxLagMillis;
+
+    @Value("${library.datasource.routing.lag-check-interval-ms:1000}")
+    private long lagCheckIntervalMillis;
+
+    @Bean
+    public DataSource primaryDataSource() {
+        return pool("primary", primaryUrl);
+    }
+
+    @Bean
+    public ReplicaDataSources replicaDataSources() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            String name = "replica-" + i;
+            replicas.put(name, pool(name, replicaUrls[i].trim()));
+        }
+        return new ReplicaDataSources(replicas);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor() {
+        return new ReplicaLagMonitor(primaryDataSource(), replicaDataSources().asMap(), maxLagMillis, lagCheckIntervalMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource() {
+        Map<String, DataSource> replicas = replicaDataSources().asMap();
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(ReadWriteRoutingDataSource.PRIMARY, primaryDataSource());
+
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(new ArrayList<>(replicas.keySet()), replicaLagMonitor());
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primaryDataSource());
+        routing.afterPropertiesSet();
+
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private DataSource pool(String name, String url) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName(name);
+        dataSource.setMetricRegistry(Metrics.globalRegistry);
+        return dataSource;
+    }
+}
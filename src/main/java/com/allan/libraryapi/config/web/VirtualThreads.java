@@ -0,0 +1,47 @@
+package com.allan.libraryapi.config.web;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Acesso as threads virtuais (JDK 21+) por reflexao, para o mesmo codigo compilar no Java 8
+ * e, com o profile jdk21, rodar no 21. Equivale a
+ * Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory()).
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Executor que cria uma thread virtual por tarefa, nomeadas prefix + contador.
+     *
+     * @throws IllegalStateException se o JDK nao tiver threads virtuais
+     */
+    public static ExecutorService newExecutor(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads require JDK 21+ (running on "
+                    + System.getProperty("java.version") + ")", e);
+        }
+    }
+}
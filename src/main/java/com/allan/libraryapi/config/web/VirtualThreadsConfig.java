@@ -0,0 +1,51 @@
+package com.allan.libraryapi.config.web;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Ativado com library.web.virtual-threads=true. O Tomcat passa a atender cada requisicao numa
+ * thread virtual em vez do pool de server.tomcat.threads.max threads de plataforma, entao as
+ * chamadas bloqueantes ao JDBC nao prendem uma thread do SO cada. A concorrencia no banco
+ * continua limitada pelo pool do Hikari, e a por cliente pelo rate limit.
+ *
+ * Precisa rodar no JDK 21+ (build com o profile jdk21); em JDK anterior sobe com o pool de
+ * plataforma e avisa no log. No 21 um bloqueio dentro de synchronized ainda prende a thread
+ * portadora (resolvido no JDK 24), o que pode limitar o ganho com drivers que sincronizam.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "library.web.virtual-threads", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    private volatile ExecutorService executor;
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        if (!VirtualThreads.isSupported()) {
+            log.warn("library.web.virtual-threads=true needs JDK 21+, running on {}; keeping the platform thread pool",
+                    System.getProperty("java.version"));
+            return handler -> { };
+        }
+
+        return handler -> {
+            executor = VirtualThreads.newExecutor("http-virtual-");
+            handler.setExecutor(executor);
+            log.info("Tomcat requests run on virtual threads");
+        };
+    }
+
+    //o Tomcat so encerra o executor que ele mesmo criou
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.allan.libraryapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthorLoanStatsDTO {
+
+    private String author;
+
+    private long activeLoans;
+}
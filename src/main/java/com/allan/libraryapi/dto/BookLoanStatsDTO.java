@@ -0,0 +1,24 @@
+package com.allan.libraryapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookLoanStatsDTO {
+
+    //yyyy-MM
+    private String month;
+
+    private Long bookId;
+
+    private String isbn;
+
+    private String title;
+
+    private long loans;
+}
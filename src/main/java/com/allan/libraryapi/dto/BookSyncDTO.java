@@ -0,0 +1,23 @@
+package com.allan.libraryapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSyncDTO {
+
+    private List<BookDTO> changed;
+
+    private List<Long> deleted;
+
+    private String watermark;
+
+    private boolean hasMore;
+}
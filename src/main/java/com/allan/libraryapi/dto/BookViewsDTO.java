@@ -0,0 +1,18 @@
+package com.allan.libraryapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookViewsDTO {
+
+    private Long bookId;
+
+    //gravadas no banco mais as que ainda estao no buffer desta instancia
+    private long views;
+}
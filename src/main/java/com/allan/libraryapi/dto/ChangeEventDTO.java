@@ -0,0 +1,31 @@
+package com.allan.libraryapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEventDTO {
+
+    private Long id;
+
+    private Long position;
+
+    private String aggregateType;
+
+    private Long aggregateId;
+
+    private String type;
+
+    @JsonRawValue
+    private String payload;
+
+    private LocalDateTime createdAt;
+}
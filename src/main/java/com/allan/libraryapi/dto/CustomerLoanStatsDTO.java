@@ -0,0 +1,19 @@
+package com.allan.libraryapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerLoanStatsDTO {
+
+    private String customer;
+
+    private long totalLoans;
+
+    private long activeLoans;
+}
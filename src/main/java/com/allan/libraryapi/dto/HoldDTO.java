@@ -0,0 +1,24 @@
+package com.allan.libraryapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldDTO {
+
+    private Long id;
+
+    private String isbn;
+
+    private String customer;
+
+    private String status;
+
+    //posicao na fila; so para reservas WAITING
+    private Long position;
+}
@@ -5,13 +5,21 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
+
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class LoanDTO {
 
+    private Long id;
+
     private String isbn;
 
     private String customer;
+
+    private LocalDate loanDate;
+
+    private Boolean returned;
 }
@@ -0,0 +1,21 @@
+package com.allan.libraryapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PopularBookDTO {
+
+    private Long bookId;
+
+    //contagem aproximada com decaimento exponencial
+    private double score;
+
+    //quanto o score pode estar superestimado
+    private double error;
+}
@@ -1,7 +1,12 @@
 package com.allan.libraryapi.exception;
 
+/**
+ * Falha esperada de regra de negocio (ISBN duplicado, livro ja emprestado...). Nao captura
+ * stack trace nem aceita excecoes suprimidas: o que importa e a mensagem, que vai para o
+ * cliente. Por ser imutavel, pode ser pre-alocada e lancada por varias threads.
+ */
 public class BusinessException extends RuntimeException {
     public BusinessException(String s) {
-        super(s);
+        super(s, null, false, false);
     }
 }
@@ -0,0 +1,13 @@
+package com.allan.libraryapi.exception;
+
+/**
+ * Recurso inexistente (404). Sem estado proprio, entao uma unica instancia serve para todos.
+ */
+public class NotFoundException extends BusinessException {
+
+    public static final NotFoundException INSTANCE = new NotFoundException();
+
+    private NotFoundException() {
+        super("Not found");
+    }
+}
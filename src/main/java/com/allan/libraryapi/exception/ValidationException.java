@@ -0,0 +1,21 @@
+package com.allan.libraryapi.exception;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Corpo de requisicao invalido. Leva todas as mensagens de uma vez, como o BindingResult.
+ */
+public class ValidationException extends BusinessException {
+
+    private final List<String> errors;
+
+    public ValidationException(List<String> errors) {
+        super(errors.isEmpty() ? null : errors.get(0));
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
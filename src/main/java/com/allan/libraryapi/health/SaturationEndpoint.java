@@ -0,0 +1,247 @@
+package com.allan.libraryapi.health;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /actuator/saturation: sinais de saturacao para o autoscaler, alem da CPU.
+ *
+ * <pre>
+ *   dbPool    conexoes ativas, maximo e threads esperando conexao, somando todos os pools Hikari
+ *   requests  threads ocupadas, maximo e fila do executor do Tomcat, e conexoes abertas
+ *   caches    acertos e faltas por cache (library.cache.requests), desde que a aplicacao subiu
+ *   latency   p99 em ms dos caminhos /api/books e /api/loans (http.server.requests, janela movel)
+ *   gc        fracao do tempo em GC na ultima amostra e ocupacao do heap de longa vida apos GC
+ *   warmingUp true enquanto alguma tarefa de aquecimento nao terminou
+ *   warmUp    tarefas de aquecimento (ver WarmUpTracker)
+ * </pre>
+ *
+ * saturated fica true, com os motivos em reasons, quando o pool de conexoes ou as threads do
+ * Tomcat passam de library.saturation.utilization-threshold, quando ha requisicoes ou threads
+ * na fila, ou quando o GC passa de library.saturation.gc-time-threshold do tempo. O aquecimento
+ * nao conta: uma instancia aquecendo nao precisa de outra, so de tempo.
+ */
+@Component
+@Endpoint(id = "saturation")
+public class SaturationEndpoint {
+
+    public static final String CACHE_METRIC = "library.cache.requests";
+
+    private static final String BOOKS_PATH = "/api/books";
+    private static final String LOANS_PATH = "/api/loans";
+
+    private final MeterRegistry meterRegistry;
+    private final ApplicationContext applicationContext;
+    private final WarmUpTracker warmUpTracker;
+    private final double utilizationThreshold;
+    private final double gcTimeThreshold;
+
+    private long lastGcMillis = -1;
+    private long lastSampleNanos;
+    private volatile double gcTimeRatio;
+
+    public SaturationEndpoint(MeterRegistry meterRegistry,
+                              ApplicationContext applicationContext,
+                              WarmUpTracker warmUpTracker,
+                              @Value("${library.saturation.utilization-threshold:0.8}") double utilizationThreshold,
+                              @Value("${library.saturation.gc-time-threshold:0.1}") double gcTimeThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.applicationContext = applicationContext;
+        this.warmUpTracker = warmUpTracker;
+        this.utilizationThreshold = utilizationThreshold;
+        this.gcTimeThreshold = gcTimeThreshold;
+    }
+
+    @ReadOperation
+    public Map<String, Object> saturation() {
+        List<String> reasons = new ArrayList<>();
+
+        Map<String, Object> dbPool = dbPool(reasons);
+        Map<String, Object> requests = requests(reasons);
+        Map<String, Object> gc = gc(reasons);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("saturated", !reasons.isEmpty());
+        report.put("reasons", reasons);
+        report.put("dbPool", dbPool);
+        report.put("requests", requests);
+        report.put("caches", caches());
+        report.put("latency", latency());
+        report.put("gc", gc);
+        report.put("warmingUp", !warmUpTracker.isComplete());
+        report.put("warmUp", warmUpTracker.getTasks());
+        return report;
+    }
+
+    @Scheduled(fixedDelayString = "${library.saturation.gc-sample-interval-ms:10000}")
+    public synchronized void sampleGc() {
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcMillis += Math.max(0, collector.getCollectionTime());
+        }
+        long now = System.nanoTime();
+
+        if (lastGcMillis >= 0 && now > lastSampleNanos) {
+            gcTimeRatio = (gcMillis - lastGcMillis) / (double) TimeUnit.NANOSECONDS.toMillis(now - lastSampleNanos);
+        }
+        lastGcMillis = gcMillis;
+        lastSampleNanos = now;
+    }
+
+    private Map<String, Object> dbPool(List<String> reasons) {
+        double active = sum("hikaricp.connections.active");
+        double max = sum("hikaricp.connections.max");
+        double pending = sum("hikaricp.connections.pending");
+        if (ratio(active, max) >= utilizationThreshold || pending > 0) {
+            reasons.add("dbPool");
+        }
+
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("active", active);
+        pool.put("max", max);
+        pool.put("pending", pending);
+        pool.put("utilization", ratio(active, max));
+        return pool;
+    }
+
+    private Map<String, Object> requests(List<String> reasons) {
+        int busy = 0;
+        int max = 0;
+        int queued = 0;
+        long connections = 0;
+        boolean virtualThreads = false;
+
+        if (applicationContext instanceof WebServerApplicationContext
+                && ((WebServerApplicationContext) applicationContext).getWebServer() instanceof TomcatWebServer) {
+            TomcatWebServer server = (TomcatWebServer) ((WebServerApplicationContext) applicationContext).getWebServer();
+            for (Connector connector : server.getTomcat().getService().findConnectors()) {
+                Executor executor = connector.getProtocolHandler().getExecutor();
+                if (executor instanceof ThreadPoolExecutor) {
+                    ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+                    busy += pool.getActiveCount();
+                    max += pool.getMaximumPoolSize();
+                    queued += pool.getQueue().size();
+                } else if (executor != null) {
+                    //threads virtuais: sem teto de threads, a saturacao aparece no pool do banco
+                    virtualThreads = true;
+                }
+                if (connector.getProtocolHandler() instanceof AbstractProtocol) {
+                    connections += ((AbstractProtocol<?>) connector.getProtocolHandler()).getConnectionCount();
+                }
+            }
+        }
+
+        if (ratio(busy, max) >= utilizationThreshold || queued > 0) {
+            reasons.add("requests");
+        }
+
+        Map<String, Object> requests = new LinkedHashMap<>();
+        requests.put("busyThreads", busy);
+        requests.put("maxThreads", max);
+        requests.put("queued", queued);
+        requests.put("connections", connections);
+        requests.put("virtualThreads", virtualThreads);
+        requests.put("utilization", ratio(busy, max));
+        return requests;
+    }
+
+    private Map<String, Object> caches() {
+        Map<String, double[]> counts = new LinkedHashMap<>();
+        for (Counter counter : meterRegistry.find(CACHE_METRIC).counters()) {
+            double[] hitsAndMisses = counts.computeIfAbsent(counter.getId().getTag("cache"), cache -> new double[2]);
+            hitsAndMisses["hit".equals(counter.getId().getTag("result")) ? 0 : 1] += counter.count();
+        }
+
+        Map<String, Object> caches = new LinkedHashMap<>();
+        counts.forEach((cache, hitsAndMisses) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("hits", hitsAndMisses[0]);
+            entry.put("misses", hitsAndMisses[1]);
+            entry.put("hitRatio", ratio(hitsAndMisses[0], hitsAndMisses[0] + hitsAndMisses[1]));
+            caches.put(cache, entry);
+        });
+        return caches;
+    }
+
+    //maior p99 entre as URIs de cada caminho; precisa de
+    //management.metrics.distribution.percentiles.http.server.requests=0.99
+    private Map<String, Object> latency() {
+        double books = 0;
+        double loans = 0;
+        for (Timer timer : meterRegistry.find("http.server.requests").timers()) {
+            String uri = timer.getId().getTag("uri");
+            double p99 = p99Millis(timer);
+            if (uri == null || Double.isNaN(p99)) {
+                continue;
+            }
+            if (uri.startsWith(BOOKS_PATH)) {
+                books = Math.max(books, p99);
+            } else if (uri.startsWith(LOANS_PATH)) {
+                loans = Math.max(loans, p99);
+            }
+        }
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("booksP99Ms", books);
+        latency.put("loansP99Ms", loans);
+        return latency;
+    }
+
+    private Map<String, Object> gc(List<String> reasons) {
+        if (gcTimeRatio >= gcTimeThreshold) {
+            reasons.add("gc");
+        }
+
+        Map<String, Object> gc = new LinkedHashMap<>();
+        gc.put("timeRatio", gcTimeRatio);
+        gc.put("liveDataRatio", ratio(sum("jvm.gc.live.data.size"), sum("jvm.gc.max.data.size")));
+        return gc;
+    }
+
+    private static double p99Millis(Timer timer) {
+        for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == 0.99) {
+                return percentile.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+
+    private double sum(String gaugeName) {
+        double total = 0;
+        for (Gauge gauge : meterRegistry.find(gaugeName).gauges()) {
+            double value = gauge.value();
+            if (!Double.isNaN(value)) {
+                total += value;
+            }
+        }
+        return total;
+    }
+
+    private static double ratio(double part, double whole) {
+        return whole > 0 ? part / whole : 0;
+    }
+}
@@ -0,0 +1,69 @@
+package com.allan.libraryapi.health;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Segura a readiness (GET /actuator/health/readiness) em REFUSING_TRAFFIC enquanto houver
+ * aquecimento em andamento, como a carga do indice de sugestoes e do catalogo em memoria.
+ *
+ * As tarefas sao registradas no ApplicationReadyEvent, antes de o Spring Boot declarar
+ * ACCEPTING_TRAFFIC; se houver alguma pendente nesse momento a readiness volta para
+ * REFUSING_TRAFFIC, e so passa a ACCEPTING_TRAFFIC quando a ultima terminar. Uma tarefa que
+ * falhou tambem conta como terminada: os servicos caem para o banco e o log registra a falha.
+ */
+@Slf4j
+@Component
+public class WarmUpTracker {
+
+    static final String RUNNING = "running";
+    static final String DONE = "done";
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, String> tasks = new LinkedHashMap<>();
+
+    private boolean acceptingDeclared;
+
+    public WarmUpTracker(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    public synchronized void started(String task) {
+        tasks.put(task, RUNNING);
+    }
+
+    public synchronized void completed(String task) {
+        tasks.put(task, DONE);
+        if (acceptingDeclared && isComplete()) {
+            log.info("Warm-up complete, accepting traffic");
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+
+    public synchronized boolean isComplete() {
+        return !tasks.containsValue(RUNNING);
+    }
+
+    public synchronized Map<String, String> getTasks() {
+        return new LinkedHashMap<>(tasks);
+    }
+
+    @EventListener
+    public synchronized void onReadinessChanged(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getSource() == this || event.getState() != ReadinessState.ACCEPTING_TRAFFIC) {
+            return;
+        }
+        acceptingDeclared = true;
+        if (!isComplete()) {
+            log.info("Refusing traffic until warm-up completes: {}", tasks);
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.allan.libraryapi.loadtest;
+
+import com.allan.libraryapi.tenant.TenantContext;
+import com.allan.libraryapi.util.SearchText;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Popula o banco com o catalogo sintetico e um historico de emprestimos quando a aplicacao
+ * sobe com o profile "loadtest". Insere via JDBC em lotes para nao passar pelo JPA.
+ */
+@Slf4j
+@Component
+@Profile("loadtest")
+public class CatalogSeeder implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SyntheticCatalog catalog;
+    private final long seed;
+    private final int books;
+    private final int loans;
+    private final int activeLoans;
+
+    public CatalogSeeder(JdbcTemplate jdbcTemplate,
+                         @Value("${library.loadtest.seed:42}") long seed,
+                         @Value("${library.loadtest.books:1000000}") int books,
+                         @Value("${library.loadtest.loans:2000000}") int loans,
+                         @Value("${library.loadtest.active-loans:20000}") int activeLoans) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalog = new SyntheticCatalog(seed);
+        this.seed = seed;
+        this.books = books;
+        this.loans = loans;
+        this.activeLoans = Math.min(activeLoans, books);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+
+        seedBooks();
+        Long firstId = jdbcTemplate.queryForObject("select min(id) from book", Long.class);
+        seedLoans(firstId == null ? 1L : firstId);
+
+        log.info("Load test catalog seeded: {} books, {} loans ({} active) in {} ms",
+                books, loans, activeLoans, System.currentTimeMillis() - start);
+    }
+
+    private void seedBooks() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < books; i++) {
+            String title = catalog.title(i);
+            String author = catalog.author(i);
+            batch.add(new Object[]{ TenantContext.DEFAULT_TENANT, title, author, catalog.isbn(i), SearchText.normalize(title), SearchText.normalize(author), now, now });
+            if (batch.size() == BATCH_SIZE) {
+                insertBooks(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertBooks(batch);
+        }
+    }
+
+    private void insertBooks(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("insert into book (tenant_id, title, author, isbn, title_search, author_search, created_at, updated_at) " +
+                "values (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+    }
+
+    private void seedLoans(long firstBookId) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDate today = LocalDate.now();
+        int history = Math.max(0, loans - activeLoans);
+        long stride = Math.max(1, books / Math.max(1, activeLoans));
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < loans; i++) {
+            boolean active = i >= history;
+
+            //emprestimos ativos ficam em livros distintos; o historico cai em qualquer livro
+            long bookId = active
+                    ? firstBookId + (i - history) * stride
+                    : firstBookId + random.nextInt(books);
+            LocalDate loanDate = active
+                    ? today.minusDays(random.nextInt(30))
+                    : today.minusDays(30 + random.nextInt(700));
+
+            batch.add(new Object[]{ TenantContext.DEFAULT_TENANT, "customer-" + random.nextInt(100_000), bookId, Date.valueOf(loanDate), !active });
+            if (batch.size() == BATCH_SIZE) {
+                insertLoans(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertLoans(batch);
+        }
+    }
+
+    private void insertLoans(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("insert into loan (tenant_id, customer, id_book, loan_date, returned) values (?, ?, ?, ?, ?)", batch);
+    }
+}
@@ -0,0 +1,105 @@
+package com.allan.libraryapi.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Catalogo sintetico deterministico: os dados do livro de indice i dependem apenas da seed
+ * e de i, entao o seeder e o gerador de carga enxergam o mesmo acervo sem trocar dados.
+ */
+public final class SyntheticCatalog {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final String[] WORDS = {
+            "aventuras", "historia", "segredo", "cidade", "noite", "jardim", "viagem", "memorias",
+            "oceano", "sombra", "tempo", "guerra", "amor", "montanha", "rio", "caminho",
+            "cronicas", "estrela", "destino", "floresta", "silencio", "reino", "ilha", "fogo",
+            "labirinto", "espelho", "vento", "castelo", "deserto", "lua", "sol", "inverno",
+            "adventures", "history", "secret", "city", "night", "garden", "journey", "memories",
+            "ocean", "shadow", "time", "war", "love", "mountain", "river", "road",
+            "chronicles", "star", "fate", "forest", "silence", "kingdom", "island", "fire",
+            "labyrinth", "mirror", "wind", "castle", "desert", "moon", "sun", "winter"
+    };
+
+    private static final String[] FIRST_NAMES = {
+            "Ana", "Bruno", "Carla", "Daniel", "Elisa", "Fabio", "Gabriela", "Hugo",
+            "Isabel", "Joao", "Karina", "Lucas", "Marina", "Nuno", "Olivia", "Paulo",
+            "Quitéria", "Rafael", "Sofia", "Tiago", "Ursula", "Vitor", "Wanda", "Xavier",
+            "Yara", "Zeca", "Alice", "Bento", "Clara", "Diego", "Eva", "Felipe"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Silva", "Souza", "Costa", "Santos", "Oliveira", "Pereira", "Rodrigues", "Almeida",
+            "Nascimento", "Lima", "Araújo", "Fernandes", "Carvalho", "Gomes", "Martins", "Rocha",
+            "Ribeiro", "Alves", "Monteiro", "Mendes", "Barros", "Freitas", "Barbosa", "Pinto",
+            "Moura", "Cavalcanti", "Dias", "Castro", "Campos", "Cardoso", "Teixeira", "Vieira"
+    };
+
+    private static final int AUTHORS = FIRST_NAMES.length * LAST_NAMES.length * 26;
+    private static final long ISBN_PREFIX = 978_000_000_000L;
+
+    private final long seed;
+
+    public SyntheticCatalog(long seed) {
+        this.seed = seed;
+    }
+
+    public String title(long index) {
+        SplittableRandom random = random(index);
+        int words = 2 + random.nextInt(3);
+
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (i == 0) {
+                title.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                title.append(' ').append(word);
+            }
+        }
+        return title.toString();
+    }
+
+    public String author(long index) {
+        SplittableRandom random = random(index ^ GOLDEN_GAMMA);
+
+        //distribuicao enviesada: poucos autores concentram muitos livros
+        double skew = random.nextDouble();
+        return authorName((int) (skew * skew * AUTHORS));
+    }
+
+    /**
+     * ISBN-13 valido (prefixo 978) derivado do indice, unico para indices ate 999.999.999.
+     */
+    public String isbn(long index) {
+        return isbn13(ISBN_PREFIX + index);
+    }
+
+    public String searchWord(SplittableRandom random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    public String authorName(SplittableRandom random) {
+        return authorName(random.nextInt(AUTHORS));
+    }
+
+    private static String authorName(int author) {
+        return FIRST_NAMES[author % FIRST_NAMES.length]
+                + " " + (char) ('A' + (author / (FIRST_NAMES.length * LAST_NAMES.length)) % 26) + ". "
+                + LAST_NAMES[(author / FIRST_NAMES.length) % LAST_NAMES.length];
+    }
+
+    private SplittableRandom random(long index) {
+        return new SplittableRandom(seed + index * GOLDEN_GAMMA);
+    }
+
+    static String isbn13(long twelveDigits) {
+        String digits = String.valueOf(twelveDigits);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            int digit = digits.charAt(i) - '0';
+            sum += (i % 2 == 0) ? digit : digit * 3;
+        }
+        return digits + ((10 - sum % 10) % 10);
+    }
+}
@@ -0,0 +1,68 @@
+package com.allan.libraryapi.model.entity;
+
+import com.allan.libraryapi.tenant.TenantContext;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Emprestimo devolvido, movido da tabela loan para o historico. Mantem o id original, entao
+ * um id de emprestimo continua valido depois do arquivamento.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "loan_history", indexes = {
+        @Index(name = "idx_loan_history_tenant_customer", columnList = "tenant_id, customer, archived_at, id")
+})
+public class ArchivedLoan {
+
+    @Id
+    private Long id;
+
+    @Builder.Default
+    @Column(name = "tenant_id", length = 64, nullable = false)
+    private String tenantId = TenantContext.DEFAULT_TENANT;
+
+    @Column(length = 100)
+    private String customer;
+
+    @JoinColumn(name = "id_book")
+    @ManyToOne
+    private Book book;
+
+    @Column
+    private LocalDate loanDate;
+
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt;
+
+    public static ArchivedLoan of(Loan loan, LocalDateTime archivedAt) {
+        return ArchivedLoan.builder()
+                .id(loan.getId())
+                .tenantId(loan.getTenantId())
+                .customer(loan.getCustomer())
+                .book(loan.getBook())
+                .loanDate(loan.getLoanDate())
+                .archivedAt(archivedAt)
+                .build();
+    }
+
+    public Loan toLoan() {
+        return Loan.builder()
+                .id(id)
+                .tenantId(tenantId)
+                .customer(customer)
+                .book(book)
+                .loanDate(loanDate)
+                .returned(true)
+                .build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.allan.libraryapi.model.entity;
+
+import com.allan.libraryapi.tenant.TenantContext;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+public class AuthorLoanStats {
+
+    //tenant + ":" + autor
+    @Id
+    @Column(length = 320)
+    private String id;
+
+    @Builder.Default
+    @Column(name = "tenant_id", length = 64, nullable = false)
+    private String tenantId = TenantContext.DEFAULT_TENANT;
+
+    @Column
+    private String author;
+
+    @Column
+    private long activeLoans;
+
+    public static String idOf(String tenantId, String author) {
+        return tenantId + ":" + author;
+    }
+}
@@ -1,18 +1,33 @@
 package com.allan.libraryapi.model.entity;
 
+import com.allan.libraryapi.tenant.TenantContext;
+import com.allan.libraryapi.util.SearchText;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import javax.persistence.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "idx_book_tenant_title", columnList = "tenant_id, title"),
+        @Index(name = "idx_book_tenant_author", columnList = "tenant_id, author"),
+        @Index(name = "idx_book_tenant_isbn", columnList = "tenant_id, isbn"),
+        @Index(name = "idx_book_tenant_title_search", columnList = "tenant_id, title_search"),
+        @Index(name = "idx_book_tenant_author_search", columnList = "tenant_id, author_search"),
+        @Index(name = "idx_book_updated_at", columnList = "updated_at, id"),
+        @Index(name = "idx_book_tenant_updated_at", columnList = "tenant_id, updated_at, id")
+})
 public class Book {
 
     @Id
@@ -20,6 +35,11 @@ public class Book {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    //filial dona do livro; todas as consultas das rotas /api filtram por ela (ver TenantContext)
+    @Builder.Default
+    @Column(name = "tenant_id", length = 64, nullable = false)
+    private String tenantId = TenantContext.DEFAULT_TENANT;
+
     @Column
     private String title;
 
@@ -29,4 +49,40 @@ public class Book {
     @Column
     private String isbn;
 
+    //colunas derivadas para busca por prefixo; sem getter/setter para nao entrarem no ModelMapper
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "title_search")
+    private String titleSearch;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "author_search")
+    private String authorSearch;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    //marca d'agua da sincronizacao incremental (ver BookSyncService)
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @PrePersist
+    void onCreate() {
+        this.createdAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        this.updatedAt = createdAt;
+        normalizeSearchFields();
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        this.updatedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        normalizeSearchFields();
+    }
+
+    private void normalizeSearchFields() {
+        this.titleSearch = SearchText.normalize(title);
+        this.authorSearch = SearchText.normalize(author);
+    }
+
 }
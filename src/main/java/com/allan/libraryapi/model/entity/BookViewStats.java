@@ -0,0 +1,35 @@
+package com.allan.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Visualizacoes acumuladas de um livro. So o BookViewCounter escreve aqui, com incrementos em
+ * lote (update ... set views = views + ?), entao a linha do livro nunca e travada por leitura.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "book_view_stats")
+public class BookViewStats {
+
+    @Id
+    @Column(name = "id_book")
+    private Long bookId;
+
+    @Column(nullable = false)
+    private long views;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+}
@@ -0,0 +1,41 @@
+package com.allan.libraryapi.model.entity;
+
+import com.allan.libraryapi.tenant.TenantContext;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+public class CustomerLoanStats {
+
+    //tenant + ":" + cliente
+    @Id
+    @Column(length = 170)
+    private String id;
+
+    @Builder.Default
+    @Column(name = "tenant_id", length = 64, nullable = false)
+    private String tenantId = TenantContext.DEFAULT_TENANT;
+
+    @Column(length = 100)
+    private String customer;
+
+    @Column
+    private long totalLoans;
+
+    @Column
+    private long activeLoans;
+
+    public static String idOf(String tenantId, String customer) {
+        return tenantId + ":" + customer;
+    }
+}
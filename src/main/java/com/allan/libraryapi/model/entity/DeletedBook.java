@@ -0,0 +1,39 @@
+package com.allan.libraryapi.model.entity;
+
+import com.allan.libraryapi.tenant.TenantContext;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Lapide de um livro removido, para que a sincronizacao incremental informe a remocao.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_deleted_book_deleted_at", columnList = "deleted_at, book_id"),
+        @Index(name = "idx_deleted_book_tenant_deleted_at", columnList = "tenant_id, deleted_at, book_id")
+})
+public class DeletedBook {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Builder.Default
+    @Column(name = "tenant_id", length = 64, nullable = false)
+    private String tenantId = TenantContext.DEFAULT_TENANT;
+
+    @Column
+    private String isbn;
+
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+}
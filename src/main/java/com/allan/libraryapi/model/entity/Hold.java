@@ -0,0 +1,51 @@
+package com.allan.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Reserva de um livro emprestado. As reservas WAITING de um livro formam uma fila pela ordem
+ * do id; na devolucao a primeira vira um emprestimo (FULFILLED).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "book_hold", indexes = {
+        @Index(name = "idx_hold_book_status", columnList = "id_book, status, id"),
+        @Index(name = "idx_hold_customer_status", columnList = "customer, status")
+})
+public class Hold {
+
+    public enum Status {
+        WAITING, FULFILLED, CANCELLED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 100)
+    private String customer;
+
+    @JoinColumn(name = "id_book")
+    @ManyToOne
+    private Book book;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Status status;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    //emprestimo gerado quando a reserva foi atendida
+    @Column(name = "id_loan")
+    private Long loanId;
+}
@@ -0,0 +1,44 @@
+package com.allan.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * Resposta gravada de uma requisicao com Idempotency-Key, quando o store configurado e o banco.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_idempotency_expires_at", columnList = "expires_at")
+})
+public class IdempotencyRecord {
+
+    @Id
+    //hash SHA-256 (hex) de metodo, rota, cliente e chave enviada
+    @Column(name = "idempotency_key", length = 64)
+    private String key;
+
+    @Column
+    private int status;
+
+    @Column(length = 100)
+    private String contentType;
+
+    @Column(length = 4000)
+    private byte[] body;
+
+    //epoch millis
+    @Column(name = "expires_at")
+    private long expiresAt;
+
+    //hash SHA-256 (hex) do corpo da requisicao original
+    @Column(length = 64)
+    private String requestHash;
+}
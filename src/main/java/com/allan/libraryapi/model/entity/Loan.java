@@ -1,21 +1,44 @@
 package com.allan.libraryapi.model.entity;
 
+import com.allan.libraryapi.tenant.TenantContext;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.persistence.*;
 import java.time.LocalDate;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_loan_book_returned", columnList = "id_book, returned"),
+        @Index(name = "idx_loan_tenant_customer", columnList = "tenant_id, customer"),
+        @Index(name = "idx_loan_returned", columnList = "returned, id")
+})
 public class Loan {
 
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+
+    @Builder.Default
+    @Column(name = "tenant_id", length = 64, nullable = false)
+    private String tenantId = TenantContext.DEFAULT_TENANT;
+
+    @Column(length = 100)
     private String customer;
+
+    @JoinColumn(name = "id_book")
+    @ManyToOne
     private Book book;
+
+    @Column
     private LocalDate loanDate;
+
+    @Column
     private Boolean returned;
 }
@@ -0,0 +1,49 @@
+package com.allan.libraryapi.model.entity;
+
+import com.allan.libraryapi.tenant.TenantContext;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_monthly_book_loans", columnList = "tenant_id, loan_month, loans")
+})
+public class MonthlyBookLoanStats {
+
+    //mes (yyyy-MM) + ":" + id do livro; o id do livro ja identifica o tenant
+    @Id
+    @Column(length = 40)
+    private String id;
+
+    @Builder.Default
+    @Column(name = "tenant_id", length = 64, nullable = false)
+    private String tenantId = TenantContext.DEFAULT_TENANT;
+
+    //month e palavra reservada no H2 2.x
+    @Column(name = "loan_month", length = 7)
+    private String month;
+
+    @Column
+    private Long bookId;
+
+    @Column
+    private String isbn;
+
+    @Column
+    private String title;
+
+    @Column
+    private long loans;
+
+    public static String idOf(String month, Long bookId) {
+        return month + ":" + bookId;
+    }
+}
@@ -0,0 +1,52 @@
+package com.allan.libraryapi.model.entity;
+
+import com.allan.libraryapi.tenant.TenantContext;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_outbox_published_at", columnList = "published_at, id"),
+        @Index(name = "idx_outbox_tenant_position", columnList = "tenant_id, position")
+})
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Builder.Default
+    @Column(name = "tenant_id", length = 64, nullable = false)
+    private String tenantId = TenantContext.DEFAULT_TENANT;
+
+    @Column(length = 20)
+    private String aggregateType;
+
+    @Column
+    private Long aggregateId;
+
+    @Column(length = 20)
+    private String type;
+
+    @Column(length = 2000)
+    private String payload;
+
+    @Column
+    private LocalDateTime createdAt;
+
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    //ordem de commit, sem buracos; dada logo antes do commit (ver ChangeEventServiceImpl)
+    @Column(unique = true)
+    private Long position;
+}
@@ -0,0 +1,30 @@
+package com.allan.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Ultima posicao dada a um evento do outbox. Linha unica, travada do momento em que uma
+ * transacao numera os seus eventos ate o commit dela.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+public class OutboxSequence {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column
+    private long lastPosition;
+}
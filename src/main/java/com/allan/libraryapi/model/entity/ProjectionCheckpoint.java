@@ -0,0 +1,28 @@
+package com.allan.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Posicao do ultimo evento do outbox aplicado por uma projecao.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+public class ProjectionCheckpoint {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column
+    private Long lastPosition;
+}
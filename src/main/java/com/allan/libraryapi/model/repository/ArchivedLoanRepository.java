@@ -0,0 +1,20 @@
+package com.allan.libraryapi.model.repository;
+
+import com.allan.libraryapi.model.entity.ArchivedLoan;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Set;
+
+public interface ArchivedLoanRepository extends JpaRepository<ArchivedLoan, Long> {
+
+    Page<ArchivedLoan> findByTenantIdAndCustomerOrderByArchivedAtDescIdDesc(String tenantId, String customer,
+                                                                           Pageable pageable);
+
+    @Query("select a.id from ArchivedLoan a where a.id in :ids")
+    Set<Long> findArchivedIds(@Param("ids") Collection<Long> ids);
+}
@@ -1,9 +1,42 @@
 package com.allan.libraryapi.model.repository;
 
 import com.allan.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+import javax.persistence.LockModeType;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
-    boolean existsByIsbn(String isbn);
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
+
+    boolean existsByTenantIdAndIsbn(String tenantId, String isbn);
+
+    Optional<Book> findByTenantIdAndIsbn(String tenantId, String isbn);
+
+    //trava a linha do livro; serializa as operacoes da fila de reservas so deste livro
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(" select b from Book b where b.id = :id ")
+    Optional<Book> findByIdForUpdate(@Param("id") Long id);
+
+    Slice<Book> findByIdGreaterThan(Long id, Pageable pageable);
+
+    @Query(" select b from Book b where b.updatedAt <= :visibleBefore " +
+            " and ( b.updatedAt > :since or ( b.updatedAt = :since and b.id > :afterId ) ) " +
+            " order by b.updatedAt, b.id ")
+    List<Book> findChangedSince(@Param("since") Instant since, @Param("afterId") Long afterId,
+                                @Param("visibleBefore") Instant visibleBefore, Pageable pageable);
+
+    @Query(" select b from Book b where b.tenantId = :tenantId and b.updatedAt <= :visibleBefore " +
+            " and ( b.updatedAt > :since or ( b.updatedAt = :since and b.id > :afterId ) ) " +
+            " order by b.updatedAt, b.id ")
+    List<Book> findTenantChangedSince(@Param("tenantId") String tenantId, @Param("since") Instant since,
+                                      @Param("afterId") Long afterId, @Param("visibleBefore") Instant visibleBefore,
+                                      Pageable pageable);
 }
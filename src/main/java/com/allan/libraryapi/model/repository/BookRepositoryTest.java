@@ -1,6 +1,7 @@
 package com.allan.libraryapi.model.repository;
 
 import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.tenant.TenantContext;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -36,7 +37,7 @@ public class BookRepositoryTest {
         String isbn = "123";
         Book book = createNewBook(isbn);
         entityManager.persist(book);
-        boolean exists = repository.existsByIsbn(isbn);
+        boolean exists = repository.existsByTenantIdAndIsbn(TenantContext.DEFAULT_TENANT, isbn);
 
         assertThat(exists).isTrue();
     }
@@ -45,7 +46,7 @@ public class BookRepositoryTest {
     @DisplayName("Deve retornar falso quando existir um livro na base com o isbn informado.")
     public void returnTrueWhenIsbnDoesntExists() {
         String isbn = "123";
-        boolean exists = repository.existsByIsbn(isbn);
+        boolean exists = repository.existsByTenantIdAndIsbn(TenantContext.DEFAULT_TENANT, isbn);
 
         assertThat(exists).isFalse();
     }
@@ -0,0 +1,7 @@
+package com.allan.libraryapi.model.repository;
+
+import com.allan.libraryapi.model.entity.CustomerLoanStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CustomerLoanStatsRepository extends JpaRepository<CustomerLoanStats, String> {
+}
@@ -0,0 +1,31 @@
+package com.allan.libraryapi.model.repository;
+
+import com.allan.libraryapi.model.entity.DeletedBook;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface DeletedBookRepository extends JpaRepository<DeletedBook, Long> {
+
+    @Query(" select d from DeletedBook d where d.deletedAt <= :visibleBefore " +
+            " and ( d.deletedAt > :since or ( d.deletedAt = :since and d.bookId > :afterId ) ) " +
+            " order by d.deletedAt, d.bookId ")
+    List<DeletedBook> findDeletedSince(@Param("since") Instant since, @Param("afterId") Long afterId,
+                                       @Param("visibleBefore") Instant visibleBefore, Pageable pageable);
+
+    @Query(" select d from DeletedBook d where d.tenantId = :tenantId and d.deletedAt <= :visibleBefore " +
+            " and ( d.deletedAt > :since or ( d.deletedAt = :since and d.bookId > :afterId ) ) " +
+            " order by d.deletedAt, d.bookId ")
+    List<DeletedBook> findTenantDeletedSince(@Param("tenantId") String tenantId, @Param("since") Instant since,
+                                             @Param("afterId") Long afterId, @Param("visibleBefore") Instant visibleBefore,
+                                             Pageable pageable);
+
+    @Modifying
+    @Query("delete from DeletedBook d where d.deletedAt < :cutoff")
+    int deleteDeletedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,21 @@
+package com.allan.libraryapi.model.repository;
+
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.Hold;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+
+    boolean existsByBookAndCustomerAndStatus(Book book, String customer, Hold.Status status);
+
+    Optional<Hold> findFirstByBookAndStatusOrderByIdAsc(Book book, Hold.Status status);
+
+    List<Hold> findByBookAndStatusOrderByIdAsc(Book book, Hold.Status status);
+
+    List<Hold> findByBookTenantIdAndCustomerAndStatusOrderByIdAsc(String tenantId, String customer, Hold.Status status);
+
+    long countByBookAndStatusAndIdLessThan(Book book, Hold.Status status, Long id);
+}
@@ -0,0 +1,16 @@
+package com.allan.libraryapi.model.repository;
+
+import com.allan.libraryapi.model.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    @Modifying
+    @Transactional
+    @Query(" delete from IdempotencyRecord r where r.expiresAt <= :now ")
+    int deleteExpired(@Param("now") long now);
+}
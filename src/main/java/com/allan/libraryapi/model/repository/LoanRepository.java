@@ -0,0 +1,34 @@
+package com.allan.libraryapi.model.repository;
+
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.Loan;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
+public interface LoanRepository extends JpaRepository<Loan, Long> {
+
+    @Query(value = " select case when ( count(l.id) > 0 ) then true else false end " +
+            " from Loan l where l.book = :book and ( l.returned is null or l.returned = false ) ")
+    boolean existsByBookAndNotReturned(@Param("book") Book book);
+
+    @Query(" select l from Loan l where l.tenantId = :tenantId and l.customer = :customer " +
+            " and ( l.returned is null or l.returned = false ) order by l.id ")
+    List<Loan> findOpenByCustomer(@Param("tenantId") String tenantId, @Param("customer") String customer);
+
+    //a devolucao trava a linha para que duas devolucoes concorrentes nao arquivem o mesmo emprestimo
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from Loan l where l.id = :id")
+    Optional<Loan> findByIdForUpdate(@Param("id") Long id);
+
+    //lote de devolvidos para o LoanArchiver; o lock impede que a linha mude entre a copia e o delete
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from Loan l where l.returned = true order by l.id")
+    List<Loan> findReturnedForUpdate(Pageable pageable);
+}
@@ -0,0 +1,12 @@
+package com.allan.libraryapi.model.repository;
+
+import com.allan.libraryapi.model.entity.MonthlyBookLoanStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface MonthlyBookLoanStatsRepository extends JpaRepository<MonthlyBookLoanStats, String> {
+
+    List<MonthlyBookLoanStats> findByTenantIdAndMonthOrderByLoansDesc(String tenantId, String month, Pageable pageable);
+}
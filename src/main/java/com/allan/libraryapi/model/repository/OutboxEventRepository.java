@@ -0,0 +1,28 @@
+package com.allan.libraryapi.model.repository;
+
+import com.allan.libraryapi.model.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByPublishedAtIsNullOrderByIdAsc(Pageable pageable);
+
+    List<OutboxEvent> findByPositionGreaterThanOrderByPositionAsc(Long position, Pageable pageable);
+
+    List<OutboxEvent> findByTenantIdAndPositionGreaterThanOrderByPositionAsc(String tenantId, Long position,
+                                                                            Pageable pageable);
+
+    @Query("select min(e.position) from OutboxEvent e")
+    Long findMinPosition();
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.publishedAt < :cutoff and e.position <= :maxPosition")
+    int deletePublishedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("maxPosition") Long maxPosition);
+}
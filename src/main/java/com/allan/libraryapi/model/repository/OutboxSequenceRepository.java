@@ -0,0 +1,17 @@
+package com.allan.libraryapi.model.repository;
+
+import com.allan.libraryapi.model.entity.OutboxSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+public interface OutboxSequenceRepository extends JpaRepository<OutboxSequence, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from OutboxSequence s where s.id = :id")
+    Optional<OutboxSequence> findByIdForUpdate(@Param("id") Integer id);
+}
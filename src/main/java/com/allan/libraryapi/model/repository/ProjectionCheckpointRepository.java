@@ -0,0 +1,22 @@
+package com.allan.libraryapi.model.repository;
+
+import com.allan.libraryapi.model.entity.ProjectionCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+public interface ProjectionCheckpointRepository extends JpaRepository<ProjectionCheckpoint, String> {
+
+    //trava o checkpoint ate o commit: so uma instancia projeta de cada vez
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from ProjectionCheckpoint c where c.name = :name")
+    Optional<ProjectionCheckpoint> findByNameForUpdate(@Param("name") String name);
+
+    //posicao da projecao mais atrasada; null sem projecoes
+    @Query("select min(c.lastPosition) from ProjectionCheckpoint c")
+    Long findMinLastPosition();
+}
@@ -1,39 +1,78 @@
 package com.allan.libraryapi.resource;
 
+import com.allan.libraryapi.api.pageable.PageablePolicy;
+import com.allan.libraryapi.api.validation.BookDTOValidator;
 import com.allan.libraryapi.dto.BookDTO;
 import com.allan.libraryapi.api.exception.ApiErrors;
 import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.exception.NotFoundException;
+import com.allan.libraryapi.health.SaturationEndpoint;
 import com.allan.libraryapi.model.entity.Book;
 import com.allan.libraryapi.service.BookService;
+import com.allan.libraryapi.service.catalog.BookView;
+import com.allan.libraryapi.service.catalog.CatalogStore;
+import com.allan.libraryapi.service.popularity.BookPopularityTracker;
+import com.allan.libraryapi.service.views.BookViewCounter;
+import com.allan.libraryapi.tracing.Span;
+import com.allan.libraryapi.tracing.Tracing;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Metrics;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
 
+    static final String NDJSON = "application/x-ndjson";
+    static final int STREAM_FLUSH_INTERVAL = 100;
+    static final String MATCH_PREFIX = "prefix";
+
     private BookService bookService;
     private ModelMapper modelMapper;
-
-    public BookController(BookService bookService, ModelMapper modelMapper) {
+    private PageablePolicy pageablePolicy;
+    private ObjectWriter streamWriter;
+    private BookPopularityTracker popularityTracker;
+    private CatalogStore catalogStore;
+    private BookViewCounter viewCounter;
+
+    public BookController(BookService bookService, ModelMapper modelMapper, PageablePolicy pageablePolicy,
+                          ObjectMapper objectMapper, BookPopularityTracker popularityTracker,
+                          CatalogStore catalogStore, BookViewCounter viewCounter) {
         this.bookService = bookService;
         this.modelMapper = modelMapper;
+        this.pageablePolicy = pageablePolicy;
+        this.popularityTracker = popularityTracker;
+        this.catalogStore = catalogStore;
+        this.viewCounter = viewCounter;
+        this.streamWriter = objectMapper
+                .writerFor(BookDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public BookDTO create(@RequestBody @Valid BookDTO dto) {
+    public BookDTO create(@RequestBody BookDTO dto) {
+        BookDTOValidator.validate(dto);
+
         Book book = modelMapper.map(dto, Book.class);
         book =  bookService.save(book);
 
@@ -42,16 +81,25 @@ public class BookController {
 
     @GetMapping("{id}")
     public BookDTO get(@PathVariable Long id) {
-        return bookService
+        //o catalogo so recebe o livro depois do commit: um livro recem-criado ainda pode faltar nele
+        Optional<BookDTO> cached = catalogStore.isReady()
+                ? catalogStore.getById(id).map(BookController::toDTO)
+                : Optional.empty();
+        catalogStoreLookup(cached.isPresent());
+        BookDTO dto = cached.orElseGet(() -> bookService
                 .getById(id)
                 .map(book -> modelMapper.map(book, BookDTO.class))
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+                .orElseThrow(() -> NotFoundException.INSTANCE));
+
+        popularityTracker.record(BookPopularityTracker.Metric.VIEWS, id);
+        viewCounter.record(id);
+        return dto;
     }
 
     @DeleteMapping("{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void delete(@PathVariable Long id) {
-        Book book =  bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        Book book =  bookService.getById(id).orElseThrow(() -> NotFoundException.INSTANCE);
         bookService.delete(book);
     }
 
@@ -64,19 +112,105 @@ public class BookController {
             book = bookService.update(book);
             return modelMapper.map(book, BookDTO.class);
 
-        }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        }).orElseThrow(() -> NotFoundException.INSTANCE);
     }
 
     @GetMapping
-    public Page<BookDTO> find(BookDTO dto, Pageable pageRequest) {
-        Book filter = modelMapper.map(dto, Book.class);
-        Page<Book> result = bookService.find(filter, pageRequest);
-        List<BookDTO> list = result.getContent().stream()
-                .map(entity -> modelMapper.map(entity, BookDTO.class))
-                .collect(Collectors.toList());
-
-        return new PageImpl<BookDTO>(list, pageRequest, result.getTotalElements());
+    public Page<BookDTO> find(BookDTO dto,
+                              @RequestParam(value = "match", required = false) String match,
+                              Pageable pageRequest) {
+        try (Span span = Tracing.startSpan("BookController.find")) {
+            pageRequest = pageablePolicy.check(pageRequest);
+            if (!MATCH_PREFIX.equalsIgnoreCase(match) && catalogStore.canServe(pageRequest)) {
+                catalogStoreLookup(true);
+                return catalogStore
+                        .find(dto.getId(), dto.getTitle(), dto.getAuthor(), dto.getIsbn(), pageRequest)
+                        .map(BookController::toDTO);
+            }
+
+            catalogStoreLookup(false);
+            Page<Book> result = search(dto, match, pageRequest);
+
+            List<BookDTO> list;
+            try (Span mapping = Tracing.startSpan("modelMapper.toDTO")) {
+                list = result.getContent().stream()
+                        .map(entity -> modelMapper.map(entity, BookDTO.class))
+                        .collect(Collectors.toList());
+            }
+
+            return new PageImpl<BookDTO>(list, pageRequest, result.getTotalElements());
+        }
+    }
+
+    /**
+     * Mesmo filtro do find, mas escreve um livro por linha (NDJSON) a medida que
+     * cada entidade e mapeada, liberando o buffer a cada STREAM_FLUSH_INTERVAL itens.
+     * O total de registros vai no header X-Total-Count.
+     */
+    @GetMapping(value = "stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> stream(BookDTO dto,
+                                                        @RequestParam(value = "match", required = false) String match,
+                                                        Pageable pageRequest) {
+        pageRequest = pageablePolicy.check(pageRequest);
+        Page<Book> result = search(dto, match, pageRequest);
+
+        StreamingResponseBody body = out -> {
+            try (Span span = Tracing.startSpan("BookController.stream.write")) {
+                writeStream(out, result);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header("X-Total-Count", String.valueOf(result.getTotalElements()))
+                .body(body);
+    }
+
+    private void writeStream(OutputStream out, Page<Book> result) throws IOException {
+        JsonGenerator generator = streamWriter.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+
+        int written = 0;
+        for (Book entity : result.getContent()) {
+            streamWriter.writeValue(generator, modelMapper.map(entity, BookDTO.class));
+            generator.writeRaw('\n');
+
+            if (++written % STREAM_FLUSH_INTERVAL == 0) {
+                generator.flush();
+            }
+        }
+        generator.flush();
     }
 
+    /**
+     * match=prefix busca titulo e autor que comecem com o valor informado (sem diferenciar
+     * maiusculas e acentos); sem o parametro mantem a busca por trecho contido.
+     */
+    private Page<Book> search(BookDTO dto, String match, Pageable pageRequest) {
+        Book filter;
+        try (Span mapping = Tracing.startSpan("modelMapper.toEntity")) {
+            filter = modelMapper.map(dto, Book.class);
+        }
+
+        if (MATCH_PREFIX.equalsIgnoreCase(match)) {
+            return bookService.findByPrefix(filter, pageRequest);
+        }
+
+        return bookService.find(filter, pageRequest);
+    }
 
+    //acerto quando a leitura foi atendida pelo catalogo em memoria, falta quando foi ao banco
+    private static void catalogStoreLookup(boolean hit) {
+        Metrics.counter(SaturationEndpoint.CACHE_METRIC, "cache", "catalogStore", "result", hit ? "hit" : "miss").increment();
+    }
+
+    //a partir do catalogo em memoria: sem entidade nem ModelMapper
+    private static BookDTO toDTO(BookView book) {
+        return BookDTO.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .build();
+    }
 }
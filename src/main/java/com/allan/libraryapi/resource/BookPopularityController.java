@@ -0,0 +1,28 @@
+package com.allan.libraryapi.resource;
+
+import com.allan.libraryapi.dto.PopularBookDTO;
+import com.allan.libraryapi.service.popularity.BookPopularityTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/books/popular")
+@RequiredArgsConstructor
+public class BookPopularityController {
+
+    static final int MAX_LIMIT = 100;
+
+    private final BookPopularityTracker popularityTracker;
+
+    @GetMapping
+    public List<PopularBookDTO> ranking(@RequestParam(value = "by", defaultValue = "LOANS") BookPopularityTracker.Metric metric,
+                                        @RequestParam(value = "window", defaultValue = "DAY") BookPopularityTracker.Window window,
+                                        @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return popularityTracker.ranking(metric, window, Math.max(0, Math.min(limit, MAX_LIMIT)));
+    }
+}
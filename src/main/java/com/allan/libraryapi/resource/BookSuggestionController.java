@@ -0,0 +1,27 @@
+package com.allan.libraryapi.resource;
+
+import com.allan.libraryapi.dto.SuggestionDTO;
+import com.allan.libraryapi.service.suggestion.BookSuggestionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/books/suggestions")
+@RequiredArgsConstructor
+public class BookSuggestionController {
+
+    static final int MAX_LIMIT = 50;
+
+    private final BookSuggestionService suggestionService;
+
+    @GetMapping
+    public List<SuggestionDTO> suggest(@RequestParam("q") String prefix,
+                                       @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return suggestionService.suggest(prefix, Math.max(0, Math.min(limit, MAX_LIMIT)));
+    }
+}
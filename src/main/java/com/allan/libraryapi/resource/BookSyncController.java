@@ -0,0 +1,54 @@
+package com.allan.libraryapi.resource;
+
+import com.allan.libraryapi.dto.BookDTO;
+import com.allan.libraryapi.dto.BookSyncDTO;
+import com.allan.libraryapi.model.entity.DeletedBook;
+import com.allan.libraryapi.service.BookChanges;
+import com.allan.libraryapi.service.BookSyncService;
+import com.allan.libraryapi.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
+import org.modelmapper.ModelMapper;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/books/sync")
+@RequiredArgsConstructor
+public class BookSyncController {
+
+    static final int MAX_LIMIT = 1000;
+
+    private final BookSyncService bookSyncService;
+    private final ModelMapper modelMapper;
+
+    /**
+     * Livros do tenant da requisicao alterados e removidos depois da marca d'agua informada. O cliente repete a chamada
+     * com a watermark devolvida enquanto hasMore for verdadeiro.
+     *
+     * Garantia: toda alteracao confirmada e entregue pelo menos uma vez, desde que a transacao que a fez leve menos que
+     * library.sync.reread-window-ms para confirmar. Cada resposta repete o que mudou nessa janela antes da watermark
+     * recebida, entao o cliente aplica changed (o estado atual, por id) e deleted como upsert e remocao idempotentes.
+     * Uma watermark mais antiga que a retencao das lapides responde 400 e exige uma sincronizacao completa.
+     */
+    @GetMapping
+    public BookSyncDTO sync(@RequestParam(value = "since", required = false) String since,
+                            @RequestParam(value = "limit", defaultValue = "500") int limit) {
+        BookChanges changes = bookSyncService.findChangesSince(TenantContext.current(), since,
+                Math.max(1, Math.min(limit, MAX_LIMIT)));
+
+        return BookSyncDTO.builder()
+                .changed(changes.getChanged().stream()
+                        .map(book -> modelMapper.map(book, BookDTO.class))
+                        .collect(Collectors.toList()))
+                .deleted(changes.getDeleted().stream()
+                        .map(DeletedBook::getBookId)
+                        .collect(Collectors.toList()))
+                .watermark(changes.getWatermark())
+                .hasMore(changes.isHasMore())
+                .build();
+    }
+}
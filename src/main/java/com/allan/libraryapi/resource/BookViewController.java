@@ -0,0 +1,27 @@
+package com.allan.libraryapi.resource;
+
+import com.allan.libraryapi.dto.BookViewsDTO;
+import com.allan.libraryapi.exception.NotFoundException;
+import com.allan.libraryapi.service.BookService;
+import com.allan.libraryapi.service.views.BookViewCounter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/books/{id}/views")
+@RequiredArgsConstructor
+public class BookViewController {
+
+    private final BookService bookService;
+    private final BookViewCounter viewCounter;
+
+    //o livro precisa existir no tenant da requisicao
+    @GetMapping
+    public BookViewsDTO views(@PathVariable Long id) {
+        bookService.getById(id).orElseThrow(() -> NotFoundException.INSTANCE);
+        return new BookViewsDTO(id, viewCounter.getViews(id));
+    }
+}
@@ -0,0 +1,55 @@
+package com.allan.libraryapi.resource;
+
+import com.allan.libraryapi.dto.ChangeEventDTO;
+import com.allan.libraryapi.model.entity.OutboxEvent;
+import com.allan.libraryapi.service.ChangeEventService;
+import com.allan.libraryapi.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+public class ChangeController {
+
+    static final int MAX_LIMIT = 1000;
+
+    private final ChangeEventService changeEventService;
+
+    /**
+     * Eventos do tenant da requisicao com position maior que since, em ordem de commit. O cliente
+     * guarda a ultima position recebida e a envia como since na proxima chamada; as posicoes de
+     * um tenant nao sao consecutivas.
+     *
+     * Eventos antigos sao apagados do outbox (library.outbox.retention-hours). Se since ficou
+     * antes do evento mais antigo guardado, a resposta e 400 "Position expired, a full resync is
+     * required": o cliente recarrega livros e emprestimos pelas outras APIs e recomeca de since=0.
+     */
+    @GetMapping
+    public List<ChangeEventDTO> find(@RequestParam(value = "since", defaultValue = "0") Long since,
+                                     @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return changeEventService.findSince(TenantContext.current(), since, Math.max(1, Math.min(limit, MAX_LIMIT)))
+                .stream()
+                .map(ChangeController::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    //mapeado a mao: para o ModelMapper "type" e ambiguo com "aggregateType"
+    private static ChangeEventDTO toDTO(OutboxEvent event) {
+        return ChangeEventDTO.builder()
+                .id(event.getId())
+                .position(event.getPosition())
+                .aggregateType(event.getAggregateType())
+                .aggregateId(event.getAggregateId())
+                .type(event.getType())
+                .payload(event.getPayload())
+                .createdAt(event.getCreatedAt())
+                .build();
+    }
+}
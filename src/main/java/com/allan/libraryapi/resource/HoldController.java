@@ -0,0 +1,81 @@
+package com.allan.libraryapi.resource;
+
+import com.allan.libraryapi.dto.HoldDTO;
+import com.allan.libraryapi.exception.NotFoundException;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.Hold;
+import com.allan.libraryapi.service.BookService;
+import com.allan.libraryapi.service.HoldService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/holds")
+@RequiredArgsConstructor
+public class HoldController {
+
+    private final HoldService holdService;
+    private final BookService bookService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public HoldDTO place(@RequestBody HoldDTO dto) {
+        Book book = findBook(dto.getIsbn());
+
+        Hold hold = holdService.place(Hold.builder()
+                .book(book)
+                .customer(dto.getCustomer())
+                .build());
+
+        return toDTO(hold, holdService.getPosition(hold));
+    }
+
+    @DeleteMapping("{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void cancel(@PathVariable Long id) {
+        Hold hold = holdService.getById(id).orElseThrow(() -> NotFoundException.INSTANCE);
+        holdService.cancel(hold);
+    }
+
+    @GetMapping
+    public List<HoldDTO> find(@RequestParam(value = "isbn", required = false) String isbn,
+                              @RequestParam(value = "customer", required = false) String customer) {
+        List<HoldDTO> result = new ArrayList<>();
+
+        if(isbn != null) {
+            long position = 1;
+            for(Hold hold : holdService.getQueue(findBook(isbn))) {
+                result.add(toDTO(hold, position++));
+            }
+        } else if(customer != null) {
+            for(Hold hold : holdService.getWaitingByCustomer(customer)) {
+                result.add(toDTO(hold, holdService.getPosition(hold)));
+            }
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "isbn or customer is required");
+        }
+
+        return result;
+    }
+
+    private Book findBook(String isbn) {
+        return bookService.getBookByIsbn(isbn)
+                .orElseThrow( () ->
+                        new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for ISBN"));
+    }
+
+    private HoldDTO toDTO(Hold hold, Long position) {
+        return HoldDTO.builder()
+                .id(hold.getId())
+                .isbn(hold.getBook().getIsbn())
+                .customer(hold.getCustomer())
+                .status(hold.getStatus().name())
+                .position(hold.getStatus() == Hold.Status.WAITING ? position : null)
+                .build();
+    }
+}
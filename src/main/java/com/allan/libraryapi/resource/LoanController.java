@@ -1,17 +1,26 @@
 package com.allan.libraryapi.resource;
 
+import com.allan.libraryapi.api.pageable.PageablePolicy;
+import com.allan.libraryapi.api.validation.LoanDTOValidator;
 import com.allan.libraryapi.dto.LoanDTO;
+import com.allan.libraryapi.dto.ReturnedLoanDTO;
+import com.allan.libraryapi.exception.NotFoundException;
 import com.allan.libraryapi.model.entity.Book;
 import com.allan.libraryapi.model.entity.Loan;
 import com.allan.libraryapi.service.BookService;
 import com.allan.libraryapi.service.LoanService;
+import com.allan.libraryapi.service.popularity.BookPopularityTracker;
 import lombok.RequiredArgsConstructor;
 import org.apache.tomcat.jni.Local;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/loans")
@@ -20,10 +29,13 @@ public class LoanController {
 
     private final LoanService loanService;
     private final BookService bookService;
+    private final BookPopularityTracker popularityTracker;
+    private final PageablePolicy pageablePolicy;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Long create(@RequestBody LoanDTO dto) {
+        LoanDTOValidator.validate(dto);
 
         Book book = bookService.getBookByIsbn(dto.getIsbn())
                 .orElseThrow( () ->
@@ -36,6 +48,40 @@ public class LoanController {
                 .build();
 
         entity = loanService.save(entity);
+        popularityTracker.record(BookPopularityTracker.Metric.LOANS, book.getId());
         return entity.getId();
     }
+
+    @PatchMapping("{id}")
+    public void returnBook(@PathVariable Long id, @RequestBody ReturnedLoanDTO dto) {
+        LoanDTOValidator.validate(dto);
+
+        Loan loan = loanService.getById(id).orElseThrow(() -> NotFoundException.INSTANCE);
+        loan.setReturned(dto.getReturned());
+
+        loanService.update(loan);
+    }
+
+    //so emprestimos em aberto: consulta a tabela loan, que nao cresce com o historico
+    @GetMapping
+    public List<LoanDTO> findOpen(@RequestParam("customer") String customer) {
+        return loanService.getOpenByCustomer(customer).stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("history")
+    public Page<LoanDTO> findHistory(@RequestParam("customer") String customer, Pageable pageRequest) {
+        return loanService.getHistoryByCustomer(customer, pageablePolicy.check(pageRequest)).map(this::toDTO);
+    }
+
+    private LoanDTO toDTO(Loan loan) {
+        return LoanDTO.builder()
+                .id(loan.getId())
+                .isbn(loan.getBook().getIsbn())
+                .customer(loan.getCustomer())
+                .loanDate(loan.getLoanDate())
+                .returned(loan.getReturned())
+                .build();
+    }
 }
@@ -0,0 +1,68 @@
+package com.allan.libraryapi.resource;
+
+import com.allan.libraryapi.dto.AuthorLoanStatsDTO;
+import com.allan.libraryapi.dto.BookLoanStatsDTO;
+import com.allan.libraryapi.dto.CustomerLoanStatsDTO;
+import com.allan.libraryapi.model.entity.AuthorLoanStats;
+import com.allan.libraryapi.model.entity.CustomerLoanStats;
+import com.allan.libraryapi.model.entity.MonthlyBookLoanStats;
+import com.allan.libraryapi.service.LoanStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/loans/stats")
+@RequiredArgsConstructor
+public class LoanStatsController {
+
+    static final int MAX_LIMIT = 100;
+
+    private final LoanStatsService loanStatsService;
+
+    @GetMapping("customers/{customer}")
+    public CustomerLoanStatsDTO customer(@PathVariable String customer) {
+        CustomerLoanStats stats = loanStatsService.getCustomerStats(customer);
+        return CustomerLoanStatsDTO.builder()
+                .customer(stats.getCustomer())
+                .totalLoans(stats.getTotalLoans())
+                .activeLoans(stats.getActiveLoans())
+                .build();
+    }
+
+    @GetMapping("authors/{author}")
+    public AuthorLoanStatsDTO author(@PathVariable String author) {
+        AuthorLoanStats stats = loanStatsService.getAuthorStats(author);
+        return AuthorLoanStatsDTO.builder()
+                .author(stats.getAuthor())
+                .activeLoans(stats.getActiveLoans())
+                .build();
+    }
+
+    @GetMapping("books/top")
+    public List<BookLoanStatsDTO> mostBorrowedBooks(@RequestParam(value = "month", required = false) String month,
+                                                    @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        String period = month == null ? YearMonth.now().toString() : YearMonth.parse(month).toString();
+        return loanStatsService.getMostBorrowedBooks(period, Math.max(1, Math.min(limit, MAX_LIMIT)))
+                .stream()
+                .map(LoanStatsController::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    private static BookLoanStatsDTO toDTO(MonthlyBookLoanStats stats) {
+        return BookLoanStatsDTO.builder()
+                .month(stats.getMonth())
+                .bookId(stats.getBookId())
+                .isbn(stats.getIsbn())
+                .title(stats.getTitle())
+                .loans(stats.getLoans())
+                .build();
+    }
+}
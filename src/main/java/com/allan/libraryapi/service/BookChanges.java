@@ -0,0 +1,21 @@
+package com.allan.libraryapi.service;
+
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.DeletedBook;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class BookChanges {
+
+    private final List<Book> changed;
+
+    private final List<DeletedBook> deleted;
+
+    private final String watermark;
+
+    private final boolean hasMore;
+}
@@ -18,5 +18,7 @@ public interface BookService {
 
     Page<Book> find(Book filter, Pageable pageRequest);
 
+    Page<Book> findByPrefix(Book filter, Pageable pageRequest);
+
     Optional<Book> getBookByIsbn(String isbn);
 }
@@ -0,0 +1,22 @@
+package com.allan.libraryapi.service;
+
+import java.time.Instant;
+
+public interface BookSyncService {
+
+    //todos os tenants; para os indices em memoria, que particionam por tenant
+    BookChanges findChangesSince(String watermark, int limit);
+
+    BookChanges findChangesSince(String tenantId, String watermark, int limit);
+
+    /**
+     * Marca d'agua {@code windowMillis} antes da informada, para reler as mudancas de transacoes
+     * que fizeram commit depois que a marca ja tinha passado por elas.
+     */
+    String rewind(String watermark, long windowMillis);
+
+    /**
+     * Marca d'agua a partir da qual entram as mudancas feitas desde o instante informado.
+     */
+    String watermarkAt(Instant instant);
+}
@@ -0,0 +1,13 @@
+package com.allan.libraryapi.service;
+
+import com.allan.libraryapi.model.entity.OutboxEvent;
+
+import java.util.List;
+
+public interface ChangeEventService {
+
+    //todos os tenants; para os consumidores internos (projecoes)
+    List<OutboxEvent> findSince(Long since, int limit);
+
+    List<OutboxEvent> findSince(String tenantId, Long since, int limit);
+}
@@ -0,0 +1,21 @@
+package com.allan.libraryapi.service;
+
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.Hold;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface HoldService {
+    Hold place(Hold hold);
+
+    Hold cancel(Hold hold);
+
+    Optional<Hold> getById(Long id);
+
+    List<Hold> getQueue(Book book);
+
+    List<Hold> getWaitingByCustomer(String customer);
+
+    long getPosition(Hold hold);
+}
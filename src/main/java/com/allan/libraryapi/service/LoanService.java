@@ -1,7 +1,20 @@
 package com.allan.libraryapi.service;
 
 import com.allan.libraryapi.model.entity.Loan;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface LoanService {
     Loan save(Loan loan);
+
+    Optional<Loan> getById(Long id);
+
+    Loan update(Loan loan);
+
+    List<Loan> getOpenByCustomer(String customer);
+
+    Page<Loan> getHistoryByCustomer(String customer, Pageable pageable);
 }
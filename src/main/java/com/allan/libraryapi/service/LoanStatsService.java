@@ -0,0 +1,16 @@
+package com.allan.libraryapi.service;
+
+import com.allan.libraryapi.model.entity.AuthorLoanStats;
+import com.allan.libraryapi.model.entity.CustomerLoanStats;
+import com.allan.libraryapi.model.entity.MonthlyBookLoanStats;
+
+import java.util.List;
+
+public interface LoanStatsService {
+
+    CustomerLoanStats getCustomerStats(String customer);
+
+    AuthorLoanStats getAuthorStats(String author);
+
+    List<MonthlyBookLoanStats> getMostBorrowedBooks(String month, int limit);
+}
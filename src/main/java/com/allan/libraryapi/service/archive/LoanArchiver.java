@@ -0,0 +1,67 @@
+package com.allan.libraryapi.service.archive;
+
+import com.allan.libraryapi.model.entity.ArchivedLoan;
+import com.allan.libraryapi.model.entity.Loan;
+import com.allan.libraryapi.model.repository.ArchivedLoanRepository;
+import com.allan.libraryapi.model.repository.LoanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Move para loan_history os emprestimos devolvidos que ainda estao na tabela loan.
+ *
+ * O LoanService ja arquiva na devolucao; este job cobre o historico anterior e linhas
+ * devolvidas por fora do servico. Cada execucao move um lote numa transacao curta.
+ */
+@Slf4j
+@Component
+public class LoanArchiver {
+
+    private final LoanRepository loanRepository;
+    private final ArchivedLoanRepository archivedLoanRepository;
+    private final int batchSize;
+
+    public LoanArchiver(LoanRepository loanRepository, ArchivedLoanRepository archivedLoanRepository,
+                        @Value("${library.loan-archive.batch-size:500}") int batchSize) {
+        this.loanRepository = loanRepository;
+        this.archivedLoanRepository = archivedLoanRepository;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${library.loan-archive.interval-ms:60000}")
+    @Transactional
+    public int archive() {
+        List<Loan> returned = loanRepository.findReturnedForUpdate(PageRequest.of(0, batchSize));
+        if (returned.isEmpty()) {
+            return 0;
+        }
+
+        //uma linha que ja esta no historico so e removida da tabela loan, sem inserir de novo
+        Set<Long> alreadyArchived = archivedLoanRepository.findArchivedIds(
+                returned.stream().map(Loan::getId).collect(Collectors.toList()));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ArchivedLoan> archived = new ArrayList<>(returned.size());
+        for (Loan loan : returned) {
+            if (!alreadyArchived.contains(loan.getId())) {
+                archived.add(ArchivedLoan.of(loan, now));
+            }
+        }
+
+        archivedLoanRepository.saveAll(archived);
+        loanRepository.deleteAllInBatch(returned);
+
+        log.info("Archived {} returned loans", returned.size());
+        return returned.size();
+    }
+}
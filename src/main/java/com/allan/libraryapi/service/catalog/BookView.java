@@ -0,0 +1,16 @@
+package com.allan.libraryapi.service.catalog;
+
+/**
+ * Visao somente leitura de um livro do catalogo em memoria. As implementacoes do
+ * OffHeapCatalog so guardam a linha e leem os campos fora do heap quando pedidos.
+ */
+public interface BookView {
+
+    long getId();
+
+    String getTitle();
+
+    String getAuthor();
+
+    String getIsbn();
+}
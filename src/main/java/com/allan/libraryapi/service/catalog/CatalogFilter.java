@@ -0,0 +1,88 @@
+package com.allan.libraryapi.service.catalog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Mesmo criterio do BookService.find (trecho contido, sem diferenciar maiusculas, campos
+ * nulos ignorados), avaliado direto nas linhas do OffHeapCatalog ou sobre um BookView.
+ * Imutavel: o mesmo filtro e usado por todos os shards de uma busca.
+ */
+final class CatalogFilter {
+
+    private final OffHeapCatalog catalog;
+    private final Long id;
+    private final String title;
+    private final String author;
+    private final String isbn;
+    private final byte[] asciiTitle;
+    private final byte[] asciiIsbn;
+    private final boolean[] authorMatches;
+
+    CatalogFilter(OffHeapCatalog catalog, Long id, String title, String author, String isbn) {
+        this.catalog = catalog;
+        this.id = id;
+        this.title = lower(title);
+        this.author = lower(author);
+        this.isbn = lower(isbn);
+        this.asciiTitle = ascii(this.title);
+        this.asciiIsbn = ascii(this.isbn);
+
+        //autores se repetem: o filtro roda uma vez por nome do dicionario, nao por livro
+        if (this.author == null) {
+            this.authorMatches = null;
+        } else {
+            this.authorMatches = new boolean[catalog.authorCount()];
+            for (int code = 0; code < authorMatches.length; code++) {
+                authorMatches[code] = contains(catalog.authorOf(code), this.author);
+            }
+        }
+    }
+
+    boolean matches(int row) {
+        if (id != null && catalog.id(row) != id) {
+            return false;
+        }
+        if (authorMatches != null) {
+            int code = catalog.authorCode(row);
+            if (code < 0 || !authorMatches[code]) {
+                return false;
+            }
+        }
+        if (title != null && !(asciiTitle != null
+                ? catalog.titleContainsAscii(row, asciiTitle)
+                : contains(catalog.title(row), title))) {
+            return false;
+        }
+        return isbn == null || (asciiIsbn != null
+                ? catalog.isbnContainsAscii(row, asciiIsbn)
+                : contains(catalog.isbn(row), isbn));
+    }
+
+    boolean matches(BookView book) {
+        return (id == null || book.getId() == id)
+                && (title == null || contains(book.getTitle(), title))
+                && (author == null || contains(book.getAuthor(), author))
+                && (isbn == null || contains(book.getIsbn(), isbn));
+    }
+
+    private static boolean contains(String value, String lowerCasePart) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(lowerCasePart);
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static byte[] ascii(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 127) {
+                return null;
+            }
+        }
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
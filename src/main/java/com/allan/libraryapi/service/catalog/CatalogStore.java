@@ -0,0 +1,422 @@
+package com.allan.libraryapi.service.catalog;
+
+import com.allan.libraryapi.health.WarmUpTracker;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.DeletedBook;
+import com.allan.libraryapi.service.BookChanges;
+import com.allan.libraryapi.service.BookSyncService;
+import com.allan.libraryapi.service.event.BookChangedEvent;
+import com.allan.libraryapi.service.snapshot.CatalogLoader;
+import com.allan.libraryapi.service.snapshot.CatalogSnapshot;
+import com.allan.libraryapi.tenant.TenantContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Catalogo em memoria para consultas por id, por ISBN e filtros sem ir ao banco.
+ *
+ * A base e um OffHeapCatalog imutavel; livros alterados depois da carga ficam num overlay
+ * pequeno no heap (ordenado por id, com um marcador para removidos) que tem precedencia sobre
+ * a base. Quando o overlay passa de library.catalog.store.compact-threshold entradas, uma
+ * nova base e montada intercalando as duas.
+ *
+ * Os eventos de livro sao aplicados depois do commit, entao uma escrita desfeita nunca aparece.
+ * As escritas feitas por outras instancias chegam pela reconciliacao periodica, que le a
+ * sincronizacao incremental a partir da marca d'agua da ultima leitura, recuada por
+ * library.catalog.store.reconcile-window-ms para pegar commits atrasados.
+ *
+ * Cada tenant tem a sua base e o seu overlay (uma particao), entao as consultas so percorrem
+ * os livros do tenant da requisicao e a compactacao de um tenant nao mexe nos outros.
+ *
+ * As buscas dividem a base em shards avaliados em paralelo num ForkJoinPool proprio, com
+ * library.catalog.search.parallelism threads (0 = uma por processador, 1 = na thread da
+ * requisicao).
+ */
+@Slf4j
+@Service
+public class CatalogStore {
+
+    private static final BookView DELETED = new CatalogSnapshot.Entry(-1L, null, null, null);
+
+    static final String WARM_UP_TASK = "catalogStore";
+
+    private static final int RECONCILE_PAGE_SIZE = 1000;
+
+    private final CatalogLoader catalogLoader;
+    private final BookSyncService bookSyncService;
+    private final WarmUpTracker warmUpTracker;
+    private final boolean enabled;
+    private final int compactThreshold;
+    private final int shardSize;
+    private final long reconcileWindowMillis;
+    private final ForkJoinPool searchPool;
+    private final ConcurrentMap<String, Partition> partitions = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    //marca d'agua da sincronizacao incremental ate onde as mudancas ja foram aplicadas
+    private volatile String watermark;
+
+    //livros alterados durante a carga inicial; a carga nao sobrescreve o que o evento ja aplicou
+    private volatile Set<Long> changedDuringLoad;
+
+    public CatalogStore(CatalogLoader catalogLoader,
+                        BookSyncService bookSyncService,
+                        WarmUpTracker warmUpTracker,
+                        @Value("${library.catalog.store.enabled:false}") boolean enabled,
+                        @Value("${library.catalog.store.compact-threshold:10000}") int compactThreshold,
+                        @Value("${library.catalog.store.reconcile-window-ms:300000}") long reconcileWindowMillis,
+                        @Value("${library.catalog.search.parallelism:0}") int parallelism,
+                        @Value("${library.catalog.search.shard-size:65536}") int shardSize) {
+        this.catalogLoader = catalogLoader;
+        this.bookSyncService = bookSyncService;
+        this.warmUpTracker = warmUpTracker;
+        this.enabled = enabled;
+        this.compactThreshold = compactThreshold;
+        this.reconcileWindowMillis = reconcileWindowMillis;
+        this.shardSize = shardSize;
+
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.searchPool = enabled && threads > 1 ? new ForkJoinPool(threads, CatalogStore::searchThread, null, false) : null;
+    }
+
+    public boolean isReady() {
+        return loaded;
+    }
+
+    /**
+     * Se a pagina pode ser atendida em memoria: o catalogo ja foi carregado e a ordem pedida
+     * e por um campo so (id, title, author ou isbn), ou nenhuma.
+     */
+    public boolean canServe(Pageable pageable) {
+        return isReady() && ShardedSearch.supports(pageable.getSort());
+    }
+
+    /**
+     * Livro do tenant da requisicao com o id informado.
+     */
+    public Optional<BookView> getById(long id) {
+        Partition partition = partitions.get(TenantContext.current());
+        if (partition == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(current(partition, id));
+    }
+
+    public Optional<BookView> getByIsbn(String isbn) {
+        Partition partition = partitions.get(TenantContext.current());
+        if (isbn == null || partition == null) {
+            return Optional.empty();
+        }
+        for (BookView changed : partition.overlay.values()) {
+            if (changed != DELETED && isbn.equals(changed.getIsbn())) {
+                return Optional.of(changed);
+            }
+        }
+
+        OffHeapCatalog catalog = partition.base;
+        int row = catalog.rowOfIsbn(isbn);
+        //a versao da base foi substituida por uma do overlay, que ja foi conferida acima
+        if (row < 0 || partition.overlay.containsKey(catalog.id(row))) {
+            return Optional.empty();
+        }
+        return Optional.of(catalog.view(row));
+    }
+
+    /**
+     * Mesmo criterio do BookService.find (trecho contido, sem diferenciar maiusculas, campos
+     * nulos ignorados), na ordem pedida (sem ordem: id crescente). Na base os filtros sao
+     * avaliados direto nos buffers e so as linhas da pagina viram visoes.
+     */
+    public Page<BookView> find(Long id, String title, String author, String isbn, Pageable pageable) {
+        if (!loaded) {
+            throw new IllegalStateException("Catalog store is not loaded");
+        }
+        Partition partition = partitions.get(TenantContext.current());
+        if (partition == null) {
+            return new PageImpl<>(Collections.<BookView>emptyList(), pageable, 0);
+        }
+        OffHeapCatalog catalog = partition.base;
+        ConcurrentSkipListMap<Long, BookView> overlay = partition.overlay;
+
+        int offset = (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE - pageable.getPageSize());
+        int limit = offset + pageable.getPageSize();
+
+        //ids do overlay: a versao da base desses livros foi substituida ou removida
+        List<BookView> changes = new ArrayList<>();
+        long[] replaced = new long[overlay.size()];
+        int count = 0;
+        for (Map.Entry<Long, BookView> entry : overlay.entrySet()) {
+            if (count == replaced.length) {
+                replaced = Arrays.copyOf(replaced, count * 2 + 1);
+            }
+            replaced[count++] = entry.getKey();
+            if (entry.getValue() != DELETED) {
+                changes.add(entry.getValue());
+            }
+        }
+
+        ShardedSearch search = new ShardedSearch(catalog, new CatalogFilter(catalog, id, title, author, isbn),
+                pageable.getSort(), limit, shardSize, Arrays.copyOf(replaced, count));
+        ShardedSearch.Partial result = search.merge(search.searchBase(searchPool), search.searchChanges(changes));
+
+        return new PageImpl<>(search.page(result, offset), pageable, result.getTotal());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookChanged(BookChangedEvent event) {
+        Book book = event.getBook();
+        if (!enabled || book == null || book.getId() == null) {
+            return;
+        }
+
+        Set<Long> changed = changedDuringLoad;
+        if (changed != null) {
+            changed.add(book.getId());
+        }
+
+        partition(book.getTenantId()).overlay.put(book.getId(), event.getType() == BookChangedEvent.Type.DELETED
+                ? DELETED
+                : CatalogLoader.entry(book));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        warmUpTracker.started(WARM_UP_TASK);
+        Thread thread = new Thread(() -> {
+            loadCatalog();
+            warmUpTracker.completed(WARM_UP_TASK);
+        }, "catalog-store-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void loadCatalog() {
+        long start = System.currentTimeMillis();
+        Set<Long> changed = ConcurrentHashMap.newKeySet();
+        changedDuringLoad = changed;
+        //o que mudar durante a carga e relido na primeira reconciliacao
+        watermark = bookSyncService.watermarkAt(Instant.ofEpochMilli(start));
+
+        try {
+            Map<String, OffHeapCatalog.Builder> builders = new HashMap<>();
+            CatalogLoader.Result result = catalogLoader.load(changed, new CatalogLoader.Target() {
+                //putIfAbsent: um evento que chegou antes traz uma versao mais nova
+                @Override
+                public void changed(CatalogSnapshot.Entry entry) {
+                    partition(entry.getTenantId()).overlay.putIfAbsent(entry.getId(), entry);
+                }
+
+                //o loader ja pula os registros dos ids removidos, entao nao ha versao na base a esconder
+                @Override
+                public void deleted(long bookId) {
+                }
+
+                @Override
+                public void loaded(CatalogSnapshot.Entry entry) {
+                    builders.computeIfAbsent(tenantOf(entry.getTenantId()), tenant -> OffHeapCatalog.builder()).add(entry);
+                }
+            });
+
+            long offHeapBytes = 0;
+            for (Map.Entry<String, OffHeapCatalog.Builder> builder : builders.entrySet()) {
+                OffHeapCatalog catalog = builder.getValue().build();
+                partition(builder.getKey()).base = catalog;
+                offHeapBytes += catalog.offHeapBytes();
+            }
+            loaded = true;
+            log.info("Catalog store loaded with {} books in {} tenants from {} in {} ms ({} bytes off-heap)",
+                    result.getLoaded(), builders.size(), result.getSource(), System.currentTimeMillis() - start,
+                    offHeapBytes);
+        } catch (RuntimeException e) {
+            log.error("Could not load catalog store", e);
+        } finally {
+            changedDuringLoad = null;
+        }
+    }
+
+    /**
+     * Aplica as mudancas do banco desde a ultima reconciliacao, inclusive as feitas por outras
+     * instancias. Livros relidos que nao mudaram nao entram no overlay.
+     */
+    @Scheduled(fixedDelayString = "${library.catalog.store.reconcile-interval-ms:30000}")
+    public void reconcile() {
+        String since = watermark;
+        if (!loaded || since == null) {
+            return;
+        }
+
+        try {
+            String next = since;
+            String cursor = bookSyncService.rewind(since, reconcileWindowMillis);
+            int applied = 0;
+            BookChanges page;
+            do {
+                page = bookSyncService.findChangesSince(cursor, RECONCILE_PAGE_SIZE);
+                for (Book book : page.getChanged()) {
+                    if (reconcile(book)) {
+                        applied++;
+                    }
+                }
+                for (DeletedBook tombstone : page.getDeleted()) {
+                    if (reconcileDeleted(tombstone.getBookId())) {
+                        applied++;
+                    }
+                }
+                //sem nenhum registro a sincronizacao devolve a marca recuada, que nao deve ser guardada
+                if (!page.getChanged().isEmpty() || !page.getDeleted().isEmpty()) {
+                    next = page.getWatermark();
+                }
+                cursor = page.getWatermark();
+            } while (page.isHasMore());
+
+            watermark = next;
+            if (applied > 0) {
+                log.info("Catalog store reconciled {} changes from the database", applied);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not reconcile catalog store from {}: {}", since, e.getMessage());
+        }
+    }
+
+    private boolean reconcile(Book book) {
+        Partition partition = partition(book.getTenantId());
+        BookView current = current(partition, book.getId());
+        if (current != null && Objects.equals(current.getTitle(), book.getTitle())
+                && Objects.equals(current.getAuthor(), book.getAuthor())
+                && Objects.equals(current.getIsbn(), book.getIsbn())) {
+            return false;
+        }
+        partition.overlay.put(book.getId(), CatalogLoader.entry(book));
+        return true;
+    }
+
+    //a lapide nao tem tenant: o id e unico, entao basta esconder o livro na particao que o tiver
+    private boolean reconcileDeleted(long bookId) {
+        boolean removed = false;
+        for (Partition partition : partitions.values()) {
+            if (current(partition, bookId) != null) {
+                partition.overlay.put(bookId, DELETED);
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    //versao visivel do livro na particao: a do overlay, se houver, senao a da base
+    private static BookView current(Partition partition, long id) {
+        BookView changed = partition.overlay.get(id);
+        if (changed != null) {
+            return changed == DELETED ? null : changed;
+        }
+
+        OffHeapCatalog catalog = partition.base;
+        int row = catalog.rowOf(id);
+        return row < 0 ? null : catalog.view(row);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (searchPool != null) {
+            searchPool.shutdownNow();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${library.catalog.store.compact-interval-ms:60000}")
+    public void compact() {
+        if (!loaded) {
+            return;
+        }
+        partitions.forEach((tenantId, partition) -> {
+            if (partition.overlay.size() >= compactThreshold) {
+                compact(tenantId, partition);
+            }
+        });
+    }
+
+    private void compact(String tenantId, Partition partition) {
+        long start = System.currentTimeMillis();
+        OffHeapCatalog catalog = partition.base;
+        ConcurrentSkipListMap<Long, BookView> overlay = partition.overlay;
+        TreeMap<Long, BookView> folded = new TreeMap<>(overlay);
+        OffHeapCatalog.Builder builder = OffHeapCatalog.builder();
+
+        Iterator<Map.Entry<Long, BookView>> changes = folded.entrySet().iterator();
+        Map.Entry<Long, BookView> nextChange = changes.hasNext() ? changes.next() : null;
+        int row = 0;
+
+        while (row < catalog.size() || nextChange != null) {
+            if (nextChange == null || (row < catalog.size() && catalog.id(row) < nextChange.getKey())) {
+                builder.add(catalog.view(row++));
+                continue;
+            }
+
+            if (row < catalog.size() && catalog.id(row) == nextChange.getKey()) {
+                row++;
+            }
+            if (nextChange.getValue() != DELETED) {
+                builder.add(nextChange.getValue());
+            }
+            nextChange = changes.hasNext() ? changes.next() : null;
+        }
+
+        partition.base = builder.build();
+        //so sai do overlay o que nao mudou de novo durante a compactacao
+        folded.forEach(overlay::remove);
+        log.info("Catalog store compacted {} changes of tenant {} in {} ms", folded.size(), tenantId,
+                System.currentTimeMillis() - start);
+    }
+
+    //criada vazia no primeiro livro do tenant; a carga inicial troca a base pela montada
+    private Partition partition(String tenantId) {
+        return partitions.computeIfAbsent(tenantOf(tenantId), tenant -> new Partition());
+    }
+
+    private static String tenantOf(String tenantId) {
+        return tenantId != null ? tenantId : TenantContext.DEFAULT_TENANT;
+    }
+
+    private static ForkJoinWorkerThread searchThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("catalog-search-" + thread.getPoolIndex());
+        return thread;
+    }
+
+    private static final class Partition {
+
+        private final ConcurrentSkipListMap<Long, BookView> overlay = new ConcurrentSkipListMap<>();
+        private volatile OffHeapCatalog base = OffHeapCatalog.builder().build();
+    }
+}
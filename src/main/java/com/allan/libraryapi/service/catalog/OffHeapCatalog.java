@@ -0,0 +1,362 @@
+package com.allan.libraryapi.service.catalog;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catalogo imutavel fora do heap, com uma linha por livro em ordem crescente de id.
+ *
+ * <pre>
+ *   rows       24 bytes por linha: long id, int autor, int offset, int tamanho do titulo,
+ *              int tamanho do ISBN (tamanho -1 para null, autor -1 para null)
+ *   strings    titulo e ISBN da linha em UTF-8, um depois do outro, a partir do offset
+ *   idIndex    tabela hash de enderecamento aberto: linha + 1 por slot, 0 = vazio
+ *   isbnIndex  idem, pelo hash dos bytes do ISBN
+ * </pre>
+ *
+ * O autor e um codigo no dicionario de autores, a unica parte no heap (autores se repetem
+ * muito). Os campos de tamanho fixo ficam juntos na linha, e nao numa coluna cada, porque a
+ * consulta por id e o caminho principal: assim ela le tres regioes de memoria (indice, linha
+ * e textos) em vez de uma por campo. As leituras usam acesso absoluto aos buffers, entao
+ * varias threads podem ler ao mesmo tempo.
+ */
+public final class OffHeapCatalog {
+
+    private static final int NULL = -1;
+
+    private static final int ROW_BYTES = 24;
+    private static final int ID = 0;
+    private static final int AUTHOR = 8;
+    private static final int OFFSET = 12;
+    private static final int TITLE_LENGTH = 16;
+    private static final int ISBN_LENGTH = 20;
+
+    private final int size;
+    private final ByteBuffer rows;
+    private final ByteBuffer strings;
+    private final ByteBuffer idIndex;
+    private final ByteBuffer isbnIndex;
+    private final int mask;
+    private final String[] authors;
+
+    private OffHeapCatalog(Builder builder) {
+        this.size = builder.size;
+        this.rows = trim(builder.rows);
+        this.strings = trim(builder.strings);
+        this.authors = builder.authors.toArray(new String[0]);
+
+        //fator de carga de no maximo 0,5 nas duas tabelas
+        int slots = Integer.highestOneBit(Math.max(2, size * 2 - 1)) << 1;
+        this.mask = slots - 1;
+        this.idIndex = allocate(slots * 4);
+        this.isbnIndex = allocate(slots * 4);
+        for (int row = 0; row < size; row++) {
+            insert(idIndex, hash(id(row)), row);
+
+            int length = field(row, ISBN_LENGTH);
+            if (length != NULL) {
+                insert(isbnIndex, hash(strings, isbnOffset(row), length), row);
+            }
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Linha do livro com o id informado, ou -1.
+     */
+    public int rowOf(long id) {
+        int slot = hash(id) & mask;
+        for (int value = idIndex.getInt(slot * 4); value != 0; value = idIndex.getInt(slot * 4)) {
+            if (id(value - 1) == id) {
+                return value - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NULL;
+    }
+
+    /**
+     * Primeira linha com o ISBN informado, ou -1.
+     */
+    public int rowOfIsbn(String isbn) {
+        if (isbn == null) {
+            return NULL;
+        }
+        byte[] wanted = isbn.getBytes(StandardCharsets.UTF_8);
+
+        int slot = hash(ByteBuffer.wrap(wanted), 0, wanted.length) & mask;
+        int found = NULL;
+        for (int value = isbnIndex.getInt(slot * 4); value != 0; value = isbnIndex.getInt(slot * 4)) {
+            int row = value - 1;
+            if ((found == NULL || row < found) && isbnEquals(row, wanted)) {
+                found = row;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return found;
+    }
+
+    public long id(int row) {
+        return rows.getLong(row * ROW_BYTES + ID);
+    }
+
+    public String title(int row) {
+        return string(field(row, OFFSET), field(row, TITLE_LENGTH));
+    }
+
+    public String isbn(int row) {
+        return string(isbnOffset(row), field(row, ISBN_LENGTH));
+    }
+
+    public int authorCode(int row) {
+        return field(row, AUTHOR);
+    }
+
+    public String author(int row) {
+        int code = authorCode(row);
+        return code == NULL ? null : authors[code];
+    }
+
+    public int authorCount() {
+        return authors.length;
+    }
+
+    public String authorOf(int code) {
+        return authors[code];
+    }
+
+    /**
+     * Se o titulo da linha contem o trecho, sem diferenciar maiusculas. O trecho precisa ser
+     * ASCII e ja estar em minusculas: a comparacao e feita sobre os bytes UTF-8, sem decodificar
+     * (bytes de caracteres nao ASCII nunca coincidem com bytes ASCII).
+     */
+    public boolean titleContainsAscii(int row, byte[] lowerCaseAscii) {
+        return containsAscii(field(row, OFFSET), field(row, TITLE_LENGTH), lowerCaseAscii);
+    }
+
+    public boolean isbnContainsAscii(int row, byte[] lowerCaseAscii) {
+        return containsAscii(isbnOffset(row), field(row, ISBN_LENGTH), lowerCaseAscii);
+    }
+
+    public BookView view(int row) {
+        return new View(this, row);
+    }
+
+    /**
+     * Bytes reservados fora do heap pelas linhas, textos e indices.
+     */
+    public long offHeapBytes() {
+        return (long) rows.capacity() + strings.capacity() + idIndex.capacity() + isbnIndex.capacity();
+    }
+
+    private int field(int row, int position) {
+        return rows.getInt(row * ROW_BYTES + position);
+    }
+
+    //o ISBN vem logo depois do titulo
+    private int isbnOffset(int row) {
+        return field(row, OFFSET) + Math.max(0, field(row, TITLE_LENGTH));
+    }
+
+    private boolean isbnEquals(int row, byte[] wanted) {
+        if (field(row, ISBN_LENGTH) != wanted.length) {
+            return false;
+        }
+        int offset = isbnOffset(row);
+        for (int i = 0; i < wanted.length; i++) {
+            if (strings.get(offset + i) != wanted[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean containsAscii(int offset, int length, byte[] needle) {
+        if (length == NULL) {
+            return false;
+        }
+        int last = offset + length - needle.length;
+        for (int start = offset; start <= last; start++) {
+            int i = 0;
+            while (i < needle.length && toLowerAscii(strings.get(start + i)) == needle[i]) {
+                i++;
+            }
+            if (i == needle.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String string(int offset, int length) {
+        if (length == NULL) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        for (int i = 0; i < length; i++) {
+            value[i] = strings.get(offset + i);
+        }
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private void insert(ByteBuffer index, int hash, int row) {
+        int slot = hash & mask;
+        while (index.getInt(slot * 4) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index.putInt(slot * 4, row + 1);
+    }
+
+    private static byte toLowerAscii(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int hash(ByteBuffer bytes, int offset, int length) {
+        int h = 1;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + bytes.get(offset + i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    //os buffers do builder crescem dobrando; o catalogo guarda so o que foi escrito
+    private static ByteBuffer trim(ByteBuffer buffer) {
+        buffer.flip();
+        ByteBuffer trimmed = allocate(Math.max(1, buffer.remaining()));
+        trimmed.put(buffer);
+        return trimmed;
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+
+    //flyweight: so a referencia ao catalogo e a linha ficam no heap
+    private static final class View implements BookView {
+
+        private final OffHeapCatalog catalog;
+        private final int row;
+
+        View(OffHeapCatalog catalog, int row) {
+            this.catalog = catalog;
+            this.row = row;
+        }
+
+        @Override
+        public long getId() {
+            return catalog.id(row);
+        }
+
+        @Override
+        public String getTitle() {
+            return catalog.title(row);
+        }
+
+        @Override
+        public String getAuthor() {
+            return catalog.author(row);
+        }
+
+        @Override
+        public String getIsbn() {
+            return catalog.isbn(row);
+        }
+    }
+
+    /**
+     * Monta o catalogo a partir de livros em ordem crescente de id. Os buffers crescem
+     * dobrando de tamanho; o builder nao pode ser reutilizado depois do build.
+     */
+    public static final class Builder {
+
+        private int size;
+        private long lastId = Long.MIN_VALUE;
+        private ByteBuffer rows = allocate(1024 * ROW_BYTES);
+        private ByteBuffer strings = allocate(48 * 1024);
+        private final List<String> authors = new ArrayList<>();
+        private final Map<String, Integer> authorCodeByName = new HashMap<>();
+
+        private Builder() {
+        }
+
+        public Builder add(BookView book) {
+            if (book.getId() <= lastId) {
+                throw new IllegalArgumentException("Books must be added in ascending id order");
+            }
+            lastId = book.getId();
+
+            byte[] title = encode(book.getTitle());
+            byte[] isbn = encode(book.getIsbn());
+
+            rows = ensure(rows, ROW_BYTES);
+            rows.putLong(book.getId());
+            rows.putInt(authorCode(book.getAuthor()));
+            rows.putInt(strings.position());
+            rows.putInt(title == null ? NULL : title.length);
+            rows.putInt(isbn == null ? NULL : isbn.length);
+
+            strings = ensure(strings, (title == null ? 0 : title.length) + (isbn == null ? 0 : isbn.length));
+            if (title != null) {
+                strings.put(title);
+            }
+            if (isbn != null) {
+                strings.put(isbn);
+            }
+
+            size++;
+            return this;
+        }
+
+        public OffHeapCatalog build() {
+            return new OffHeapCatalog(this);
+        }
+
+        private int authorCode(String author) {
+            if (author == null) {
+                return NULL;
+            }
+            Integer code = authorCodeByName.get(author);
+            if (code == null) {
+                code = authors.size();
+                authors.add(author);
+                authorCodeByName.put(author, code);
+            }
+            return code;
+        }
+
+        private static byte[] encode(String value) {
+            return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static ByteBuffer ensure(ByteBuffer buffer, int needed) {
+            if (buffer.remaining() >= needed) {
+                return buffer;
+            }
+            long capacity = Math.max((long) buffer.capacity() * 2, (long) buffer.position() + needed);
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Catalog buffer exceeds 2 GB");
+            }
+            ByteBuffer grown = allocate((int) capacity);
+            buffer.flip();
+            grown.put(buffer);
+            return grown;
+        }
+    }
+}
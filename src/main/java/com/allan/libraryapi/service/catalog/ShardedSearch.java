@@ -0,0 +1,237 @@
+package com.allan.libraryapi.service.catalog;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Uma busca paginada sobre o OffHeapCatalog, dividido em shards de no maximo shardSize linhas
+ * contiguas. Cada shard conta os livros que passam no filtro e guarda so os limit primeiros
+ * na ordem pedida (top-N); os parciais sao intercalados dois a dois na volta do fork-join.
+ *
+ * Os livros do overlay entram como mais um parcial, e as linhas da base que eles substituem
+ * (ids em replaced) sao ignoradas pelos shards.
+ */
+final class ShardedSearch {
+
+    private static final List<String> PROPERTIES = Arrays.asList("id", "title", "author", "isbn");
+    private static final int TITLE = 1;
+    private static final int AUTHOR = 2;
+    private static final int ISBN = 3;
+
+    private final OffHeapCatalog catalog;
+    private final CatalogFilter filter;
+    private final int sortKey;
+    private final Comparator<Hit> order;
+    private final int limit;
+    private final int shardSize;
+    private final long[] replaced;
+
+    /**
+     * @param sort     no maximo uma ordem, por id, title, author ou isbn (sem ordem: id crescente)
+     * @param limit    offset + tamanho da pagina
+     * @param replaced ids do overlay, em ordem crescente
+     */
+    ShardedSearch(OffHeapCatalog catalog, CatalogFilter filter, Sort sort, int limit, int shardSize, long[] replaced) {
+        Sort.Order sortOrder = sort.isSorted() ? sort.iterator().next() : Sort.Order.asc("id");
+
+        this.catalog = catalog;
+        this.filter = filter;
+        this.sortKey = PROPERTIES.indexOf(sortOrder.getProperty());
+        this.order = comparator(sortOrder);
+        this.limit = limit;
+        this.shardSize = Math.max(1, shardSize);
+        this.replaced = replaced;
+    }
+
+    static boolean supports(Sort sort) {
+        int orders = 0;
+        for (Sort.Order order : sort) {
+            if (++orders > 1 || !PROPERTIES.contains(order.getProperty())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Varre a base: no pool, dividindo em shards, ou direto na thread atual se o pool for null
+     * ou a base couber num shard so.
+     */
+    Partial searchBase(ForkJoinPool pool) {
+        if (pool == null || catalog.size() <= shardSize) {
+            return scan(0, catalog.size());
+        }
+        return pool.invoke(new ShardTask(0, catalog.size()));
+    }
+
+    Partial searchChanges(Collection<BookView> changes) {
+        List<Hit> hits = new ArrayList<>();
+        long total = 0;
+        for (BookView book : changes) {
+            if (filter.matches(book)) {
+                total++;
+                hits.add(new Hit(key(book), book.getId(), -1, book));
+            }
+        }
+        hits.sort(order);
+        return new Partial(total, hits.size() > limit ? hits.subList(0, limit) : hits);
+    }
+
+    Partial merge(Partial first, Partial second) {
+        List<Hit> merged = new ArrayList<>(Math.min(limit, first.hits.size() + second.hits.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < first.hits.size() || j < second.hits.size())) {
+            if (j == second.hits.size()
+                    || (i < first.hits.size() && order.compare(first.hits.get(i), second.hits.get(j)) <= 0)) {
+                merged.add(first.hits.get(i++));
+            } else {
+                merged.add(second.hits.get(j++));
+            }
+        }
+        return new Partial(first.total + second.total, merged);
+    }
+
+    /**
+     * Livros de from ate o fim do parcial, como visoes (linhas da base) ou como vieram do overlay.
+     */
+    List<BookView> page(Partial result, int from) {
+        List<BookView> content = new ArrayList<>();
+        for (int i = from; i < result.hits.size(); i++) {
+            Hit hit = result.hits.get(i);
+            content.add(hit.changed != null ? hit.changed : catalog.view(hit.row));
+        }
+        return content;
+    }
+
+    private Partial scan(int from, int to) {
+        //o topo do heap e o pior dos limit melhores ate aqui
+        PriorityQueue<Hit> kept = new PriorityQueue<>(Math.min(limit, 1024) + 1, order.reversed());
+        long total = 0;
+
+        for (int row = from; row < to; row++) {
+            if (!filter.matches(row)) {
+                continue;
+            }
+            long id = catalog.id(row);
+            if (replaced.length > 0 && Arrays.binarySearch(replaced, id) >= 0) {
+                continue;
+            }
+            total++;
+
+            Hit hit = new Hit(key(row), id, row, null);
+            if (kept.size() < limit) {
+                kept.add(hit);
+            } else if (order.compare(hit, kept.peek()) < 0) {
+                kept.poll();
+                kept.add(hit);
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(kept);
+        hits.sort(order);
+        return new Partial(total, hits);
+    }
+
+    private String key(int row) {
+        switch (sortKey) {
+            case TITLE:
+                return catalog.title(row);
+            case AUTHOR:
+                return catalog.author(row);
+            case ISBN:
+                return catalog.isbn(row);
+            default:
+                return null;
+        }
+    }
+
+    private String key(BookView book) {
+        switch (sortKey) {
+            case TITLE:
+                return book.getTitle();
+            case AUTHOR:
+                return book.getAuthor();
+            case ISBN:
+                return book.getIsbn();
+            default:
+                return null;
+        }
+    }
+
+    //nulls primeiro na ordem crescente e por ultimo na decrescente, como no H2; empate pelo id
+    private static Comparator<Hit> comparator(Sort.Order sortOrder) {
+        Comparator<Hit> byId = Comparator.comparingLong(hit -> hit.id);
+        Comparator<Hit> comparator = byId;
+        if (!"id".equals(sortOrder.getProperty())) {
+            Comparator<String> strings = sortOrder.isIgnoreCase()
+                    ? String.CASE_INSENSITIVE_ORDER
+                    : Comparator.<String>naturalOrder();
+            comparator = Comparator.<Hit, String>comparing(hit -> hit.key, Comparator.nullsFirst(strings))
+                    .thenComparing(byId);
+        }
+        return sortOrder.isDescending() ? comparator.reversed() : comparator;
+    }
+
+    static final class Partial {
+
+        private final long total;
+        private final List<Hit> hits;
+
+        Partial(long total, List<Hit> hits) {
+            this.total = total;
+            this.hits = hits;
+        }
+
+        long getTotal() {
+            return total;
+        }
+    }
+
+    //linha da base (row) ou livro do overlay (changed), com a chave de ordenacao ja decodificada
+    private static final class Hit {
+
+        private final String key;
+        private final long id;
+        private final int row;
+        private final BookView changed;
+
+        Hit(String key, long id, int row, BookView changed) {
+            this.key = key;
+            this.id = id;
+            this.row = row;
+            this.changed = changed;
+        }
+    }
+
+    private final class ShardTask extends RecursiveTask<Partial> {
+
+        private final int from;
+        private final int to;
+
+        ShardTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= shardSize) {
+                return scan(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ShardTask left = new ShardTask(from, middle);
+            left.fork();
+            Partial right = new ShardTask(middle, to).compute();
+            return merge(left.join(), right);
+        }
+    }
+}
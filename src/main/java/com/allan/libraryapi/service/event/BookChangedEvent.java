@@ -0,0 +1,19 @@
+package com.allan.libraryapi.service.event;
+
+import com.allan.libraryapi.model.entity.Book;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publicado pelo BookService a cada escrita no catalogo. Os listeners sincronos rodam
+ * na mesma thread (e transacao) da escrita.
+ */
+@Getter
+@AllArgsConstructor
+public class BookChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final Type type;
+    private final Book book;
+}
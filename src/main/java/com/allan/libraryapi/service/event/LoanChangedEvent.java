@@ -0,0 +1,18 @@
+package com.allan.libraryapi.service.event;
+
+import com.allan.libraryapi.model.entity.Loan;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publicado pelo LoanService quando um emprestimo e criado ou devolvido.
+ */
+@Getter
+@AllArgsConstructor
+public class LoanChangedEvent {
+
+    public enum Type { CREATED, RETURNED }
+
+    private final Type type;
+    private final Loan loan;
+}
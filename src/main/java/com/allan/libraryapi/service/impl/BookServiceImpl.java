@@ -4,47 +4,73 @@ import com.allan.libraryapi.exception.BusinessException;
 import com.allan.libraryapi.model.entity.Book;
 import com.allan.libraryapi.model.repository.BookRepository;
 import com.allan.libraryapi.service.BookService;
+import com.allan.libraryapi.service.event.BookChangedEvent;
+import com.allan.libraryapi.tenant.TenantContext;
+import com.allan.libraryapi.tracing.Span;
+import com.allan.libraryapi.tracing.Tracing;
+import com.allan.libraryapi.util.SearchText;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
+/**
+ * Todas as consultas ficam restritas ao tenant da requisicao (TenantContext); o ISBN e unico
+ * dentro de cada tenant.
+ */
 @Service
 public class BookServiceImpl implements BookService {
 
+    static final BusinessException DUPLICATED_ISBN = new BusinessException("Isbn já cadastrado.");
+
     private BookRepository bookRepository;
+    private ApplicationEventPublisher eventPublisher;
 
-    public BookServiceImpl(BookRepository bookRepository) {
+    public BookServiceImpl(BookRepository bookRepository, ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
+    @Transactional
     public Book save(Book book) {
-        if(bookRepository.existsByIsbn(book.getIsbn())) {
-            throw new BusinessException("Isbn já cadastrado.");
+        book.setTenantId(TenantContext.current());
+        if(bookRepository.existsByTenantIdAndIsbn(book.getTenantId(), book.getIsbn())) {
+            throw DUPLICATED_ISBN;
         }
 
-        return bookRepository.save(book);
+        Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(new BookChangedEvent(BookChangedEvent.Type.CREATED, savedBook));
+
+        return savedBook;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Book> getById(Long id) {
-        return this.bookRepository.findById(id);
+        String tenantId = TenantContext.current();
+        return this.bookRepository.findById(id).filter(book -> tenantId.equals(book.getTenantId()));
     }
 
     @Override
+    @Transactional
     public void delete(Book book) {
         if(book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book ID should be different of null");
         }
 
         this.bookRepository.delete(book);
+        eventPublisher.publishEvent(new BookChangedEvent(BookChangedEvent.Type.DELETED, book));
     }
 
     @Override
+    @Transactional
     public Book update(Book book) {
         if(book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book ID should be different of null");
@@ -52,23 +78,74 @@ public class BookServiceImpl implements BookService {
 
         //se ja existir o livro, o save se comporta como update
         //caso contrario, cria novo livro
-        return  this.bookRepository.save(book);
+        Book updatedBook = this.bookRepository.save(book);
+        eventPublisher.publishEvent(new BookChangedEvent(BookChangedEvent.Type.UPDATED, updatedBook));
+
+        return updatedBook;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Book> find(Book filter, Pageable pageRequest) {
-        Example example = Example.of(filter,
-            ExampleMatcher
-                .matching()
-                .withIgnoreCase()
-                .withIgnoreNullValues()
-                .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING)
-        );
-
-        return bookRepository.findAll(example, pageRequest);
+        try (Span span = Tracing.startSpan("BookService.find")) {
+            Example example;
+            try (Span building = Tracing.startSpan("BookService.example")) {
+                filter.setTenantId(TenantContext.current());
+                example = Example.of(filter,
+                    ExampleMatcher
+                        .matching()
+                        .withIgnoreCase()
+                        .withIgnoreNullValues()
+                        .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING)
+                        .withMatcher("tenantId", ExampleMatcher.GenericPropertyMatchers.exact().caseSensitive())
+                );
+            }
+
+            return bookRepository.findAll(example, pageRequest);
+        }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Book> findByPrefix(Book filter, Pageable pageRequest) {
+        try (Span span = Tracing.startSpan("BookService.findByPrefix")) {
+            Specification<Book> specification = Specification
+                    .where(tenantEquals(TenantContext.current()))
+                    .and(startsWith("titleSearch", filter.getTitle()))
+                    .and(startsWith("authorSearch", filter.getAuthor()))
+                    .and(isbnEquals(filter.getIsbn()));
+
+            return bookRepository.findAll(specification, pageRequest);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<Book> getBookByIsbn(String isbn) {
-        return null;
+        return bookRepository.findByTenantIdAndIsbn(TenantContext.current(), isbn);
+    }
+
+    //primeira coluna dos indices de busca
+    private static Specification<Book> tenantEquals(String tenantId) {
+        return (root, query, builder) -> builder.equal(root.get("tenantId"), tenantId);
+    }
+
+    //like 'prefixo%' sobre a coluna normalizada vira range scan no indice
+    private static Specification<Book> startsWith(String attribute, String value) {
+        String prefix = SearchText.normalize(value);
+        if (prefix == null || prefix.isEmpty()) {
+            return null;
+        }
+
+        String pattern = SearchText.escapeLike(prefix) + "%";
+        return (root, query, builder) -> builder.like(root.get(attribute), pattern, SearchText.LIKE_ESCAPE);
+    }
+
+    private static Specification<Book> isbnEquals(String isbn) {
+        if (isbn == null || isbn.isEmpty()) {
+            return null;
+        }
+
+        return (root, query, builder) -> builder.equal(root.get("isbn"), isbn);
     }
 }
@@ -0,0 +1,219 @@
+package com.allan.libraryapi.service.impl;
+
+import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.DeletedBook;
+import com.allan.libraryapi.model.repository.BookRepository;
+import com.allan.libraryapi.model.repository.DeletedBookRepository;
+import com.allan.libraryapi.service.BookChanges;
+import com.allan.libraryapi.service.BookSyncService;
+import com.allan.libraryapi.service.event.BookChangedEvent;
+import com.allan.libraryapi.tenant.TenantContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sincronizacao incremental do catalogo.
+ *
+ * A marca d'agua e o par (updatedAt em millis, id) do ultimo registro entregue, no formato
+ * "millis:id". Livros alterados e lapides de removidos sao lidos pelo mesmo criterio e
+ * intercalados nessa ordem, entao o cliente avanca sem perder nem repetir registros.
+ *
+ * O endpoint le so o tenant da requisicao; sem tenant a leitura cobre todos, para os indices
+ * em memoria.
+ *
+ * updatedAt e dado antes do commit, entao uma transacao lenta pode confirmar um registro com
+ * chave menor que a marca d'agua que um cliente ja recebeu. A leitura por tenant, a do
+ * endpoint, rele por isso os library.sync.reread-window-ms anteriores a marca d'agua (no maximo
+ * limit registros) junto com a pagina, sem repetir na mesma resposta um livro da pagina: um
+ * registro aparece de novo enquanto estiver nessa janela, e o cliente, que aplica pelo id o
+ * estado atual do livro ou a remocao, so o grava outra vez. As leituras sem tenant sao dos
+ * indices em memoria, que ja recuam a marca d'agua por conta propria.
+ */
+@Service
+public class BookSyncServiceImpl implements BookSyncService {
+
+    private static final String INITIAL_WATERMARK = "0:0";
+
+    private BookRepository bookRepository;
+    private DeletedBookRepository deletedBookRepository;
+    private long visibilityDelayMillis;
+    private long tombstoneRetentionDays;
+    private long rereadWindowMillis;
+
+    public BookSyncServiceImpl(BookRepository bookRepository, DeletedBookRepository deletedBookRepository,
+                               @Value("${library.sync.visibility-delay-ms:1000}") long visibilityDelayMillis,
+                               @Value("${library.sync.tombstone-retention-days:30}") long tombstoneRetentionDays,
+                               @Value("${library.sync.reread-window-ms:10000}") long rereadWindowMillis) {
+        this.bookRepository = bookRepository;
+        this.deletedBookRepository = deletedBookRepository;
+        this.visibilityDelayMillis = visibilityDelayMillis;
+        this.tombstoneRetentionDays = tombstoneRetentionDays;
+        this.rereadWindowMillis = rereadWindowMillis;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookChanges findChangesSince(String watermark, int limit) {
+        return changesSince(null, watermark, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookChanges findChangesSince(String tenantId, String watermark, int limit) {
+        BookChanges changes = changesSince(tenantId, watermark, limit);
+        if (watermark == null || watermark.isEmpty() || rereadWindowMillis <= 0) {
+            return changes;
+        }
+        return withReread(tenantId, parse(watermark), limit, changes);
+    }
+
+    /**
+     * Junta a pagina com o que foi confirmado na janela anterior a marca d'agua recebida. A
+     * marca d'agua e o hasMore continuam os da pagina, entao a paginacao sempre avanca.
+     */
+    private BookChanges withReread(String tenantId, long[] from, int limit, BookChanges changes) {
+        Instant since = Instant.ofEpochMilli(Math.max(0L, from[0] - rereadWindowMillis));
+        Instant until = Instant.ofEpochMilli(from[0]);
+        PageRequest page = PageRequest.of(0, limit);
+
+        Set<Long> delivered = new HashSet<>();
+        changes.getChanged().forEach(book -> delivered.add(book.getId()));
+        changes.getDeleted().forEach(tombstone -> delivered.add(tombstone.getBookId()));
+
+        List<Book> changed = new ArrayList<>();
+        for (Book book : bookRepository.findTenantChangedSince(tenantId, since, 0L, until, page)) {
+            //depois da marca d'agua o registro e da pagina, atual ou seguinte
+            if (isAtOrBefore(book.getUpdatedAt(), book.getId(), from) && delivered.add(book.getId())) {
+                changed.add(book);
+            }
+        }
+        changed.addAll(changes.getChanged());
+
+        List<DeletedBook> deleted = new ArrayList<>();
+        for (DeletedBook tombstone : deletedBookRepository.findTenantDeletedSince(tenantId, since, 0L, until, page)) {
+            if (isAtOrBefore(tombstone.getDeletedAt(), tombstone.getBookId(), from) && delivered.add(tombstone.getBookId())) {
+                deleted.add(tombstone);
+            }
+        }
+        deleted.addAll(changes.getDeleted());
+
+        return new BookChanges(changed, deleted, changes.getWatermark(), changes.isHasMore());
+    }
+
+    private BookChanges changesSince(String tenantId, String watermark, int limit) {
+        long[] from = parse(watermark == null || watermark.isEmpty() ? INITIAL_WATERMARK : watermark);
+        Instant since = Instant.ofEpochMilli(from[0]);
+        Long afterId = from[1];
+
+        //lapides mais antigas que a retencao ja foram apagadas: o cliente precisa recomecar do zero
+        if (from[0] > 0 && since.isBefore(Instant.now().minus(tombstoneRetentionDays, ChronoUnit.DAYS))) {
+            throw new BusinessException("Watermark expired, a full sync is required");
+        }
+
+        //registros muito recentes podem pertencer a transacoes ainda nao confirmadas
+        Instant visibleBefore = Instant.now().minusMillis(visibilityDelayMillis);
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<Book> books = tenantId == null
+                ? bookRepository.findChangedSince(since, afterId, visibleBefore, page)
+                : bookRepository.findTenantChangedSince(tenantId, since, afterId, visibleBefore, page);
+        List<DeletedBook> tombstones = tenantId == null
+                ? deletedBookRepository.findDeletedSince(since, afterId, visibleBefore, page)
+                : deletedBookRepository.findTenantDeletedSince(tenantId, since, afterId, visibleBefore, page);
+
+        List<Book> changed = new ArrayList<>();
+        List<DeletedBook> deleted = new ArrayList<>();
+        long lastMillis = from[0];
+        long lastId = from[1];
+        int i = 0;
+        int j = 0;
+
+        while (changed.size() + deleted.size() < limit && (i < books.size() || j < tombstones.size())) {
+            boolean takeBook = j == tombstones.size()
+                    || (i < books.size() && compare(books.get(i), tombstones.get(j)) < 0);
+
+            if (takeBook) {
+                Book book = books.get(i++);
+                changed.add(book);
+                lastMillis = book.getUpdatedAt().toEpochMilli();
+                lastId = book.getId();
+            } else {
+                DeletedBook tombstone = tombstones.get(j++);
+                deleted.add(tombstone);
+                lastMillis = tombstone.getDeletedAt().toEpochMilli();
+                lastId = tombstone.getBookId();
+            }
+        }
+
+        boolean hasMore = i < books.size() || j < tombstones.size();
+        return new BookChanges(changed, deleted, lastMillis + ":" + lastId, hasMore);
+    }
+
+    @Override
+    public String rewind(String watermark, long windowMillis) {
+        if (watermark == null || watermark.isEmpty()) {
+            return watermark;
+        }
+        long[] from = parse(watermark);
+        return Math.max(0L, from[0] - windowMillis) + ":0";
+    }
+
+    @Override
+    public String watermarkAt(Instant instant) {
+        return instant.toEpochMilli() + ":0";
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        Book book = event.getBook();
+        if (event.getType() != BookChangedEvent.Type.DELETED || book == null || book.getId() == null) {
+            return;
+        }
+
+        deletedBookRepository.save(DeletedBook.builder()
+                .bookId(book.getId())
+                .tenantId(book.getTenantId() != null ? book.getTenantId() : TenantContext.DEFAULT_TENANT)
+                .isbn(book.getIsbn())
+                .deletedAt(Instant.now().truncatedTo(ChronoUnit.MILLIS))
+                .build());
+    }
+
+    @Scheduled(fixedDelayString = "${library.sync.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void purgeTombstones() {
+        deletedBookRepository.deleteDeletedBefore(Instant.now().minus(tombstoneRetentionDays, ChronoUnit.DAYS));
+    }
+
+    private static boolean isAtOrBefore(Instant at, Long id, long[] watermark) {
+        long millis = at.toEpochMilli();
+        return millis < watermark[0] || (millis == watermark[0] && id <= watermark[1]);
+    }
+
+    private static int compare(Book book, DeletedBook tombstone) {
+        int byTime = book.getUpdatedAt().compareTo(tombstone.getDeletedAt());
+        return byTime != 0 ? byTime : book.getId().compareTo(tombstone.getBookId());
+    }
+
+    private static long[] parse(String watermark) {
+        String[] parts = watermark.split(":");
+        try {
+            if (parts.length != 2) {
+                throw new NumberFormatException(watermark);
+            }
+            return new long[]{ Long.parseLong(parts[0]), Long.parseLong(parts[1]) };
+        } catch (NumberFormatException e) {
+            throw new BusinessException("Invalid watermark");
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.allan.libraryapi.service.impl;
+
+import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.Loan;
+import com.allan.libraryapi.model.entity.OutboxEvent;
+import com.allan.libraryapi.model.entity.OutboxSequence;
+import com.allan.libraryapi.model.repository.OutboxEventRepository;
+import com.allan.libraryapi.model.repository.OutboxSequenceRepository;
+import com.allan.libraryapi.service.ChangeEventService;
+import com.allan.libraryapi.service.event.BookChangedEvent;
+import com.allan.libraryapi.service.event.LoanChangedEvent;
+import com.allan.libraryapi.tenant.TenantContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grava no outbox cada alteracao de livro e emprestimo. Os listeners rodam na transacao
+ * do BookService/LoanService, entao o evento so existe se a escrita for confirmada.
+ *
+ * Logo antes do commit a transacao trava a linha do OutboxSequence e numera os seus eventos
+ * (position). A trava so e solta no commit, entao as posicoes ficam visiveis na ordem de commit
+ * e sem buracos: quem le por posicao nunca pula um evento de uma transacao mais lenta. O preco
+ * e serializar o trecho final das transacoes que gravam eventos; por isso a numeracao fica para
+ * o beforeCommit, depois de todas as outras travas da transacao.
+ *
+ * O OutboxRelay apaga os eventos antigos. Um cliente do feed cuja posicao ja passou pela
+ * limpeza perderia eventos em silencio, entao recebe um erro e precisa recomecar do zero.
+ */
+@Slf4j
+@Service
+public class ChangeEventServiceImpl implements ChangeEventService {
+
+    public static final String BOOK = "BOOK";
+    public static final String LOAN = "LOAN";
+
+    private OutboxEventRepository repository;
+    private OutboxSequenceRepository sequenceRepository;
+    private ObjectMapper objectMapper;
+
+    public ChangeEventServiceImpl(OutboxEventRepository repository, OutboxSequenceRepository sequenceRepository,
+                                  ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.sequenceRepository = sequenceRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    //cria a linha do contador antes de o servidor aceitar requisicoes; outra instancia pode ter criado antes
+    @PostConstruct
+    public void createSequence() {
+        if (sequenceRepository.existsById(OutboxSequence.ID)) {
+            return;
+        }
+        try {
+            sequenceRepository.save(OutboxSequence.builder().id(OutboxSequence.ID).lastPosition(0L).build());
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Outbox sequence already created by another instance");
+        }
+    }
+
+    @Override
+    public List<OutboxEvent> findSince(Long since, int limit) {
+        return repository.findByPositionGreaterThanOrderByPositionAsc(since == null ? 0L : since, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<OutboxEvent> findSince(String tenantId, Long since, int limit) {
+        List<OutboxEvent> events = repository.findByTenantIdAndPositionGreaterThanOrderByPositionAsc(tenantId,
+                since == null ? 0L : since, PageRequest.of(0, limit));
+        //conferido depois da leitura: uma limpeza que rodou antes dela aparece aqui
+        if (since != null && since > 0 && since + 1 < oldestRetainedPosition()) {
+            throw new BusinessException("Position expired, a full resync is required");
+        }
+        return events;
+    }
+
+    //com o outbox vazio, tudo ate a ultima posicao dada ja foi apagado
+    private long oldestRetainedPosition() {
+        Long oldest = repository.findMinPosition();
+        if (oldest != null) {
+            return oldest;
+        }
+        return sequenceRepository.findById(OutboxSequence.ID)
+                .map(sequence -> sequence.getLastPosition() + 1)
+                .orElse(1L);
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        Book book = event.getBook();
+        if (book == null || book.getId() == null) {
+            return;
+        }
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", book.getId());
+        payload.put("title", book.getTitle());
+        payload.put("author", book.getAuthor());
+        payload.put("isbn", book.getIsbn());
+
+        record(book.getTenantId(), BOOK, book.getId(), event.getType().name(), payload);
+    }
+
+    @EventListener
+    public void onLoanChanged(LoanChangedEvent event) {
+        Loan loan = event.getLoan();
+        if (loan == null || loan.getId() == null) {
+            return;
+        }
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", loan.getId());
+        payload.put("customer", loan.getCustomer());
+        payload.put("bookId", loan.getBook() == null ? null : loan.getBook().getId());
+        payload.put("isbn", loan.getBook() == null ? null : loan.getBook().getIsbn());
+        payload.put("title", loan.getBook() == null ? null : loan.getBook().getTitle());
+        payload.put("author", loan.getBook() == null ? null : loan.getBook().getAuthor());
+        payload.put("loanDate", loan.getLoanDate() == null ? null : loan.getLoanDate().toString());
+        payload.put("returned", loan.getReturned());
+
+        record(loan.getTenantId(), LOAN, loan.getId(), event.getType().name(), payload);
+    }
+
+    private void record(String tenantId, String aggregateType, Long aggregateId, String type, Map<String, Object> payload) {
+        OutboxEvent event;
+        try {
+            event = OutboxEvent.builder()
+                    .tenantId(tenantId != null ? tenantId : TenantContext.DEFAULT_TENANT)
+                    .aggregateType(aggregateType)
+                    .aggregateId(aggregateId)
+                    .type(type)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .createdAt(LocalDateTime.now())
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize change event payload", e);
+        }
+        unnumberedEvents().add(repository.save(event));
+    }
+
+    //eventos desta transacao ainda sem posicao; o primeiro registra a numeracao no beforeCommit
+    @SuppressWarnings("unchecked")
+    private List<OutboxEvent> unnumberedEvents() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Change events must be recorded inside a transaction");
+        }
+
+        List<OutboxEvent> events = (List<OutboxEvent>) TransactionSynchronizationManager.getResource(this);
+        if (events == null) {
+            List<OutboxEvent> created = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    number(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeEventServiceImpl.this);
+                }
+            });
+            events = created;
+        }
+        return events;
+    }
+
+    private void number(List<OutboxEvent> events) {
+        OutboxSequence sequence = sequenceRepository.findByIdForUpdate(OutboxSequence.ID)
+                .orElseThrow(() -> new IllegalStateException("Outbox sequence row is missing"));
+
+        long position = sequence.getLastPosition();
+        for (OutboxEvent event : events) {
+            event.setPosition(++position);
+        }
+        sequence.setLastPosition(position);
+    }
+}
@@ -0,0 +1,137 @@
+package com.allan.libraryapi.service.impl;
+
+import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.Hold;
+import com.allan.libraryapi.model.entity.Loan;
+import com.allan.libraryapi.model.repository.BookRepository;
+import com.allan.libraryapi.model.repository.HoldRepository;
+import com.allan.libraryapi.model.repository.LoanRepository;
+import com.allan.libraryapi.service.HoldService;
+import com.allan.libraryapi.service.LoanService;
+import com.allan.libraryapi.service.event.LoanChangedEvent;
+import com.allan.libraryapi.tenant.TenantContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Fila de reservas por livro.
+ *
+ * Toda alteracao na fila de um livro trava a linha desse livro (select for update), entao
+ * reservar, cancelar e atender na devolucao sao serializados por livro e nunca entre livros
+ * diferentes. Como o livro so fica livre quando a fila esta vazia, ninguem fura a fila
+ * pelo POST /api/loans.
+ */
+@Service
+public class HoldServiceImpl implements HoldService {
+
+    private HoldRepository repository;
+    private BookRepository bookRepository;
+    private LoanRepository loanRepository;
+    private LoanService loanService;
+
+    public HoldServiceImpl(HoldRepository repository, BookRepository bookRepository,
+                           LoanRepository loanRepository, LoanService loanService) {
+        this.repository = repository;
+        this.bookRepository = bookRepository;
+        this.loanRepository = loanRepository;
+        this.loanService = loanService;
+    }
+
+    @Override
+    @Transactional
+    public Hold place(Hold hold) {
+        Book book = lock(hold.getBook());
+
+        if(!loanRepository.existsByBookAndNotReturned(book)) {
+            throw new BusinessException("Book available for loan");
+        }
+        if(repository.existsByBookAndCustomerAndStatus(book, hold.getCustomer(), Hold.Status.WAITING)) {
+            throw new BusinessException("Customer already holds this book");
+        }
+
+        hold.setBook(book);
+        hold.setStatus(Hold.Status.WAITING);
+        hold.setCreatedAt(Instant.now());
+        return repository.save(hold);
+    }
+
+    @Override
+    @Transactional
+    public Hold cancel(Hold hold) {
+        lock(hold.getBook());
+
+        Hold current = repository.findById(hold.getId())
+                .orElseThrow(() -> new BusinessException("Hold not found"));
+        if(current.getStatus() != Hold.Status.WAITING) {
+            throw new BusinessException("Hold is not waiting");
+        }
+
+        current.setStatus(Hold.Status.CANCELLED);
+        return repository.save(current);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Hold> getById(Long id) {
+        String tenantId = TenantContext.current();
+        return repository.findById(id).filter(hold -> tenantId.equals(hold.getBook().getTenantId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Hold> getQueue(Book book) {
+        return repository.findByBookAndStatusOrderByIdAsc(book, Hold.Status.WAITING);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Hold> getWaitingByCustomer(String customer) {
+        return repository.findByBookTenantIdAndCustomerAndStatusOrderByIdAsc(TenantContext.current(), customer,
+                Hold.Status.WAITING);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getPosition(Hold hold) {
+        return repository.countByBookAndStatusAndIdLessThan(hold.getBook(), Hold.Status.WAITING, hold.getId()) + 1;
+    }
+
+    //roda na transacao da devolucao: o livro so volta a ficar livre se ninguem estiver esperando
+    @EventListener
+    @Transactional
+    public void onLoanChanged(LoanChangedEvent event) {
+        Loan returned = event.getLoan();
+        if(event.getType() != LoanChangedEvent.Type.RETURNED || returned.getBook() == null) {
+            return;
+        }
+
+        Book book = lock(returned.getBook());
+        if(loanRepository.existsByBookAndNotReturned(book)) {
+            return;
+        }
+
+        repository.findFirstByBookAndStatusOrderByIdAsc(book, Hold.Status.WAITING).ifPresent(hold -> {
+            Loan loan = loanService.save(Loan.builder()
+                    .book(book)
+                    .customer(hold.getCustomer())
+                    .loanDate(LocalDate.now())
+                    .build());
+
+            hold.setStatus(Hold.Status.FULFILLED);
+            hold.setLoanId(loan.getId());
+            repository.save(hold);
+        });
+    }
+
+    private Book lock(Book book) {
+        return bookRepository.findByIdForUpdate(book.getId())
+                .orElseThrow(() -> new BusinessException("Book not found"));
+    }
+}
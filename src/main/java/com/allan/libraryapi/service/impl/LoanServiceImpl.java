@@ -0,0 +1,133 @@
+package com.allan.libraryapi.service.impl;
+
+import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.model.entity.ArchivedLoan;
+import com.allan.libraryapi.model.entity.Loan;
+import com.allan.libraryapi.model.repository.ArchivedLoanRepository;
+import com.allan.libraryapi.model.repository.BookRepository;
+import com.allan.libraryapi.model.repository.LoanRepository;
+import com.allan.libraryapi.service.LoanService;
+import com.allan.libraryapi.service.event.LoanChangedEvent;
+import com.allan.libraryapi.tenant.TenantContext;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A tabela loan guarda so os emprestimos em aberto: na devolucao o emprestimo vai para
+ * loan_history na mesma transacao, e as consultas por id ou por cliente sao roteadas para a
+ * tabela certa. O LoanArchiver move o que ainda estiver devolvido na tabela loan.
+ *
+ * As consultas ficam restritas ao tenant da requisicao (TenantContext).
+ */
+@Service
+public class LoanServiceImpl implements LoanService {
+
+    static final BusinessException BOOK_ALREADY_LOANED = new BusinessException("Book already loaned");
+    static final BusinessException LOAN_ARCHIVED = new BusinessException("Loan already returned and archived");
+
+    private LoanRepository repository;
+    private ArchivedLoanRepository archivedRepository;
+    private BookRepository bookRepository;
+    private ApplicationEventPublisher eventPublisher;
+
+    public LoanServiceImpl(LoanRepository repository, ArchivedLoanRepository archivedRepository,
+                           BookRepository bookRepository, ApplicationEventPublisher eventPublisher) {
+        this.repository = repository;
+        this.archivedRepository = archivedRepository;
+        this.bookRepository = bookRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional
+    public Loan save(Loan loan) {
+        //com o livro travado, um segundo emprestimo do mesmo livro espera este commit e entao ve o emprestimo aberto
+        if(loan.getBook() != null && loan.getBook().getId() != null) {
+            bookRepository.findByIdForUpdate(loan.getBook().getId());
+        }
+        if(repository.existsByBookAndNotReturned(loan.getBook())) {
+            throw BOOK_ALREADY_LOANED;
+        }
+
+        if(loan.getReturned() == null) {
+            loan.setReturned(false);
+        }
+        //o emprestimo e da filial do livro, mesmo quando vem da fila de reservas
+        loan.setTenantId(loan.getBook() != null ? loan.getBook().getTenantId() : TenantContext.current());
+
+        Loan savedLoan = repository.save(loan);
+        eventPublisher.publishEvent(new LoanChangedEvent(LoanChangedEvent.Type.CREATED, savedLoan));
+
+        return savedLoan;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Loan> getById(Long id) {
+        String tenantId = TenantContext.current();
+        Optional<Loan> loan = repository.findById(id);
+        if(loan.isPresent()) {
+            return loan.filter(open -> tenantId.equals(open.getTenantId()));
+        }
+        return archivedRepository.findById(id)
+                .filter(archived -> tenantId.equals(archived.getTenantId()))
+                .map(ArchivedLoan::toLoan);
+    }
+
+    @Override
+    @Transactional
+    public Loan update(Loan loan) {
+        if(archivedRepository.existsById(loan.getId())) {
+            //devolver de novo nao muda nada; reabrir um emprestimo arquivado nao e permitido
+            if(Boolean.TRUE.equals(loan.getReturned())) {
+                return loan;
+            }
+            throw LOAN_ARCHIVED;
+        }
+
+        if(!Boolean.TRUE.equals(loan.getReturned())) {
+            return repository.save(loan);
+        }
+
+        //com a linha travada, a devolucao concorrente espera esta terminar e depois nao encontra mais o
+        //emprestimo na tabela loan (ou ja o encontra no historico): repetir a devolucao nao faz nada
+        Optional<Loan> stored = repository.findByIdForUpdate(loan.getId());
+        if(!stored.isPresent() || archivedRepository.existsById(loan.getId())) {
+            return loan;
+        }
+
+        //um emprestimo que ja estava devolvido (esperando o LoanArchiver) e arquivado sem outro evento
+        boolean alreadyReturned = Boolean.TRUE.equals(stored.get().getReturned());
+
+        archivedRepository.save(ArchivedLoan.of(loan, LocalDateTime.now()));
+        repository.deleteById(loan.getId());
+        if(!alreadyReturned) {
+            eventPublisher.publishEvent(new LoanChangedEvent(LoanChangedEvent.Type.RETURNED, loan));
+        }
+
+        return loan;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Loan> getOpenByCustomer(String customer) {
+        return repository.findOpenByCustomer(TenantContext.current(), customer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Loan> getHistoryByCustomer(String customer, Pageable pageable) {
+        //a ordem e fixa (devolucao mais recente primeiro) para usar o indice do historico
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        return archivedRepository.findByTenantIdAndCustomerOrderByArchivedAtDescIdDesc(TenantContext.current(), customer, page)
+                .map(ArchivedLoan::toLoan);
+    }
+}
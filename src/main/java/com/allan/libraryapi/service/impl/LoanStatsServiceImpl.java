@@ -0,0 +1,57 @@
+package com.allan.libraryapi.service.impl;
+
+import com.allan.libraryapi.model.entity.AuthorLoanStats;
+import com.allan.libraryapi.model.entity.CustomerLoanStats;
+import com.allan.libraryapi.model.entity.MonthlyBookLoanStats;
+import com.allan.libraryapi.model.repository.AuthorLoanStatsRepository;
+import com.allan.libraryapi.model.repository.CustomerLoanStatsRepository;
+import com.allan.libraryapi.model.repository.MonthlyBookLoanStatsRepository;
+import com.allan.libraryapi.service.LoanStatsService;
+import com.allan.libraryapi.tenant.TenantContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Leituras das estatisticas pre-calculadas pelo LoanStatsProjector: busca por chave ou
+ * top-N pelo indice (tenant, month, loans), sem agregar a tabela de emprestimos. As leituras
+ * ficam restritas ao tenant da requisicao (TenantContext).
+ */
+@Service
+@Transactional(readOnly = true)
+public class LoanStatsServiceImpl implements LoanStatsService {
+
+    private CustomerLoanStatsRepository customerRepository;
+    private AuthorLoanStatsRepository authorRepository;
+    private MonthlyBookLoanStatsRepository monthlyBookRepository;
+
+    public LoanStatsServiceImpl(CustomerLoanStatsRepository customerRepository,
+                                AuthorLoanStatsRepository authorRepository,
+                                MonthlyBookLoanStatsRepository monthlyBookRepository) {
+        this.customerRepository = customerRepository;
+        this.authorRepository = authorRepository;
+        this.monthlyBookRepository = monthlyBookRepository;
+    }
+
+    @Override
+    public CustomerLoanStats getCustomerStats(String customer) {
+        String tenantId = TenantContext.current();
+        return customerRepository.findById(CustomerLoanStats.idOf(tenantId, customer))
+                .orElseGet(() -> CustomerLoanStats.builder().tenantId(tenantId).customer(customer).build());
+    }
+
+    @Override
+    public AuthorLoanStats getAuthorStats(String author) {
+        String tenantId = TenantContext.current();
+        return authorRepository.findById(AuthorLoanStats.idOf(tenantId, author))
+                .orElseGet(() -> AuthorLoanStats.builder().tenantId(tenantId).author(author).build());
+    }
+
+    @Override
+    public List<MonthlyBookLoanStats> getMostBorrowedBooks(String month, int limit) {
+        return monthlyBookRepository.findByTenantIdAndMonthOrderByLoansDesc(TenantContext.current(), month,
+                PageRequest.of(0, limit));
+    }
+}
@@ -0,0 +1,14 @@
+package com.allan.libraryapi.service.outbox;
+
+import com.allan.libraryapi.model.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destino dos eventos do outbox. Deve lancar excecao se o lote nao foi entregue: o relay
+ * entao mantem os eventos pendentes e tenta de novo no proximo ciclo.
+ */
+public interface ChangeEventSink {
+
+    void publish(List<OutboxEvent> events);
+}
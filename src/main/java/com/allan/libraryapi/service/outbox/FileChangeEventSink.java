@@ -0,0 +1,49 @@
+package com.allan.libraryapi.service.outbox;
+
+import com.allan.libraryapi.model.entity.OutboxEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Acrescenta cada lote como linhas JSON num arquivo local.
+ */
+@Component
+@ConditionalOnProperty(name = "library.outbox.sink", havingValue = "file")
+public class FileChangeEventSink implements ChangeEventSink {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileChangeEventSink(@Value("${library.outbox.file:changes.jsonl}") String file, ObjectMapper objectMapper) {
+        this.file = Paths.get(file);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (OutboxEvent event : events) {
+                writer.write(objectMapper.writeValueAsString(event));
+                writer.write('\n');
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize change event", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write change events to " + file, e);
+        }
+    }
+}
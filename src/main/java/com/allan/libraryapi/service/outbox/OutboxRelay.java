@@ -0,0 +1,72 @@
+package com.allan.libraryapi.service.outbox;
+
+import com.allan.libraryapi.model.entity.OutboxEvent;
+import com.allan.libraryapi.model.repository.OutboxEventRepository;
+import com.allan.libraryapi.model.repository.ProjectionCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Publica os eventos pendentes do outbox em lotes, na ordem em que foram gravados.
+ * Se o sink falhar a transacao volta e o lote e reenviado no proximo ciclo (entrega
+ * pelo menos uma vez).
+ *
+ * A limpeza apaga os publicados ha mais de retentionHours, mas nunca depois do checkpoint da
+ * projecao mais atrasada: uma projecao parada segura os eventos que ainda vai ler.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository repository;
+    private final ProjectionCheckpointRepository checkpointRepository;
+    private final ChangeEventSink sink;
+    private final int batchSize;
+    private final long retentionHours;
+
+    public OutboxRelay(OutboxEventRepository repository, ProjectionCheckpointRepository checkpointRepository,
+                       ChangeEventSink sink,
+                       @Value("${library.outbox.batch-size:500}") int batchSize,
+                       @Value("${library.outbox.retention-hours:24}") long retentionHours) {
+        this.repository = repository;
+        this.checkpointRepository = checkpointRepository;
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.retentionHours = retentionHours;
+    }
+
+    @Scheduled(fixedDelayString = "${library.outbox.relay-interval-ms:1000}")
+    @Transactional
+    public int relay() {
+        List<OutboxEvent> pending = repository.findByPublishedAtIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        sink.publish(pending);
+
+        LocalDateTime now = LocalDateTime.now();
+        pending.forEach(event -> event.setPublishedAt(now));
+        repository.saveAll(pending);
+
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${library.outbox.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void purgePublished() {
+        Long checkpoint = checkpointRepository.findMinLastPosition();
+        int removed = repository.deletePublishedBefore(LocalDateTime.now().minusHours(retentionHours),
+                checkpoint == null ? Long.MAX_VALUE : checkpoint);
+        if (removed > 0) {
+            log.info("Removed {} published outbox events", removed);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.allan.libraryapi.service.popularity;
+
+import com.allan.libraryapi.dto.PopularBookDTO;
+import com.allan.libraryapi.tenant.TenantContext;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ranking aproximado dos livros mais vistos e mais emprestados.
+ *
+ * As requisicoes so enfileiram o id do livro numa fila sem lock; um job agendado drena a fila
+ * para os sketches Space-Saving e publica um snapshot imutavel que o endpoint de ranking le.
+ * Cada janela usa decaimento exponencial com a meia-vida da janela (forward decay: o peso de
+ * um evento cresce com o tempo e o sketch e reescalado antes de estourar o double).
+ *
+ * Cada tenant tem as suas filas, sketches e snapshot, com library.popularity.capacity contadores
+ * por sketch; o ranking devolvido e o do tenant da requisicao.
+ */
+@Component
+public class BookPopularityTracker {
+
+    public static final String DROPPED_METRIC = "library.popularity.dropped";
+
+    private static final double MAX_WEIGHT = 1e12;
+
+    public enum Metric {
+        VIEWS, LOANS
+    }
+
+    public enum Window {
+        HOUR(Duration.ofHours(1)), DAY(Duration.ofDays(1));
+
+        private final Duration halfLife;
+
+        Window(Duration halfLife) {
+            this.halfLife = halfLife;
+        }
+    }
+
+    private final int capacity;
+    private final int maxPending;
+    private final int snapshotSize;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ConcurrentMap<String, Tenant> tenants = new ConcurrentHashMap<>();
+
+    public BookPopularityTracker(@Value("${library.popularity.capacity:1000}") int capacity,
+                                 @Value("${library.popularity.max-pending:100000}") int maxPending,
+                                 @Value("${library.popularity.snapshot-size:100}") int snapshotSize) {
+        this.capacity = capacity;
+        this.maxPending = maxPending;
+        this.snapshotSize = snapshotSize;
+    }
+
+    public void record(Metric metric, Long bookId) {
+        if (bookId == null) {
+            return;
+        }
+        //sob pico a fila e limitada: perder amostras so deixa o ranking menos preciso
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            Metrics.counter(DROPPED_METRIC, "metric", metric.name()).increment();
+            return;
+        }
+        tenants.computeIfAbsent(TenantContext.current(), tenant -> new Tenant(System.currentTimeMillis()))
+                .queues.get(metric).offer(bookId);
+    }
+
+    public List<PopularBookDTO> ranking(Metric metric, Window window, int limit) {
+        Tenant tenant = tenants.get(TenantContext.current());
+        Map<Window, List<PopularBookDTO>> windows = tenant == null ? null : tenant.snapshot.get(metric);
+        List<PopularBookDTO> ranking = windows == null ? null : windows.get(window);
+        if (ranking == null) {
+            return Collections.emptyList();
+        }
+        return ranking.size() > limit ? ranking.subList(0, limit) : ranking;
+    }
+
+    @Scheduled(fixedDelayString = "${library.popularity.drain-interval-ms:200}")
+    public synchronized void drain() {
+        long now = System.currentTimeMillis();
+        for (Tenant tenant : tenants.values()) {
+            drain(tenant, now);
+        }
+    }
+
+    private void drain(Tenant tenant, long now) {
+        Map<Metric, Map<Window, List<PopularBookDTO>>> next = new EnumMap<>(Metric.class);
+
+        for (Metric metric : Metric.values()) {
+            Queue<Long> queue = tenant.queues.get(metric);
+            Map<Window, DecayedSketch> windows = tenant.sketches.get(metric);
+            for (DecayedSketch sketch : windows.values()) {
+                sketch.prepare(now);
+            }
+
+            Long bookId;
+            while ((bookId = queue.poll()) != null) {
+                pending.decrementAndGet();
+                for (DecayedSketch sketch : windows.values()) {
+                    sketch.offer(bookId);
+                }
+            }
+
+            Map<Window, List<PopularBookDTO>> rankings = new EnumMap<>(Window.class);
+            for (Map.Entry<Window, DecayedSketch> entry : windows.entrySet()) {
+                rankings.put(entry.getKey(), Collections.unmodifiableList(entry.getValue().top(snapshotSize, now)));
+            }
+            next.put(metric, rankings);
+        }
+
+        tenant.snapshot = next;
+    }
+
+    private final class Tenant {
+
+        private final Map<Metric, Queue<Long>> queues = new EnumMap<>(Metric.class);
+        private final Map<Metric, Map<Window, DecayedSketch>> sketches = new EnumMap<>(Metric.class);
+        private volatile Map<Metric, Map<Window, List<PopularBookDTO>>> snapshot = Collections.emptyMap();
+
+        Tenant(long now) {
+            for (Metric metric : Metric.values()) {
+                queues.put(metric, new ConcurrentLinkedQueue<>());
+                Map<Window, DecayedSketch> windows = new EnumMap<>(Window.class);
+                for (Window window : Window.values()) {
+                    windows.put(window, new DecayedSketch(window.halfLife.toMillis(), now));
+                }
+                sketches.put(metric, windows);
+            }
+        }
+    }
+
+    private final class DecayedSketch {
+
+        private final double halfLifeMillis;
+        private final SpaceSaving sketch = new SpaceSaving(capacity);
+        private long landmark;
+        private double weight = 1;
+
+        DecayedSketch(long halfLifeMillis, long landmark) {
+            this.halfLifeMillis = halfLifeMillis;
+            this.landmark = landmark;
+        }
+
+        //peso dos eventos deste ciclo; reescala o sketch quando o peso fica grande demais
+        void prepare(long now) {
+            weight = weightAt(now);
+            if (weight > MAX_WEIGHT) {
+                sketch.scale(1 / weight);
+                landmark = now;
+                weight = 1;
+            }
+        }
+
+        void offer(long bookId) {
+            sketch.offer(bookId, weight);
+        }
+
+        List<PopularBookDTO> top(int limit, long now) {
+            double decay = weightAt(now);
+            List<PopularBookDTO> result = new ArrayList<>();
+            for (SpaceSaving.Counter counter : sketch.top(limit)) {
+                result.add(new PopularBookDTO(counter.getKey(), counter.getCount() / decay, counter.getError() / decay));
+            }
+            return result;
+        }
+
+        private double weightAt(long now) {
+            return Math.pow(2, (now - landmark) / halfLifeMillis);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.allan.libraryapi.service.popularity;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Sketch Space-Saving (Metwally et al.): guarda no maximo {@code capacity} contadores e, quando
+ * chega uma chave nova com o sketch cheio, ela herda o contador do menos frequente. Qualquer
+ * chave com frequencia acima de total/capacity esta garantidamente no sketch, e o valor de
+ * {@code error} e o quanto o contador pode estar superestimado.
+ *
+ * Nao e thread-safe: e alimentado por uma unica thread (ver BookPopularityTracker).
+ */
+public class SpaceSaving {
+
+    private static final Comparator<Counter> BY_COUNT = Comparator
+            .comparingDouble((Counter counter) -> counter.count)
+            .thenComparingLong(counter -> counter.key);
+
+    private final int capacity;
+    private final Map<Long, Counter> counters;
+    private final TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void offer(long key, double weight) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count += weight;
+            byCount.add(counter);
+            return;
+        }
+
+        if (counters.size() < capacity) {
+            counter = new Counter(key, weight, 0);
+        } else {
+            Counter min = byCount.pollFirst();
+            counters.remove(min.key);
+            counter = new Counter(key, min.count + weight, min.count);
+        }
+        counters.put(key, counter);
+        byCount.add(counter);
+    }
+
+    /**
+     * Multiplica todos os contadores pelo mesmo fator. A ordem relativa nao muda, mas o
+     * TreeSet e reconstruido para nao depender de comparacoes feitas antes do arredondamento.
+     */
+    public void scale(double factor) {
+        byCount.clear();
+        for (Counter counter : counters.values()) {
+            counter.count *= factor;
+            counter.error *= factor;
+            byCount.add(counter);
+        }
+    }
+
+    public List<Counter> top(int limit) {
+        List<Counter> result = new ArrayList<>(Math.min(limit, counters.size()));
+        Iterator<Counter> iterator = byCount.descendingIterator();
+        while (iterator.hasNext() && result.size() < limit) {
+            Counter counter = iterator.next();
+            result.add(new Counter(counter.key, counter.count, counter.error));
+        }
+        return result;
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    public static final class Counter {
+
+        private final long key;
+        private double count;
+        private double error;
+
+        Counter(long key, double count, double error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public double getCount() {
+            return count;
+        }
+
+        public double getError() {
+            return error;
+        }
+    }
+}
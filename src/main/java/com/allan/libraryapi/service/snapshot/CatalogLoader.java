@@ -0,0 +1,139 @@
+package com.allan.libraryapi.service.snapshot;
+
+import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.DeletedBook;
+import com.allan.libraryapi.model.repository.BookRepository;
+import com.allan.libraryapi.service.BookChanges;
+import com.allan.libraryapi.service.BookSyncService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Carga inicial do catalogo para os indices em memoria.
+ *
+ * Com snapshot, primeiro entrega as mudancas feitas no banco desde a marca d'agua do snapshot
+ * e depois os registros do snapshot, em ordem de id, pulando os que ja mudaram. Sem snapshot
+ * usavel le a tabela de livros em ordem de id. Ids em {@code changed} (alterados por eventos
+ * durante a carga) nunca sao sobrescritos.
+ */
+@Slf4j
+@Component
+public class CatalogLoader {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final BookSyncService bookSyncService;
+    private final CatalogSnapshotService snapshotService;
+
+    public CatalogLoader(BookRepository bookRepository, BookSyncService bookSyncService,
+                         CatalogSnapshotService snapshotService) {
+        this.bookRepository = bookRepository;
+        this.bookSyncService = bookSyncService;
+        this.snapshotService = snapshotService;
+    }
+
+    public interface Target {
+
+        //livro alterado no banco depois do snapshot; chega antes dos registros do snapshot
+        void changed(CatalogSnapshot.Entry entry);
+
+        void deleted(long bookId);
+
+        //registro da carga principal, em ordem crescente de id
+        void loaded(CatalogSnapshot.Entry entry);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final String source;
+        private final int loaded;
+    }
+
+    public Result load(Set<Long> changed, Target target) {
+        int loaded = loadFromSnapshot(changed, target);
+        if (loaded >= 0) {
+            return new Result("snapshot", loaded);
+        }
+        return new Result("database", loadFromDatabase(changed, target));
+    }
+
+    private int loadFromSnapshot(Set<Long> changed, Target target) {
+        try (CatalogSnapshot.Cursor snapshot = snapshotService.open()) {
+            if (snapshot == null) {
+                return -1;
+            }
+
+            int loaded = reconcile(snapshotService.changesSince(snapshot), changed, target);
+            for (CatalogSnapshot.Entry entry = snapshot.next(); entry != null; entry = snapshot.next()) {
+                if (!changed.contains(entry.getId())) {
+                    target.loaded(entry);
+                    loaded++;
+                }
+            }
+            return loaded;
+        } catch (BusinessException e) {
+            //marca d'agua expirada: nada foi entregue ainda, entao basta cair para o banco
+            log.info("Catalog snapshot is too old ({}), loading from database", e.getMessage());
+            return -1;
+        } catch (IOException e) {
+            log.warn("Could not read catalog snapshot, loading from database", e);
+            return -1;
+        }
+    }
+
+    private int reconcile(String watermark, Set<Long> changed, Target target) {
+        int applied = 0;
+        BookChanges page;
+        do {
+            page = bookSyncService.findChangesSince(watermark, PAGE_SIZE);
+            for (Book book : page.getChanged()) {
+                if (changed.add(book.getId())) {
+                    target.changed(entry(book));
+                    applied++;
+                }
+            }
+            for (DeletedBook tombstone : page.getDeleted()) {
+                if (changed.add(tombstone.getBookId())) {
+                    target.deleted(tombstone.getBookId());
+                }
+            }
+            watermark = page.getWatermark();
+        } while (page.isHasMore());
+
+        return applied;
+    }
+
+    private int loadFromDatabase(Set<Long> changed, Target target) {
+        long lastId = 0L;
+        int loaded = 0;
+        Slice<Book> slice;
+        do {
+            slice = bookRepository.findByIdGreaterThan(lastId, PageRequest.of(0, PAGE_SIZE, Sort.by("id")));
+            for (Book book : slice) {
+                if (!changed.contains(book.getId())) {
+                    target.loaded(entry(book));
+                }
+                lastId = book.getId();
+                loaded++;
+            }
+        } while (slice.hasNext());
+
+        return loaded;
+    }
+
+    public static CatalogSnapshot.Entry entry(Book book) {
+        return new CatalogSnapshot.Entry(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                book.getTenantId());
+    }
+}
@@ -0,0 +1,185 @@
+package com.allan.libraryapi.service.snapshot;
+
+import com.allan.libraryapi.service.catalog.BookView;
+import com.allan.libraryapi.tenant.TenantContext;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Formato binario do snapshot do catalogo.
+ *
+ * <pre>
+ *   int magic, int versao, string marca d'agua
+ *   registros: long id, string titulo, string autor, string isbn, string tenant   (ordenados por id)
+ *   long -1 (fim), int crc32 de tudo que vem antes
+ * </pre>
+ *
+ * Strings sao int tamanho (-1 para null) seguido dos bytes UTF-8. A escrita vai para um
+ * arquivo temporario que substitui o anterior com um move atomico; a leitura mapeia o arquivo
+ * em memoria e confere o CRC antes de entregar o primeiro registro.
+ */
+public final class CatalogSnapshot {
+
+    static final int MAGIC = 0x4c424b53;
+    static final int VERSION = 2;
+    private static final long END = -1L;
+
+    private CatalogSnapshot() {
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    public static class Entry implements BookView {
+        private final long id;
+        private final String title;
+        private final String author;
+        private final String isbn;
+        private final String tenantId;
+
+        public Entry(long id, String title, String author, String isbn) {
+            this(id, title, author, isbn, TenantContext.DEFAULT_TENANT);
+        }
+    }
+
+    public static int write(Path file, String watermark, Iterator<Entry> entries) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        int count = 0;
+
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, watermark);
+
+            while (entries.hasNext()) {
+                Entry entry = entries.next();
+                out.writeLong(entry.getId());
+                writeString(out, entry.getTitle());
+                writeString(out, entry.getAuthor());
+                writeString(out, entry.getIsbn());
+                writeString(out, entry.getTenantId());
+                count++;
+            }
+
+            out.writeLong(END);
+            out.writeInt((int) crc.getValue());
+        }
+
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * Abre o snapshot para leitura sequencial; IOException se o arquivo estiver truncado,
+     * corrompido ou em outra versao.
+     */
+    public static Cursor open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 20 || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid snapshot size " + size);
+            }
+            //o mapeamento continua valido depois de fechar o canal
+            return new Cursor(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public static final class Cursor implements Closeable {
+
+        private final ByteBuffer buffer;
+        private final String watermark;
+        private byte[] scratch = new byte[256];
+        private boolean finished;
+
+        Cursor(MappedByteBuffer mapped) throws IOException {
+            int dataLength = mapped.limit() - 4;
+            ByteBuffer data = mapped.duplicate();
+            data.limit(dataLength);
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            if ((int) crc.getValue() != mapped.getInt(dataLength)) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+
+            this.buffer = mapped.duplicate();
+            this.buffer.limit(dataLength);
+            try {
+                if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                    throw new IOException("Unsupported snapshot format");
+                }
+                this.watermark = readString();
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid snapshot header", e);
+            }
+        }
+
+        public String getWatermark() {
+            return watermark;
+        }
+
+        /**
+         * Proximo registro, ou null no fim do snapshot.
+         */
+        public Entry next() throws IOException {
+            if (finished) {
+                return null;
+            }
+            try {
+                long id = buffer.getLong();
+                if (id == END) {
+                    finished = true;
+                    return null;
+                }
+                return new Entry(id, readString(), readString(), readString(), readString());
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid snapshot record", e);
+            }
+        }
+
+        private String readString() {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() {
+            finished = true;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,236 @@
+package com.allan.libraryapi.service.snapshot;
+
+import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.DeletedBook;
+import com.allan.libraryapi.service.BookChanges;
+import com.allan.libraryapi.service.BookSyncService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Mantem em disco um snapshot do catalogo (id, titulo, autor, isbn, tenant) para aquecer os indices
+ * em memoria sem varrer a tabela de livros a cada restart.
+ *
+ * O snapshot e atualizado pela mesma marca d'agua da sincronizacao incremental: cada execucao
+ * le so o que mudou desde o snapshot anterior e intercala com ele por id, entao o banco so ve
+ * a carga completa na primeira vez (ou quando a marca d'agua expira). A leitura recomeca
+ * {@code reread-window-ms} antes da marca para pegar as linhas de transacoes que fizeram commit
+ * depois dela; as relidas que nao mudaram sao descartadas antes de decidir se ha o que gravar.
+ *
+ * Desligado por padrao; ao ligar, {@code library.snapshot.file} deve apontar para um diretorio
+ * de dados da aplicacao.
+ */
+@Slf4j
+@Service
+public class CatalogSnapshotService {
+
+    private final BookSyncService bookSyncService;
+    private final boolean enabled;
+    private final Path file;
+    private final int pageSize;
+    private final long rereadWindowMillis;
+
+    public CatalogSnapshotService(BookSyncService bookSyncService,
+                                  @Value("${library.snapshot.enabled:false}") boolean enabled,
+                                  @Value("${library.snapshot.file:catalog.snapshot}") String file,
+                                  @Value("${library.snapshot.page-size:1000}") int pageSize,
+                                  @Value("${library.snapshot.reread-window-ms:300000}") long rereadWindowMillis) {
+        this.bookSyncService = bookSyncService;
+        this.enabled = enabled;
+        this.file = Paths.get(file);
+        this.pageSize = pageSize;
+        this.rereadWindowMillis = rereadWindowMillis;
+    }
+
+    /**
+     * Snapshot atual, ou null se estiver desligado, nao existir ou nao puder ser lido.
+     */
+    public CatalogSnapshot.Cursor open() {
+        if (!enabled || !Files.exists(file)) {
+            return null;
+        }
+        try {
+            return CatalogSnapshot.open(file);
+        } catch (IOException e) {
+            log.warn("Ignoring catalog snapshot {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Marca d'agua de onde reler as mudancas posteriores ao snapshot, ja recuada pela janela de releitura.
+     */
+    public String changesSince(CatalogSnapshot.Cursor snapshot) {
+        return bookSyncService.rewind(snapshot.getWatermark(), rereadWindowMillis);
+    }
+
+    @Scheduled(fixedDelayString = "${library.snapshot.interval-ms:300000}",
+            initialDelayString = "${library.snapshot.interval-ms:300000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            int written = write();
+            if (written >= 0) {
+                log.info("Catalog snapshot written with {} books in {} ms", written, System.currentTimeMillis() - start);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not write catalog snapshot", e);
+        }
+    }
+
+    /**
+     * Grava um novo snapshot e devolve quantos livros ele tem, ou -1 se nada mudou.
+     */
+    int write() throws IOException {
+        try (CatalogSnapshot.Cursor previous = open()) {
+            Changes changes = previous == null ? null : readChangesOrNull(previous);
+            if (changes == null) {
+                Changes all = readChanges(null);
+                return CatalogSnapshot.write(file, all.watermark, all.merge(null));
+            }
+            try (CatalogSnapshot.Cursor current = open()) {
+                changes.dropUnchanged(current);
+            }
+            if (changes.isEmpty()) {
+                return -1;
+            }
+            return CatalogSnapshot.write(file, changes.watermark, changes.merge(previous));
+        }
+    }
+
+    private Changes readChangesOrNull(CatalogSnapshot.Cursor previous) {
+        try {
+            return readChanges(changesSince(previous));
+        } catch (BusinessException e) {
+            //marca d'agua expirada ou invalida: as lapides ja foram apagadas, recomeca do zero
+            log.info("Catalog snapshot watermark {} rejected: {}", previous.getWatermark(), e.getMessage());
+            return null;
+        }
+    }
+
+    private Changes readChanges(String watermark) {
+        Changes changes = new Changes(watermark);
+        BookChanges page;
+        do {
+            page = bookSyncService.findChangesSince(changes.watermark, pageSize);
+            for (Book book : page.getChanged()) {
+                changes.changed.put(book.getId(), CatalogLoader.entry(book));
+                changes.deleted.remove(book.getId());
+            }
+            for (DeletedBook tombstone : page.getDeleted()) {
+                changes.changed.remove(tombstone.getBookId());
+                changes.deleted.add(tombstone.getBookId());
+            }
+            changes.watermark = page.getWatermark();
+        } while (page.isHasMore());
+
+        return changes;
+    }
+
+    private static final class Changes {
+
+        private final TreeMap<Long, CatalogSnapshot.Entry> changed = new TreeMap<>();
+        private final Set<Long> deleted = new HashSet<>();
+        private String watermark;
+
+        Changes(String watermark) {
+            this.watermark = watermark;
+        }
+
+        boolean isEmpty() {
+            return changed.isEmpty() && deleted.isEmpty();
+        }
+
+        //tira as linhas relidas na janela que o snapshot ja tem iguais e as lapides de ids que ele nao tem
+        void dropUnchanged(CatalogSnapshot.Cursor snapshot) throws IOException {
+            Set<Long> present = new HashSet<>();
+            for (CatalogSnapshot.Entry entry = snapshot.next(); entry != null; entry = snapshot.next()) {
+                if (entry.equals(changed.get(entry.getId()))) {
+                    changed.remove(entry.getId());
+                } else if (deleted.contains(entry.getId())) {
+                    present.add(entry.getId());
+                }
+            }
+            deleted.retainAll(present);
+        }
+
+        //intercala por id o snapshot anterior com as mudancas, sem carregar o anterior inteiro
+        Iterator<CatalogSnapshot.Entry> merge(CatalogSnapshot.Cursor previous) {
+            Iterator<CatalogSnapshot.Entry> updates = changed.values().iterator();
+
+            return new Iterator<CatalogSnapshot.Entry>() {
+                private CatalogSnapshot.Entry old = readOld();
+                private CatalogSnapshot.Entry update = updates.hasNext() ? updates.next() : null;
+                private CatalogSnapshot.Entry pending;
+
+                @Override
+                public boolean hasNext() {
+                    if (pending == null) {
+                        pending = computeNext();
+                    }
+                    return pending != null;
+                }
+
+                @Override
+                public CatalogSnapshot.Entry next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    CatalogSnapshot.Entry next = pending;
+                    pending = null;
+                    return next;
+                }
+
+                private CatalogSnapshot.Entry computeNext() {
+                    while (old != null || update != null) {
+                        if (update == null || (old != null && old.getId() < update.getId())) {
+                            CatalogSnapshot.Entry next = old;
+                            old = readOld();
+                            if (!deleted.contains(next.getId())) {
+                                return next;
+                            }
+                            continue;
+                        }
+
+                        if (old != null && old.getId() == update.getId()) {
+                            old = readOld();
+                        }
+                        CatalogSnapshot.Entry next = update;
+                        update = updates.hasNext() ? updates.next() : null;
+                        return next;
+                    }
+                    return null;
+                }
+
+                private CatalogSnapshot.Entry readOld() {
+                    if (previous == null) {
+                        return null;
+                    }
+                    try {
+                        return previous.next();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+        }
+    }
+}
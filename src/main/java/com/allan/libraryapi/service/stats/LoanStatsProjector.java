@@ -0,0 +1,178 @@
+package com.allan.libraryapi.service.stats;
+
+import com.allan.libraryapi.model.entity.AuthorLoanStats;
+import com.allan.libraryapi.model.entity.CustomerLoanStats;
+import com.allan.libraryapi.model.entity.MonthlyBookLoanStats;
+import com.allan.libraryapi.model.entity.OutboxEvent;
+import com.allan.libraryapi.model.entity.ProjectionCheckpoint;
+import com.allan.libraryapi.model.repository.AuthorLoanStatsRepository;
+import com.allan.libraryapi.model.repository.CustomerLoanStatsRepository;
+import com.allan.libraryapi.model.repository.MonthlyBookLoanStatsRepository;
+import com.allan.libraryapi.model.repository.ProjectionCheckpointRepository;
+import com.allan.libraryapi.service.ChangeEventService;
+import com.allan.libraryapi.service.event.LoanChangedEvent;
+import com.allan.libraryapi.service.impl.ChangeEventServiceImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Mantem as estatisticas de emprestimo a partir dos eventos LOAN do outbox.
+ *
+ * Cada ciclo trava a linha do checkpoint (select for update), le os eventos seguintes pela
+ * posicao, que segue a ordem de commit, e grava agregados e checkpoint na mesma transacao.
+ * Com varias instancias a segunda espera a trava e comeca de onde a primeira parou, entao
+ * cada evento e aplicado uma vez so; os contadores nao disputam linhas com o checkout.
+ * Os agregados sao separados pelo tenant do evento.
+ */
+@Slf4j
+@Component
+public class LoanStatsProjector {
+
+    static final String NAME = "loan-stats";
+
+    private final ChangeEventService changeEventService;
+    private final ProjectionCheckpointRepository checkpointRepository;
+    private final CustomerLoanStatsRepository customerRepository;
+    private final AuthorLoanStatsRepository authorRepository;
+    private final MonthlyBookLoanStatsRepository monthlyBookRepository;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public LoanStatsProjector(ChangeEventService changeEventService,
+                              ProjectionCheckpointRepository checkpointRepository,
+                              CustomerLoanStatsRepository customerRepository,
+                              AuthorLoanStatsRepository authorRepository,
+                              MonthlyBookLoanStatsRepository monthlyBookRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${library.loan-stats.batch-size:500}") int batchSize) {
+        this.changeEventService = changeEventService;
+        this.checkpointRepository = checkpointRepository;
+        this.customerRepository = customerRepository;
+        this.authorRepository = authorRepository;
+        this.monthlyBookRepository = monthlyBookRepository;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    //cria o checkpoint que o project() trava; outra instancia pode ter criado antes
+    @PostConstruct
+    public void createCheckpoint() {
+        if (checkpointRepository.existsById(NAME)) {
+            return;
+        }
+        try {
+            checkpointRepository.save(ProjectionCheckpoint.builder().name(NAME).lastPosition(0L).build());
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Projection checkpoint {} already created by another instance", NAME);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${library.loan-stats.interval-ms:500}")
+    @Transactional
+    public int project() {
+        ProjectionCheckpoint checkpoint = checkpointRepository.findByNameForUpdate(NAME)
+                .orElseThrow(() -> new IllegalStateException("Projection checkpoint " + NAME + " is missing"));
+
+        List<OutboxEvent> events = changeEventService.findSince(checkpoint.getLastPosition(), batchSize);
+        for (OutboxEvent event : events) {
+            if (ChangeEventServiceImpl.LOAN.equals(event.getAggregateType())) {
+                apply(event.getTenantId(), event.getType(), read(event.getPayload()));
+            }
+            checkpoint.setLastPosition(event.getPosition());
+        }
+
+        if (!events.isEmpty()) {
+            checkpointRepository.save(checkpoint);
+        }
+        return events.size();
+    }
+
+    private void apply(String tenantId, String type, JsonNode loan) {
+        String customer = text(loan, "customer");
+        String author = text(loan, "author");
+
+        if (LoanChangedEvent.Type.CREATED.name().equals(type)) {
+            if (customer != null) {
+                CustomerLoanStats stats = customer(tenantId, customer);
+                stats.setTotalLoans(stats.getTotalLoans() + 1);
+                stats.setActiveLoans(stats.getActiveLoans() + 1);
+                customerRepository.save(stats);
+            }
+            if (author != null) {
+                AuthorLoanStats stats = author(tenantId, author);
+                stats.setActiveLoans(stats.getActiveLoans() + 1);
+                authorRepository.save(stats);
+            }
+            countMonthlyLoan(tenantId, loan);
+        } else if (LoanChangedEvent.Type.RETURNED.name().equals(type)) {
+            if (customer != null) {
+                CustomerLoanStats stats = customer(tenantId, customer);
+                stats.setActiveLoans(Math.max(0, stats.getActiveLoans() - 1));
+                customerRepository.save(stats);
+            }
+            if (author != null) {
+                AuthorLoanStats stats = author(tenantId, author);
+                stats.setActiveLoans(Math.max(0, stats.getActiveLoans() - 1));
+                authorRepository.save(stats);
+            }
+        }
+    }
+
+    private void countMonthlyLoan(String tenantId, JsonNode loan) {
+        String loanDate = text(loan, "loanDate");
+        if (loanDate == null || !loan.hasNonNull("bookId")) {
+            return;
+        }
+
+        String month = loanDate.substring(0, 7);
+        Long bookId = loan.get("bookId").asLong();
+        String id = MonthlyBookLoanStats.idOf(month, bookId);
+
+        MonthlyBookLoanStats stats = monthlyBookRepository.findById(id)
+                .orElseGet(() -> MonthlyBookLoanStats.builder()
+                        .id(id)
+                        .tenantId(tenantId)
+                        .month(month)
+                        .bookId(bookId)
+                        .isbn(text(loan, "isbn"))
+                        .title(text(loan, "title"))
+                        .build());
+        stats.setLoans(stats.getLoans() + 1);
+        monthlyBookRepository.save(stats);
+    }
+
+    private CustomerLoanStats customer(String tenantId, String customer) {
+        String id = CustomerLoanStats.idOf(tenantId, customer);
+        return customerRepository.findById(id)
+                .orElseGet(() -> CustomerLoanStats.builder().id(id).tenantId(tenantId).customer(customer).build());
+    }
+
+    private AuthorLoanStats author(String tenantId, String author) {
+        String id = AuthorLoanStats.idOf(tenantId, author);
+        return authorRepository.findById(id)
+                .orElseGet(() -> AuthorLoanStats.builder().id(id).tenantId(tenantId).author(author).build());
+    }
+
+    private JsonNode read(String payload) {
+        try {
+            return objectMapper.readTree(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid loan event payload", e);
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asText() : null;
+    }
+}
@@ -0,0 +1,175 @@
+package com.allan.libraryapi.service.suggestion;
+
+import com.allan.libraryapi.dto.SuggestionDTO;
+import com.allan.libraryapi.health.WarmUpTracker;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.service.event.BookChangedEvent;
+import com.allan.libraryapi.service.snapshot.CatalogLoader;
+import com.allan.libraryapi.service.snapshot.CatalogSnapshot;
+import com.allan.libraryapi.tenant.TenantContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Sugestoes de titulo e autor para o campo de busca.
+ *
+ * Os indices sao carregados quando a aplicacao sobe e depois mantidos pelos BookChangedEvent
+ * publicados pelo BookService, aplicados so depois do commit: uma escrita desfeita nao aparece
+ * nas sugestoes. Eventos que chegam durante a carga inicial ficam numa fila e sao aplicados,
+ * em ordem, quando ela termina, por cima do que foi carregado. A carga usa o snapshot do catalogo em disco quando existe
+ * (ver CatalogLoader); sem snapshot valido o catalogo e lido do banco.
+ *
+ * Cada tenant tem os seus indices, e as sugestoes so vem dos livros do tenant da requisicao.
+ */
+@Slf4j
+@Service
+public class BookSuggestionService {
+
+    static final String TITLE = "title";
+    static final String AUTHOR = "author";
+    static final String WARM_UP_TASK = "suggestions";
+
+    private final CatalogLoader catalogLoader;
+    private final WarmUpTracker warmUpTracker;
+    private final int scanLimit;
+    private final ConcurrentMap<String, Indexes> indexes = new ConcurrentHashMap<>();
+
+    //eventos recebidos durante a carga inicial; null fora dela
+    private final Object warmUpLock = new Object();
+    private List<BookChangedEvent> queuedDuringWarmUp;
+
+    public BookSuggestionService(CatalogLoader catalogLoader,
+                                 WarmUpTracker warmUpTracker,
+                                 @Value("${library.suggestions.scan-limit:256}") int scanLimit) {
+        this.catalogLoader = catalogLoader;
+        this.warmUpTracker = warmUpTracker;
+        this.scanLimit = scanLimit;
+    }
+
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        List<SuggestionDTO> result = new ArrayList<>();
+        Indexes tenant = indexes.get(TenantContext.current());
+        if (tenant == null) {
+            return result;
+        }
+
+        for (Suggestion suggestion : tenant.titles.suggest(prefix, limit, scanLimit)) {
+            result.add(new SuggestionDTO(suggestion.getText(), TITLE, suggestion.getBooks()));
+        }
+        for (Suggestion suggestion : tenant.authors.suggest(prefix, limit, scanLimit)) {
+            result.add(new SuggestionDTO(suggestion.getText(), AUTHOR, suggestion.getBooks()));
+        }
+
+        result.sort((a, b) -> Integer.compare(b.getBooks(), a.getBooks()));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookChanged(BookChangedEvent event) {
+        Book book = event.getBook();
+        if (book == null || book.getId() == null) {
+            return;
+        }
+
+        synchronized (warmUpLock) {
+            if (queuedDuringWarmUp != null) {
+                queuedDuringWarmUp.add(event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    private void apply(BookChangedEvent event) {
+        Book book = event.getBook();
+        if (event.getType() == BookChangedEvent.Type.DELETED) {
+            indexes(book.getTenantId()).remove(book.getId());
+        } else {
+            indexes(book.getTenantId()).put(book.getId(), book.getTitle(), book.getAuthor());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        warmUpTracker.started(WARM_UP_TASK);
+        Thread thread = new Thread(() -> {
+            loadCatalog();
+            warmUpTracker.completed(WARM_UP_TASK);
+        }, "suggestions-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void loadCatalog() {
+        long start = System.currentTimeMillis();
+        synchronized (warmUpLock) {
+            queuedDuringWarmUp = new ArrayList<>();
+        }
+
+        try {
+            CatalogLoader.Result result = catalogLoader.load(new HashSet<>(), new CatalogLoader.Target() {
+                @Override
+                public void changed(CatalogSnapshot.Entry entry) {
+                    loaded(entry);
+                }
+
+                //a lapide nao traz o tenant; o id so pode estar no indice de um deles
+                @Override
+                public void deleted(long bookId) {
+                    for (Indexes tenant : indexes.values()) {
+                        tenant.remove(bookId);
+                    }
+                }
+
+                @Override
+                public void loaded(CatalogSnapshot.Entry entry) {
+                    indexes(entry.getTenantId()).put(entry.getId(), entry.getTitle(), entry.getAuthor());
+                }
+            });
+
+            log.info("Suggestion index loaded with {} books from {} in {} ms",
+                    result.getLoaded(), result.getSource(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Could not load suggestion index", e);
+        } finally {
+            //sob a trava: um evento que chegue agora espera a fila ser aplicada, e a ordem se mantem
+            synchronized (warmUpLock) {
+                for (BookChangedEvent event : queuedDuringWarmUp) {
+                    apply(event);
+                }
+                queuedDuringWarmUp = null;
+            }
+        }
+    }
+
+    private Indexes indexes(String tenantId) {
+        return indexes.computeIfAbsent(tenantId != null ? tenantId : TenantContext.DEFAULT_TENANT, tenant -> new Indexes());
+    }
+
+    private static final class Indexes {
+
+        private final SuggestionIndex titles = new SuggestionIndex();
+        private final SuggestionIndex authors = new SuggestionIndex();
+
+        void put(long bookId, String title, String author) {
+            titles.put(bookId, title);
+            authors.put(bookId, author);
+        }
+
+        void remove(long bookId) {
+            titles.remove(bookId);
+            authors.remove(bookId);
+        }
+    }
+}
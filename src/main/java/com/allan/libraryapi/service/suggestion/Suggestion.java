@@ -0,0 +1,13 @@
+package com.allan.libraryapi.service.suggestion;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class Suggestion {
+
+    private String text;
+
+    private int books;
+}
@@ -0,0 +1,107 @@
+package com.allan.libraryapi.service.suggestion;
+
+import com.allan.libraryapi.util.SearchText;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Indice de prefixos sobre um campo textual dos livros.
+ *
+ * As chaves normalizadas ficam ordenadas num skip list, entao todas as chaves com um prefixo
+ * formam uma faixa contigua: a busca e um seek O(log n) seguido de uma varredura limitada.
+ * Cada chave guarda o texto original e quantos livros o usam; textos sao truncados em
+ * MAX_TEXT_LENGTH caracteres para limitar a memoria por entrada.
+ */
+public class SuggestionIndex {
+
+    static final int MAX_TEXT_LENGTH = 64;
+
+    private final ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Long, String> keysByBook = new ConcurrentHashMap<>();
+
+    public void put(long bookId, String text) {
+        String display = truncate(text);
+        String key = SearchText.normalize(display);
+        String previous = key == null || key.isEmpty()
+                ? keysByBook.remove(bookId)
+                : keysByBook.put(bookId, key);
+
+        if (key != null && key.equals(previous)) {
+            return;
+        }
+
+        if (previous != null) {
+            decrement(previous);
+        }
+
+        if (key != null && !key.isEmpty()) {
+            entries.merge(key, new Entry(display, 1), (current, added) -> new Entry(current.text, current.books + 1));
+        }
+    }
+
+    public void remove(long bookId) {
+        String previous = keysByBook.remove(bookId);
+        if (previous != null) {
+            decrement(previous);
+        }
+    }
+
+    public boolean contains(long bookId) {
+        return keysByBook.containsKey(bookId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Percorre no maximo scanLimit chaves a partir do prefixo e devolve as que mais aparecem.
+     */
+    public List<Suggestion> suggest(String prefix, int limit, int scanLimit) {
+        List<Suggestion> found = new ArrayList<>();
+        String normalized = SearchText.normalize(prefix);
+        if (normalized == null || normalized.isEmpty() || limit <= 0) {
+            return found;
+        }
+
+        ConcurrentNavigableMap<String, Entry> range = entries.tailMap(normalized, true);
+        for (Map.Entry<String, Entry> entry : range.entrySet()) {
+            if (!entry.getKey().startsWith(normalized) || found.size() == scanLimit) {
+                break;
+            }
+            found.add(new Suggestion(entry.getValue().text, entry.getValue().books));
+        }
+
+        found.sort((a, b) -> Integer.compare(b.getBooks(), a.getBooks()));
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    private void decrement(String key) {
+        entries.computeIfPresent(key, (k, current) -> current.books > 1 ? new Entry(current.text, current.books - 1) : null);
+    }
+
+    private static String truncate(String text) {
+        if (text == null) {
+            return null;
+        }
+        String trimmed = text.trim();
+        return trimmed.length() > MAX_TEXT_LENGTH ? trimmed.substring(0, MAX_TEXT_LENGTH) : trimmed;
+    }
+
+    private static final class Entry {
+
+        final String text;
+        final int books;
+
+        Entry(String text, int books) {
+            this.text = text;
+            this.books = books;
+        }
+    }
+}
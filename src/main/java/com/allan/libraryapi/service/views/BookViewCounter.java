@@ -0,0 +1,236 @@
+package com.allan.libraryapi.service.views;
+
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contagem de visualizacoes por livro com escrita atrasada (write-behind).
+ *
+ * O GET /api/books/{id} so incrementa um LongAdder em memoria, sem escrever no banco e sem
+ * disputar a mesma variavel entre threads. Um job agendado grava os incrementos em lotes de
+ * library.views.batch-size livros, cada lote numa transacao: primeiro um update com
+ * views = views + delta e depois um insert para os livros que ainda nao tinham linha. Os
+ * livros vao em ordem de id, entao duas instancias gravando ao mesmo tempo travam as linhas
+ * na mesma ordem.
+ *
+ * Os contadores sao acumulados e nunca zerados: cada livro guarda ate onde ja foi gravado, e um
+ * lote que falha fica para o proximo ciclo. Um contador que passou um ciclo inteiro sem
+ * visualizacoes novas sai do mapa: o flush o marca como em remocao, confere de novo que nada
+ * chegou e so entao o remove e o marca como removido. Uma requisicao que ja tinha lido o contador
+ * do mapa espera essa decisao e, se ele foi removido, conta de novo num contador novo; se nao
+ * foi, o incremento fica nele para o proximo ciclo. Assim a memoria fica limitada aos livros
+ * vistos recentemente, e library.views.max-books so descarta livros novos (metrica
+ * library.views.dropped) quando mais que esse numero de livros e visto num mesmo ciclo.
+ *
+ * No shutdown (stop do SmartLifecycle, depois do servidor web parar de aceitar requisicoes e
+ * antes de o pool de conexoes fechar) o que faltar e gravado; uma queda abrupta perde no maximo
+ * o intervalo de library.views.flush-interval-ms.
+ */
+@Slf4j
+@Component
+public class BookViewCounter implements SmartLifecycle {
+
+    public static final String DROPPED_METRIC = "library.views.dropped";
+
+    //fase menor que a do servidor web (Integer.MAX_VALUE - 1): para depois dele
+    static final int PHASE = 0;
+
+    private static final String INCREMENT_SQL = "update book_view_stats set views = views + ?, updated_at = ? where id_book = ?";
+    private static final String INSERT_SQL = "insert into book_view_stats (id_book, views, updated_at) values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBooks;
+    private final int batchSize;
+    private final ConcurrentMap<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+
+    public BookViewCounter(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${library.views.max-books:100000}") int maxBooks,
+                           @Value("${library.views.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBooks = maxBooks;
+        this.batchSize = batchSize;
+    }
+
+    public void record(long bookId) {
+        while (true) {
+            //get antes do computeIfAbsent: no Java 8 o computeIfAbsent trava a chave mesmo quando ela existe
+            Counter counter = counters.get(bookId);
+            if (counter == null) {
+                if (counters.size() >= maxBooks) {
+                    Metrics.counter(DROPPED_METRIC).increment();
+                    return;
+                }
+                counter = counters.computeIfAbsent(bookId, id -> new Counter());
+            }
+            counter.views.increment();
+            int state;
+            while ((state = counter.state) == Counter.EVICTING) {
+                Thread.yield();
+            }
+            if (state == Counter.LIVE) {
+                return;
+            }
+            //removido sem contar este incremento: conta de novo no contador que entrar no lugar
+        }
+    }
+
+    /**
+     * Visualizacoes gravadas no banco mais as que esta instancia ainda nao gravou.
+     */
+    public long getViews(long bookId) {
+        List<Long> stored = jdbcTemplate.queryForList("select views from book_view_stats where id_book = ?",
+                Long.class, bookId);
+        Counter counter = counters.get(bookId);
+        return (stored.isEmpty() ? 0 : stored.get(0)) + (counter == null ? 0 : counter.pending());
+    }
+
+    @Scheduled(fixedDelayString = "${library.views.flush-interval-ms:5000}")
+    public synchronized int flush() {
+        List<Pending> pending = new ArrayList<>();
+        for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            long total = counter.views.sum();
+            if (total > counter.flushed) {
+                pending.add(new Pending(entry.getKey(), counter, total));
+            } else {
+                evictIfIdle(entry.getKey(), counter);
+            }
+        }
+        pending.sort((a, b) -> Long.compare(a.bookId, b.bookId));
+
+        int written = 0;
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<Pending> batch = pending.subList(from, Math.min(pending.size(), from + batchSize));
+            try {
+                transactionTemplate.execute(status -> write(batch));
+            } catch (RuntimeException e) {
+                //nada do lote foi gravado: os incrementos continuam pendentes para o proximo ciclo
+                log.warn("Could not flush view counts of {} books", batch.size(), e);
+                continue;
+            }
+            for (Pending book : batch) {
+                book.counter.flushed = book.total;
+            }
+            written += batch.size();
+        }
+        return written;
+    }
+
+    private void evictIfIdle(long bookId, Counter counter) {
+        counter.state = Counter.EVICTING;
+        //um incremento de quem ainda viu o contador ativo aparece nesta soma
+        if (counter.views.sum() == counter.flushed) {
+            counters.remove(bookId, counter);
+            counter.state = Counter.EVICTED;
+        } else {
+            counter.state = Counter.LIVE;
+        }
+    }
+
+    private int[] write(List<Pending> batch) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> increments = new ArrayList<>(batch.size());
+        for (Pending book : batch) {
+            increments.add(new Object[]{ book.delta(), now, book.bookId });
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(INCREMENT_SQL, increments);
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                inserts.add(new Object[]{ batch.get(i).bookId, batch.get(i).delta(), now });
+            }
+        }
+        //outra instancia pode inserir o mesmo livro antes: a chave duplicada desfaz o lote, que volta no proximo ciclo
+        return inserts.isEmpty() ? updated : jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        try {
+            int written = flush();
+            long unwritten = 0;
+            for (Counter counter : counters.values()) {
+                unwritten += counter.pending();
+            }
+            if (unwritten > 0) {
+                log.error("Shutting down with {} view counts not written to the database", unwritten);
+            } else {
+                log.info("View counts of {} books written on shutdown", written);
+            }
+        } finally {
+            running = false;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private static final class Counter {
+
+        static final int LIVE = 0;
+        static final int EVICTING = 1;
+        static final int EVICTED = 2;
+
+        private final LongAdder views = new LongAdder();
+
+        //so o flush escreve; o record confere depois de incrementar
+        private volatile int state = LIVE;
+
+        //so o flush escreve; volatile para o getViews ler das threads das requisicoes
+        private volatile long flushed;
+
+        long pending() {
+            return views.sum() - flushed;
+        }
+    }
+
+    private static final class Pending {
+
+        private final long bookId;
+        private final Counter counter;
+        private final long total;
+
+        Pending(long bookId, Counter counter, long total) {
+            this.bookId = bookId;
+            this.counter = counter;
+            this.total = total;
+        }
+
+        long delta() {
+            return total - counter.flushed;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.allan.libraryapi.tenant;
+
+/**
+ * Tenant (filial) da requisicao atual, definido pelo TenantFilter. Fora de uma requisicao,
+ * como nos jobs agendados, vale DEFAULT_TENANT.
+ */
+public final class TenantContext {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String current() {
+        String tenantId = CURRENT.get();
+        return tenantId != null ? tenantId : DEFAULT_TENANT;
+    }
+
+    public static void set(String tenantId) {
+        CURRENT.set(tenantId);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
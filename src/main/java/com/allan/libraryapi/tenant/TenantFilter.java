@@ -0,0 +1,76 @@
+package com.allan.libraryapi.tenant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Resolve o tenant das rotas /api pelo header X-Tenant-Id (sem header: DEFAULT_TENANT) e o
+ * deixa no TenantContext durante a requisicao.
+ *
+ * So sao aceitos os tenants de library.tenancy.tenants; o resto recebe 400. A lista fechada
+ * tambem limita quantos caches e buckets por tenant podem existir em memoria. Roda antes do
+ * controle de admissao e da idempotencia, que separam seus limites e chaves por tenant.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class TenantFilter extends OncePerRequestFilter {
+
+    static final String TENANT_HEADER = "X-Tenant-Id";
+
+    private static final String UNKNOWN_TENANT_BODY = "{\"errors\":[\"Unknown tenant\"]}";
+
+    private final Set<String> tenants;
+
+    public TenantFilter(@Value("${library.tenancy.tenants:" + TenantContext.DEFAULT_TENANT + "}") String[] tenants) {
+        Set<String> allowed = new LinkedHashSet<>();
+        for (String tenant : tenants) {
+            if (!tenant.trim().isEmpty()) {
+                allowed.add(tenant.trim());
+            }
+        }
+        this.tenants = Collections.unmodifiableSet(allowed);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().substring(request.getContextPath().length()).startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String tenantId = resolve(request);
+        if (!tenants.contains(tenantId)) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(UNKNOWN_TENANT_BODY);
+            return;
+        }
+
+        TenantContext.set(tenantId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    static String resolve(HttpServletRequest request) {
+        String header = request.getHeader(TENANT_HEADER);
+        return header == null || header.trim().isEmpty() ? TenantContext.DEFAULT_TENANT : header.trim();
+    }
+}
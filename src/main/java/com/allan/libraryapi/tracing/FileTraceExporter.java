@@ -0,0 +1,93 @@
+package com.allan.libraryapi.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grava um trace por linha (JSON) num arquivo local, numa thread propria. Com a fila cheia o
+ * trace e descartado e contado em library.tracing.dropped.
+ */
+@Slf4j
+public class FileTraceExporter implements TraceExporter, AutoCloseable {
+
+    public static final String DROPPED_METRIC = "library.tracing.dropped";
+
+    private final ObjectMapper objectMapper;
+    private final BufferedWriter writer;
+    private final ThreadPoolExecutor executor;
+
+    public FileTraceExporter(Path file, int queueCapacity, ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "trace-file-exporter");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, executor) -> Metrics.counter(DROPPED_METRIC).increment());
+    }
+
+    @Override
+    public void export(Trace trace) {
+        executor.execute(() -> write(trace));
+    }
+
+    private void write(Trace trace) {
+        try {
+            writer.write(objectMapper.writeValueAsString(toMap(trace)));
+            writer.newLine();
+            if (executor.getQueue().isEmpty()) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write trace {}", trace.getTraceId(), e);
+        }
+    }
+
+    static Map<String, Object> toMap(Trace trace) {
+        List<Map<String, Object>> spans = new ArrayList<>();
+        for (Span span : trace.getSpans()) {
+            Map<String, Object> value = new LinkedHashMap<>();
+            value.put("id", span.getId());
+            value.put("parentId", span.getParentId());
+            value.put("name", span.getName());
+            value.put("startUs", (span.getStartNanos() - trace.getStartNanos()) / 1000);
+            value.put("durationUs", span.getDurationNanos() / 1000);
+            if (span.getTags() != null) {
+                value.put("tags", span.getTags());
+            }
+            spans.add(value);
+        }
+
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("traceId", trace.getTraceId());
+        value.put("timestamp", trace.getStartEpochMillis());
+        value.put("spans", spans);
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException, InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        writer.close();
+    }
+}
@@ -0,0 +1,35 @@
+package com.allan.libraryapi.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Guarda os ultimos {@code capacity} traces em memoria. Usado nos testes e para inspecao local.
+ */
+public class InMemoryTraceExporter implements TraceExporter {
+
+    private final int capacity;
+    private final Deque<Trace> traces = new ArrayDeque<>();
+
+    public InMemoryTraceExporter(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void export(Trace trace) {
+        if (traces.size() == capacity) {
+            traces.removeFirst();
+        }
+        traces.addLast(trace);
+    }
+
+    public synchronized List<Trace> getTraces() {
+        return new ArrayList<>(traces);
+    }
+
+    public synchronized void clear() {
+        traces.clear();
+    }
+}
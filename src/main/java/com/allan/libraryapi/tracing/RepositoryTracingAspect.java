@@ -0,0 +1,21 @@
+package com.allan.libraryapi.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class RepositoryTracingAspect {
+
+    @Around("this(com.allan.libraryapi.model.repository.BookRepository)")
+    public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!Tracing.current().isSampled()) {
+            return joinPoint.proceed();
+        }
+        try (Span span = Tracing.startSpan("BookRepository." + joinPoint.getSignature().getName())) {
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.allan.libraryapi.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Trecho medido de um trace. Usado com try-with-resources:
+ * <pre>
+ *   try (Span span = Tracing.startSpan("BookService.find")) { ... }
+ * </pre>
+ * Quando a requisicao nao foi amostrada, Tracing devolve {@link #NOOP}, que nao mede nada.
+ */
+public class Span implements AutoCloseable {
+
+    public static final Span NOOP = new Span();
+
+    private final Trace trace;
+    private final Span parent;
+    private final int id;
+    private final String name;
+    private final long startNanos;
+    private long durationNanos = -1;
+    private Map<String, String> tags;
+
+    private Span() {
+        this.trace = null;
+        this.parent = null;
+        this.id = 0;
+        this.name = null;
+        this.startNanos = 0;
+    }
+
+    Span(Trace trace, Span parent, String name) {
+        this.trace = trace;
+        this.parent = parent;
+        this.id = trace.nextSpanId();
+        this.name = name;
+        this.startNanos = System.nanoTime();
+    }
+
+    public Span tag(String key, String value) {
+        if (trace != null) {
+            if (tags == null) {
+                tags = new LinkedHashMap<>(4);
+            }
+            tags.put(key, value);
+        }
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (trace == null || durationNanos >= 0) {
+            return;
+        }
+        durationNanos = System.nanoTime() - startNanos;
+        Tracing.ended(this);
+        trace.finished(this);
+    }
+
+    public boolean isSampled() {
+        return trace != null;
+    }
+
+    public Trace getTrace() {
+        return trace;
+    }
+
+    public Span getParent() {
+        return parent;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getParentId() {
+        return parent == null ? 0 : parent.id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+}
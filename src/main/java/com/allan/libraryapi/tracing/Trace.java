@@ -0,0 +1,58 @@
+package com.allan.libraryapi.tracing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spans de uma requisicao amostrada. Pode receber spans de outras threads (executores
+ * assincronos), por isso a lista e sincronizada. E exportado quando o span raiz termina.
+ */
+public class Trace {
+
+    private final String traceId;
+    private final long startEpochMillis;
+    private final long startNanos;
+    private final AtomicInteger spanIds = new AtomicInteger();
+    private final List<Span> spans = Collections.synchronizedList(new ArrayList<>());
+
+    Trace() {
+        this.traceId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        this.startEpochMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+    }
+
+    int nextSpanId() {
+        return spanIds.incrementAndGet();
+    }
+
+    void finished(Span span) {
+        spans.add(span);
+        if (span.getParent() == null) {
+            Tracing.export(this);
+        }
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * @return copia dos spans ja terminados, na ordem em que terminaram
+     */
+    public List<Span> getSpans() {
+        synchronized (spans) {
+            return new ArrayList<>(spans);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.allan.libraryapi.tracing;
+
+public interface TraceExporter {
+
+    TraceExporter NOOP = trace -> { };
+
+    void export(Trace trace);
+}
@@ -0,0 +1,107 @@
+package com.allan.libraryapi.tracing;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Tracing embutido, sem agente nem biblioteca externa.
+ *
+ * O TracingFilter decide a amostragem e abre o span raiz; daqui para baixo qualquer camada
+ * abre spans filhos com {@link #startSpan(String)}. Sem trace ativo na thread o custo e um
+ * ThreadLocal.get e o span devolvido e o {@link Span#NOOP}. A propagacao para executores
+ * assincronos e feita pelo {@link #wrap(Runnable)} (ver TracingConfig).
+ */
+@Slf4j
+public final class Tracing {
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private static volatile double sampleRate;
+    private static volatile TraceExporter exporter = TraceExporter.NOOP;
+
+    private Tracing() {
+    }
+
+    public static void configure(double sampleRate, TraceExporter exporter) {
+        Tracing.sampleRate = sampleRate;
+        Tracing.exporter = exporter;
+    }
+
+    public static boolean shouldSample() {
+        double rate = sampleRate;
+        return rate > 0 && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    /**
+     * Abre o span raiz de um novo trace nesta thread.
+     */
+    public static Span startTrace(String name) {
+        Span root = new Span(new Trace(), null, name);
+        CURRENT.set(root);
+        return root;
+    }
+
+    public static Span startSpan(String name) {
+        Span parent = CURRENT.get();
+        if (parent == null) {
+            return Span.NOOP;
+        }
+        Span span = new Span(parent.getTrace(), parent, name);
+        CURRENT.set(span);
+        return span;
+    }
+
+    public static Span current() {
+        Span span = CURRENT.get();
+        return span == null ? Span.NOOP : span;
+    }
+
+    /**
+     * Executa a tarefa em outra thread como filha do span atual desta thread.
+     */
+    public static Runnable wrap(Runnable task) {
+        Span captured = CURRENT.get();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            Span previous = CURRENT.get();
+            CURRENT.set(captured);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Solta o trace desta thread sem terminar o span (o trace continua em outra thread).
+     */
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    static void ended(Span span) {
+        if (CURRENT.get() == span) {
+            if (span.getParent() == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(span.getParent());
+            }
+        }
+    }
+
+    static void export(Trace trace) {
+        try {
+            exporter.export(trace);
+        } catch (RuntimeException e) {
+            log.warn("Failed to export trace {}", trace.getTraceId(), e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.allan.libraryapi.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+public class TracingConfig {
+
+    static final String DATA_SOURCE_BEAN = "dataSource";
+
+    @Bean
+    public TraceExporter traceExporter(@Value("${library.tracing.sample-rate:0}") double sampleRate,
+                                       @Value("${library.tracing.exporter:memory}") String exporterType,
+                                       @Value("${library.tracing.file:traces.jsonl}") String file,
+                                       @Value("${library.tracing.capacity:1000}") int capacity,
+                                       ObjectMapper objectMapper) throws IOException {
+        TraceExporter exporter = "file".equals(exporterType)
+                ? new FileTraceExporter(Paths.get(file), capacity, objectMapper)
+                : new InMemoryTraceExporter(capacity);
+        Tracing.configure(sampleRate, exporter);
+        return exporter;
+    }
+
+    //aplicado pelo Spring Boot ao applicationTaskExecutor, que tambem executa as requisicoes assincronas do MVC
+    @Bean
+    public TaskDecorator tracingTaskDecorator() {
+        return Tracing::wrap;
+    }
+
+    @Bean
+    public MappingJackson2HttpMessageConverter tracingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new TracingJackson2HttpMessageConverter(objectMapper);
+    }
+
+    //com sample-rate=0 nenhum span e aberto, entao o proxy so custaria reflexao em cada chamada JDBC
+    @Bean
+    @ConditionalOnExpression("${library.tracing.jdbc:false} and ${library.tracing.sample-rate:0} > 0")
+    public static BeanPostProcessor tracingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && DATA_SOURCE_BEAN.equals(beanName)) {
+                    return TracingDataSource.wrap((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,83 @@
+package com.allan.libraryapi.tracing;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Proxies JDBC que abrem um span "jdbc" (com o SQL como tag) em cada execute*, para separar,
+ * por exemplo, a query de dados da query de count de uma busca paginada. Sem trace ativo a
+ * chamada so e repassada.
+ */
+public final class TracingDataSource {
+
+    private TracingDataSource() {
+    }
+
+    public static DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, String sql) {
+        return (T) Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                new Handler(target, sql));
+    }
+
+    private static class Handler implements InvocationHandler {
+
+        private final Object target;
+        private final String sql;
+
+        Handler(Object target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (target instanceof Statement && name.startsWith("execute")) {
+                String statementSql = args != null && args.length > 0 && args[0] instanceof String
+                        ? (String) args[0] : sql;
+                try (Span span = Tracing.startSpan("jdbc")) {
+                    if (span.isSampled()) {
+                        span.tag("sql", statementSql).tag("method", name);
+                    }
+                    return call(method, args);
+                }
+            }
+
+            Object result = call(method, args);
+
+            if (result instanceof Connection && "getConnection".equals(name)) {
+                return proxy(Connection.class, (Connection) result, null);
+            }
+            if (result instanceof CallableStatement) {
+                return proxy(CallableStatement.class, (CallableStatement) result, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement) {
+                return proxy(PreparedStatement.class, (PreparedStatement) result, (String) args[0]);
+            }
+            if (result instanceof Statement && "createStatement".equals(name)) {
+                return proxy(Statement.class, (Statement) result, null);
+            }
+            return result;
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
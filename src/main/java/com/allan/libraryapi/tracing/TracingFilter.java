@@ -0,0 +1,84 @@
+package com.allan.libraryapi.tracing;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Abre o span raiz das requisicoes amostradas (library.tracing.sample-rate) e devolve o id do
+ * trace no header X-Trace-Id. Em requisicoes assincronas, como o GET /api/books/stream, o
+ * span raiz so termina quando a resposta assincrona termina.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 30)
+public class TracingFilter extends OncePerRequestFilter {
+
+    static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!Tracing.shouldSample()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Span root = Tracing.startTrace(request.getMethod() + " " + request.getRequestURI());
+        response.setHeader(TRACE_ID_HEADER, root.getTrace().getTraceId());
+
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+
+            if (request.isAsyncStarted()) {
+                async = true;
+                request.getAsyncContext().addListener(new RootSpanListener(root, response));
+            }
+        } finally {
+            if (async) {
+                Tracing.detach();
+            } else {
+                root.tag("status", String.valueOf(response.getStatus())).close();
+            }
+        }
+    }
+
+    private static class RootSpanListener implements AsyncListener {
+
+        private final Span root;
+        private final HttpServletResponse response;
+
+        RootSpanListener(Span root, HttpServletResponse response) {
+            this.root = root;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            root.tag("status", String.valueOf(response.getStatus())).close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            root.tag("error", "timeout").close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            root.tag("error", String.valueOf(event.getThrowable())).close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.allan.libraryapi.api.idempotency;
+
+import com.allan.libraryapi.api.ratelimit.RateLimitFilter;
+import com.allan.libraryapi.model.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.annotation.OrderUtils;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IdempotencyFilterTest {
+
+    IdempotencyFilter filter;
+
+    AtomicInteger executions;
+
+    @BeforeEach
+    public void setUp() {
+        filter = new IdempotencyFilter(true, 60, 5000, 100, 4000, 64, "memory",
+                new StaticListableBeanFactory().getBeanProvider(IdempotencyRecordRepository.class));
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Deve devolver a resposta gravada ao repetir a requisicao com a mesma chave")
+    public void replayStoredResponseTest() throws Exception {
+        FilterChain chain = created("1");
+
+        MockHttpServletResponse first = perform(request("abc"), chain);
+        MockHttpServletResponse second = perform(request("abc"), chain);
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(first.getStatus()).isEqualTo(201);
+        assertThat(second.getStatus()).isEqualTo(201);
+        assertThat(second.getContentAsString()).isEqualTo("1");
+        assertThat(second.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    @DisplayName("Deve executar de novo quando a chave for diferente ou nao for enviada")
+    public void differentKeysTest() throws Exception {
+        FilterChain chain = created("1");
+
+        perform(request("abc"), chain);
+        perform(request("def"), chain);
+        MockHttpServletRequest withoutKey = new MockHttpServletRequest("POST", "/api/books");
+        perform(withoutKey, chain);
+
+        assertThat(executions.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Nao deve gravar respostas de erro do servidor")
+    public void serverErrorIsNotStoredTest() throws Exception {
+        FilterChain chain = (request, response) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(500);
+        };
+
+        perform(request("abc"), chain);
+        perform(request("abc"), chain);
+
+        assertThat(executions.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve fazer a requisicao repetida esperar pela primeira em vez de executar junto")
+    public void concurrentDuplicateWaitsTest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain chain = (request, response) -> {
+            executions.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ((HttpServletResponse) response).setStatus(201);
+            response.getWriter().write("1");
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<MockHttpServletResponse> first = executor.submit(() -> perform(request("abc"), chain));
+            started.await(5, TimeUnit.SECONDS);
+            Future<MockHttpServletResponse> second = executor.submit(() -> perform(request("abc"), chain));
+
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS).getContentAsString()).isEqualTo("1");
+            assertThat(second.get(5, TimeUnit.SECONDS).getContentAsString()).isEqualTo("1");
+            assertThat(executions.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve separar as chaves por cliente")
+    public void keyScopedByClientTest() throws Exception {
+        FilterChain chain = created("1");
+
+        MockHttpServletRequest client = request("abc");
+        client.addHeader(IdempotencyFilter.API_KEY_HEADER, "client-a");
+        MockHttpServletRequest otherClient = request("abc");
+        otherClient.addHeader(IdempotencyFilter.API_KEY_HEADER, "client-b");
+
+        perform(client, chain);
+        perform(otherClient, chain);
+
+        assertThat(executions.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve recusar com 422 a mesma chave enviada com outro corpo")
+    public void keyReusedWithDifferentBodyTest() throws Exception {
+        FilterChain chain = (request, response) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(201);
+            //o controller continua recebendo o corpo lido pelo filtro
+            response.getWriter().write(StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8));
+        };
+
+        MockHttpServletResponse first = perform(request("abc", "{\"isbn\":\"1\"}"), chain);
+        MockHttpServletResponse same = perform(request("abc", "{\"isbn\":\"1\"}"), chain);
+        MockHttpServletResponse other = perform(request("abc", "{\"isbn\":\"2\"}"), chain);
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(first.getContentAsString()).isEqualTo("{\"isbn\":\"1\"}");
+        assertThat(same.getContentAsString()).isEqualTo("{\"isbn\":\"1\"}");
+        assertThat(other.getStatus()).isEqualTo(422);
+        assertThat(other.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+    }
+
+    @Test
+    @DisplayName("Nao deve gravar o 429 de uma requisicao limitada: a repeticao executa de novo")
+    public void throttledRequestIsRetriedTest() throws Exception {
+        FilterChain chain = (request, response) -> {
+            //a primeira tentativa e recusada por um limite, a segunda passa
+            if (executions.incrementAndGet() == 1) {
+                ((HttpServletResponse) response).setStatus(429);
+                return;
+            }
+            ((HttpServletResponse) response).setStatus(201);
+            response.getWriter().write("1");
+        };
+
+        MockHttpServletResponse throttled = perform(request("abc"), chain);
+        MockHttpServletResponse retry = perform(request("abc"), chain);
+
+        assertThat(throttled.getStatus()).isEqualTo(429);
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(executions.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve rodar depois do controle de admissao")
+    public void orderedAfterRateLimitTest() {
+        assertThat(OrderUtils.getOrder(IdempotencyFilter.class))
+                .isGreaterThan(OrderUtils.getOrder(RateLimitFilter.class));
+    }
+
+    @Test
+    @DisplayName("Deve recusar com 413 um corpo acima do limite sem executar")
+    public void bodyTooLargeTest() throws Exception {
+        FilterChain chain = created("1");
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 65; i++) {
+            body.append('x');
+        }
+
+        MockHttpServletResponse response = perform(request("abc", body.toString()), chain);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(executions.get()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve falhar na inicializacao se o store database nao tiver o repository")
+    public void databaseStoreWithoutRepositoryTest() {
+        assertThatThrownBy(() -> new IdempotencyFilter(true, 60, 5000, 100, 4000, 64, "database",
+                new StaticListableBeanFactory().getBeanProvider(IdempotencyRecordRepository.class)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private FilterChain created(String body) {
+        return (request, response) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(201);
+            response.setContentType("application/json");
+            response.getWriter().write(body);
+        };
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String key) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/books");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        return request;
+    }
+
+    private static MockHttpServletRequest request(String key, String body) {
+        MockHttpServletRequest request = request(key);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
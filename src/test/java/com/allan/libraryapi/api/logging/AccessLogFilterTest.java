@@ -0,0 +1,103 @@
+package com.allan.libraryapi.api.logging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AccessLogFilterTest {
+
+    List<StructuredLogRecord> records;
+
+    StructuredLogWriter writer;
+
+    AccessLogFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        records = Collections.synchronizedList(new ArrayList<>());
+        writer = new StructuredLogWriter(16) {
+            @Override
+            public void log(StructuredLogRecord record) {
+                records.add(record);
+            }
+        };
+        filter = new AccessLogFilter(true, writer);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        writer.close();
+    }
+
+    @Test
+    @DisplayName("Deve registrar filtros, paginacao, status e tempo de repositorio da requisicao")
+    public void accessLogTest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        request.addHeader(AccessLogFilter.REQUEST_ID_HEADER, "req-1");
+        request.setParameter("title", "Dom \"Casmurro\"");
+        request.setParameter("size", "20");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            RequestTimings.addQuery(2_000_000);
+            ((HttpServletResponse) res).setStatus(200);
+        });
+
+        assertThat(response.getHeader(AccessLogFilter.REQUEST_ID_HEADER)).isEqualTo("req-1");
+        assertThat(records).hasSize(1);
+
+        String json = toJson(records.get(0));
+        assertThat(json).startsWith("{\"requestId\":\"req-1\",\"method\":\"GET\",\"path\":\"/api/books\"");
+        assertThat(json).contains("\"title\":\"Dom \\\"Casmurro\\\"\"");
+        assertThat(json).contains("\"size\":20");
+        assertThat(json).doesNotContain("\"author\"");
+        assertThat(json).contains("\"status\":200");
+        assertThat(json).contains("\"queries\":1,\"queryMs\":2.000");
+    }
+
+    @Test
+    @DisplayName("Deve gerar um request id quando o cliente nao enviar")
+    public void generatedRequestIdTest() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/loans"), response, (req, res) -> { });
+
+        assertThat(response.getHeader(AccessLogFilter.REQUEST_ID_HEADER)).isNotEmpty();
+        assertThat(records).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Nao deve registrar rotas fora de livros e emprestimos")
+    public void ignoreOtherRoutesTest() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), new MockHttpServletResponse(),
+                (req, res) -> { });
+
+        assertThat(records).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve escrever o SQL das queries lentas como array JSON")
+    public void slowQueryJsonTest() {
+        SlowQueryRecord record = new SlowQueryRecord("req-1", "BookRepository.findAll", 250_000_000L,
+                Collections.singletonList("select b.id from book b where b.title like ?"));
+
+        assertThat(toJson(record)).isEqualTo("{\"requestId\":\"req-1\",\"repository\":\"BookRepository.findAll\","
+                + "\"durationMs\":250.000,\"sql\":[\"select b.id from book b where b.title like ?\"]}");
+    }
+
+    private static String toJson(StructuredLogRecord record) {
+        JsonLine json = new JsonLine(new StringBuilder());
+        record.appendJson(json.begin());
+        return json.end();
+    }
+}
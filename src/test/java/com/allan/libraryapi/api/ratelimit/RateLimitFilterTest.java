@@ -0,0 +1,40 @@
+package com.allan.libraryapi.api.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitFilterTest {
+
+    RateLimitFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        //um cliente por vez no mapa e uma requisicao de leitura por cliente
+        filter = new RateLimitFilter(true, 0.001, 1, 0.001, 1, 1000, 1000, 1000, 1000, 1, 100, 10);
+    }
+
+    @Test
+    @DisplayName("Deve dividir um bucket de reserva entre os clientes que nao couberem no mapa")
+    public void overflowClientsShareBucketTest() throws Exception {
+        assertThat(get("10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(get("10.0.0.1").getStatus()).isEqualTo(429);
+
+        //o bucket do primeiro cliente esta vazio, entao a limpeza nao libera espaco
+        assertThat(get("10.0.0.2").getStatus()).isEqualTo(200);
+        assertThat(get("10.0.0.3").getStatus()).isEqualTo(429);
+    }
+
+    private MockHttpServletResponse get(String remoteAddr) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        request.setRemoteAddr(remoteAddr);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,50 @@
+package com.allan.libraryapi.api.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("Deve aceitar requisicoes ate a capacidade do balde e rejeitar a seguinte")
+    public void consumeUpToCapacityTest() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+        long now = 10 * SECOND;
+
+        assertThat(bucket.tryConsume(now)).isZero();
+        assertThat(bucket.tryConsume(now)).isZero();
+        assertThat(bucket.tryConsume(now)).isZero();
+
+        assertThat(bucket.tryConsume(now)).isEqualTo(SECOND);
+    }
+
+    @Test
+    @DisplayName("Deve repor fichas conforme a taxa configurada")
+    public void refillTest() {
+        TokenBucket bucket = new TokenBucket(2, 1);
+        long now = 10 * SECOND;
+
+        assertThat(bucket.tryConsume(now)).isZero();
+        assertThat(bucket.tryConsume(now)).isGreaterThan(0);
+
+        assertThat(bucket.tryConsume(now + SECOND / 2)).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve indicar balde cheio apos o tempo de reposicao")
+    public void fullAfterRefillTest() {
+        TokenBucket bucket = new TokenBucket(1, 2);
+        long now = 10 * SECOND;
+
+        assertThat(bucket.isFull(now)).isTrue();
+        bucket.tryConsume(now);
+        assertThat(bucket.isFull(now)).isFalse();
+        assertThat(bucket.isFull(now + SECOND)).isTrue();
+    }
+}
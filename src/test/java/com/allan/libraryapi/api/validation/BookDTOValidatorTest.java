@@ -0,0 +1,53 @@
+package com.allan.libraryapi.api.validation;
+
+import com.allan.libraryapi.dto.BookDTO;
+import com.allan.libraryapi.dto.LoanDTO;
+import com.allan.libraryapi.exception.ValidationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class BookDTOValidatorTest {
+
+    @Test
+    @DisplayName("Deve aceitar um livro valido")
+    public void validBookTest() {
+        BookDTO dto = BookDTO.builder().title("As aventuras").author("Allan").isbn("9780306406157").build();
+
+        BookDTOValidator.validate(dto);
+    }
+
+    @Test
+    @DisplayName("Deve retornar um erro por campo vazio, na ordem dos campos")
+    public void emptyBookTest() {
+        Throwable exception = catchThrowable(() -> BookDTOValidator.validate(new BookDTO()));
+
+        assertThat(exception).isInstanceOf(ValidationException.class);
+        assertThat(((ValidationException) exception).getErrors())
+                .containsExactly(BookDTOValidator.NOT_EMPTY, BookDTOValidator.NOT_EMPTY, BookDTOValidator.NOT_EMPTY);
+    }
+
+    @Test
+    @DisplayName("Deve recusar livro com ISBN invalido")
+    public void invalidIsbnTest() {
+        BookDTO dto = BookDTO.builder().title("As aventuras").author("Allan").isbn("123").build();
+
+        Throwable exception = catchThrowable(() -> BookDTOValidator.validate(dto));
+
+        assertThat(((ValidationException) exception).getErrors()).containsExactly(BookDTOValidator.INVALID_ISBN);
+    }
+
+    @Test
+    @DisplayName("Deve exigir ISBN e cliente do emprestimo sem conferir o digito verificador")
+    public void loanTest() {
+        LoanDTOValidator.validate(LoanDTO.builder().isbn("0306406152").customer("Allan").build());
+        LoanDTOValidator.validate(LoanDTO.builder().isbn("0306406153").customer("Allan").build());
+
+        Throwable exception = catchThrowable(() -> LoanDTOValidator.validate(LoanDTO.builder().isbn("").build()));
+
+        assertThat(((ValidationException) exception).getErrors())
+                .containsExactly(BookDTOValidator.NOT_EMPTY, BookDTOValidator.NOT_EMPTY);
+    }
+}
@@ -0,0 +1,33 @@
+package com.allan.libraryapi.api.validation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IsbnTest {
+
+    @Test
+    @DisplayName("Deve aceitar ISBN-10 e ISBN-13 com digito verificador correto")
+    public void validIsbnTest() {
+        assertThat(Isbn.isValid("0306406152")).isTrue();
+        assertThat(Isbn.isValid("080442957X")).isTrue();
+        assertThat(Isbn.isValid("9780306406157")).isTrue();
+        assertThat(Isbn.isValid("978-0-306-40615-7")).isTrue();
+        assertThat(Isbn.isValid("0 306 40615 2")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve recusar ISBN com digito verificador, tamanho ou caracteres invalidos")
+    public void invalidIsbnTest() {
+        assertThat(Isbn.isValid(null)).isFalse();
+        assertThat(Isbn.isValid("")).isFalse();
+        assertThat(Isbn.isValid("123")).isFalse();
+        assertThat(Isbn.isValid("0306406153")).isFalse();
+        assertThat(Isbn.isValid("9780306406158")).isFalse();
+        assertThat(Isbn.isValid("97803064061570")).isFalse();
+        assertThat(Isbn.isValid("X306406152")).isFalse();
+        assertThat(Isbn.isValid("978030640615X")).isFalse();
+        assertThat(Isbn.isValid("03064O6152")).isFalse();
+    }
+}
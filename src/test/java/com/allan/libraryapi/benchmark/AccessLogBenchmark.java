@@ -0,0 +1,116 @@
+package com.allan.libraryapi.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.helpers.NOPAppender;
+import com.allan.libraryapi.api.logging.AccessLogFilter;
+import com.allan.libraryapi.api.logging.StructuredLogWriter;
+import com.allan.libraryapi.dto.BookDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mede o custo do AccessLogFilter na thread da requisicao.
+ *
+ * Uso:
+ * <pre>
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *        -Drounds=20 -Dops=20000 com.allan.libraryapi.benchmark.AccessLogBenchmark
+ * </pre>
+ *
+ * A "requisicao" simulada serializa uma pagina de 20 livros em JSON, sem banco, o que e bem
+ * mais barato que uma requisicao real; a sobrecarga percentual medida aqui e um limite
+ * superior. Rodadas com e sem o filtro sao alternadas e compara-se a mediana. O log e
+ * formatado de verdade na thread do writer, so o appender e descartado (NOPAppender).
+ */
+public class AccessLogBenchmark {
+
+    static final double MAX_OVERHEAD = 0.02;
+
+    public static void main(String[] args) throws Exception {
+        int rounds = Integer.getInteger("rounds", 20);
+        int ops = Integer.getInteger("ops", 20000);
+
+        discardLibraryLogs();
+
+        ObjectWriter writer = new ObjectMapper().writerFor(new ObjectMapper().getTypeFactory()
+                .constructCollectionType(List.class, BookDTO.class));
+        List<BookDTO> page = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            page.add(BookDTO.builder().id((long) i).title("Titulo " + i).author("Autor " + i).isbn("97800000000" + i).build());
+        }
+        FilterChain request = (req, res) -> {
+            res.setContentType("application/json");
+            res.getOutputStream().write(writer.writeValueAsBytes(page));
+        };
+
+        try (StructuredLogWriter logWriter = new StructuredLogWriter(8192)) {
+            AccessLogFilter filter = new AccessLogFilter(true, logWriter);
+
+            //aquecimento
+            for (int i = 0; i < 3; i++) {
+                run(null, request, ops);
+                run(filter, request, ops);
+            }
+
+            long[] baseline = new long[rounds];
+            long[] logged = new long[rounds];
+            for (int round = 0; round < rounds; round++) {
+                baseline[round] = run(null, request, ops);
+                logged[round] = run(filter, request, ops);
+            }
+
+            double base = median(baseline) / (double) ops;
+            double withLog = median(logged) / (double) ops;
+            double overhead = (withLog - base) / base;
+
+            System.out.printf("baseline: %.0f ns/op%n", base);
+            System.out.printf("with access log: %.0f ns/op%n", withLog);
+            System.out.printf("overhead: %.0f ns/op (%.2f%%) -> %s%n", withLog - base, overhead * 100,
+                    overhead < MAX_OVERHEAD ? "OK" : "ABOVE " + (MAX_OVERHEAD * 100) + "%");
+        }
+    }
+
+    private static long run(AccessLogFilter filter, FilterChain request, int ops) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            MockHttpServletRequest req = new MockHttpServletRequest("GET", "/api/books");
+            req.setParameter("title", "Titulo");
+            req.setParameter("size", "20");
+            MockHttpServletResponse res = new MockHttpServletResponse();
+            if (filter == null) {
+                request.doFilter(req, res);
+            } else {
+                filter.doFilter(req, res, request);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static void discardLibraryLogs() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Logger logger = context.getLogger("library");
+        logger.detachAndStopAllAppenders();
+        logger.setAdditive(false);
+        NOPAppender<ILoggingEvent> nop = new NOPAppender<>();
+        nop.setContext(context);
+        nop.start();
+        logger.addAppender(nop);
+    }
+}
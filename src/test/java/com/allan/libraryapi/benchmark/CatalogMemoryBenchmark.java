@@ -0,0 +1,127 @@
+package com.allan.libraryapi.benchmark;
+
+import com.allan.libraryapi.dto.BookDTO;
+import com.allan.libraryapi.loadtest.SyntheticCatalog;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.service.catalog.BookView;
+import com.allan.libraryapi.service.catalog.OffHeapCatalog;
+import com.allan.libraryapi.service.snapshot.CatalogSnapshot;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Compara o catalogo em memoria como entidades Book (mapas por id e por ISBN, como um cache de
+ * entidades faria) com o OffHeapCatalog.
+ *
+ * Uso (um modo por JVM, para que um nao contamine o heap do outro):
+ * <pre>
+ *   mvn test-compile
+ *   CP=target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)
+ *   java -Xmx2g -cp $CP -Dbooks=1000000 com.allan.libraryapi.benchmark.CatalogMemoryBenchmark entities
+ *   java -Xmx2g -cp $CP -Dbooks=1000000 com.allan.libraryapi.benchmark.CatalogMemoryBenchmark offheap
+ * </pre>
+ *
+ * Mede o heap retido depois de um GC completo, a duracao de GCs completos com o catalogo vivo
+ * e o tempo de GC durante uma carga de consultas por id que gera lixo de vida curta (um
+ * BookDTO por consulta, como o controller).
+ */
+public class CatalogMemoryBenchmark {
+
+    static volatile Object sink;
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "offheap";
+        int books = Integer.getInteger("books", 1000000);
+        int lookups = Integer.getInteger("lookups", 20000000);
+        SyntheticCatalog synthetic = new SyntheticCatalog(42L);
+
+        long baseline = usedHeapAfterGc();
+        long start = System.nanoTime();
+
+        Lookup lookup;
+        long offHeap = 0;
+        if ("entities".equals(mode)) {
+            Map<Long, Book> byId = new HashMap<>();
+            Map<String, Book> byIsbn = new HashMap<>();
+            for (long i = 1; i <= books; i++) {
+                Book book = Book.builder().id(i).title(synthetic.title(i)).author(synthetic.author(i))
+                        .isbn(synthetic.isbn(i)).build();
+                byId.put(i, book);
+                byIsbn.put(book.getIsbn(), book);
+            }
+            sink = byIsbn;
+            lookup = id -> {
+                Book book = byId.get(id);
+                return new BookDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn());
+            };
+        } else {
+            OffHeapCatalog.Builder builder = OffHeapCatalog.builder();
+            for (long i = 1; i <= books; i++) {
+                builder.add(new CatalogSnapshot.Entry(i, synthetic.title(i), synthetic.author(i), synthetic.isbn(i)));
+            }
+            OffHeapCatalog catalog = builder.build();
+            offHeap = catalog.offHeapBytes();
+            lookup = id -> {
+                BookView book = catalog.view(catalog.rowOf(id));
+                return new BookDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn());
+            };
+        }
+        long buildMillis = (System.nanoTime() - start) / 1000000;
+
+        long retained = usedHeapAfterGc() - baseline;
+
+        long fullGcNanos = 0;
+        for (int i = 0; i < 5; i++) {
+            long gcStart = System.nanoTime();
+            System.gc();
+            fullGcNanos += System.nanoTime() - gcStart;
+        }
+
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        SplittableRandom random = new SplittableRandom(7);
+        long lookupStart = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            sink = lookup.find(1 + random.nextInt(books));
+        }
+        long lookupNanos = System.nanoTime() - lookupStart;
+
+        System.out.printf("mode=%s books=%d build=%d ms%n", mode, books, buildMillis);
+        System.out.printf("  retained heap:     %,d bytes (%.1f bytes/book)%n", retained, retained / (double) books);
+        System.out.printf("  off-heap:          %,d bytes (%.1f bytes/book)%n", offHeap, offHeap / (double) books);
+        System.out.printf("  full GC (avg of 5): %.1f ms%n", fullGcNanos / 5 / 1e6);
+        System.out.printf("  lookups:           %d ns/op, %d GCs, %d ms in GC%n",
+                lookupNanos / lookups, gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+    }
+
+    interface Lookup {
+        BookDTO find(long id);
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+}
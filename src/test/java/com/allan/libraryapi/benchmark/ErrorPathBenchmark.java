@@ -0,0 +1,98 @@
+package com.allan.libraryapi.benchmark;
+
+import com.allan.libraryapi.api.exception.ApplicationControllerAdvice;
+import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.exception.NotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Compara o caminho de erro antigo com o atual para o 404 e para o ISBN duplicado.
+ *
+ * Uso:
+ * <pre>
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *        -Dops=200000 -Ddepth=120 com.allan.libraryapi.benchmark.ErrorPathBenchmark
+ * </pre>
+ *
+ * A excecao e lancada a {@code depth} frames de profundidade (uma requisicao passando por
+ * filtros, DispatcherServlet, proxies e controller fica na casa de 100+), capturada e
+ * convertida no corpo de erro como o ApplicationControllerAdvice faz. O "antigo" reproduz o
+ * codigo anterior: excecao com stack trace e ApiErrors montado com Arrays.asList.
+ */
+public class ErrorPathBenchmark {
+
+    static volatile Object sink;
+
+    public static void main(String[] args) {
+        int ops = Integer.getInteger("ops", 200000);
+        int depth = Integer.getInteger("depth", 120);
+        ApplicationControllerAdvice advice = new ApplicationControllerAdvice();
+
+        Supplier<RuntimeException> oldNotFound = () -> new ResponseStatusException(HttpStatus.NOT_FOUND);
+        Supplier<RuntimeException> newNotFound = () -> NotFoundException.INSTANCE;
+        Supplier<RuntimeException> oldDuplicated = () -> new StackfulBusinessException("Isbn já cadastrado.");
+        BusinessException duplicated = new BusinessException("Isbn já cadastrado.");
+        Supplier<RuntimeException> newDuplicated = () -> duplicated;
+
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            long oldNotFoundNanos = run(oldNotFound, e -> new OldApiErrors(((ResponseStatusException) e).getReason()), ops, depth);
+            long newNotFoundNanos = run(newNotFound, e -> advice.handleNotFoundException((NotFoundException) e), ops, depth);
+            long oldDuplicatedNanos = run(oldDuplicated, e -> new OldApiErrors(e.getMessage()), ops, depth);
+            long newDuplicatedNanos = run(newDuplicated, e -> advice.habdleBusinessException((BusinessException) e), ops, depth);
+
+            if (report) {
+                print("404", oldNotFoundNanos, newNotFoundNanos, ops);
+                print("duplicate ISBN", oldDuplicatedNanos, newDuplicatedNanos, ops);
+            }
+        }
+    }
+
+    private static long run(Supplier<RuntimeException> failure, Function<RuntimeException, Object> handler,
+                            int ops, int depth) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            try {
+                throwAt(depth, failure);
+            } catch (RuntimeException e) {
+                sink = handler.apply(e);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void throwAt(int depth, Supplier<RuntimeException> failure) {
+        if (depth == 0) {
+            throw failure.get();
+        }
+        throwAt(depth - 1, failure);
+    }
+
+    private static void print(String path, long oldNanos, long newNanos, int ops) {
+        System.out.printf("%-15s before: %6d ns/op  after: %6d ns/op  (%.1fx)%n",
+                path, oldNanos / ops, newNanos / ops, oldNanos / (double) newNanos);
+    }
+
+    //BusinessException como era antes: com stack trace
+    static class StackfulBusinessException extends RuntimeException {
+        StackfulBusinessException(String message) {
+            super(message);
+        }
+    }
+
+    //ApiErrors como era antes: lista nova a cada erro
+    static class OldApiErrors {
+        final List<String> errors;
+
+        OldApiErrors(String message) {
+            this.errors = Arrays.asList(message);
+        }
+    }
+}
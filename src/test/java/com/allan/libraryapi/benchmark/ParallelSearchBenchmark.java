@@ -0,0 +1,105 @@
+package com.allan.libraryapi.benchmark;
+
+import com.allan.libraryapi.health.WarmUpTracker;
+import com.allan.libraryapi.loadtest.SyntheticCatalog;
+import com.allan.libraryapi.service.catalog.CatalogStore;
+import com.allan.libraryapi.service.impl.BookSyncServiceImpl;
+import com.allan.libraryapi.service.snapshot.CatalogLoader;
+import com.allan.libraryapi.service.snapshot.CatalogSnapshot;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Set;
+
+/**
+ * Escalabilidade das buscas do CatalogStore de 1 ate N threads no fork-join.
+ *
+ * Uso:
+ * <pre>
+ *   mvn test-compile
+ *   java -Xmx2g -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *        -Dbooks=1000000 -Dcores=8 com.allan.libraryapi.benchmark.ParallelSearchBenchmark
+ * </pre>
+ *
+ * Para cada paralelismo de 1 ate -Dcores (padrao: processadores da maquina) carrega o mesmo
+ * catalogo sintetico e mede o tempo medio de algumas buscas tipicas do GET /api/books: todas
+ * contam o total, entao varrem o catalogo inteiro.
+ */
+public class ParallelSearchBenchmark {
+
+    static volatile Object sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        int books = Integer.getInteger("books", 1000000);
+        int cores = Integer.getInteger("cores", Runtime.getRuntime().availableProcessors());
+        int queries = Integer.getInteger("queries", 20);
+        int shardSize = Integer.getInteger("shardSize", 65536);
+
+        String[] names = {"title~river, by id", "author~silva, by title", "isbn~12345, by id", "title~a, by title desc"};
+        double[] baseline = new double[names.length];
+
+        System.out.printf("books=%d shard-size=%d available processors=%d%n", books, shardSize,
+                Runtime.getRuntime().availableProcessors());
+        for (int parallelism = 1; parallelism <= cores; parallelism++) {
+            CatalogStore store = load(books, parallelism, shardSize);
+
+            for (int q = 0; q < names.length; q++) {
+                //aquecimento com metade das repeticoes
+                run(store, q, queries / 2);
+                double millis = run(store, q, queries) / 1e6 / queries;
+                if (parallelism == 1) {
+                    baseline[q] = millis;
+                }
+                System.out.printf("  parallelism=%-2d %-24s %8.1f ms/query  speedup %.2fx%n",
+                        parallelism, names[q], millis, baseline[q] / millis);
+            }
+            store.shutdown();
+        }
+    }
+
+    private static long run(CatalogStore store, int query, int times) {
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            switch (query) {
+                case 0:
+                    sink = store.find(null, "river", null, null, page(Sort.unsorted()));
+                    break;
+                case 1:
+                    sink = store.find(null, null, "silva", null, page(Sort.by("title")));
+                    break;
+                case 2:
+                    sink = store.find(null, null, null, "12345", page(Sort.unsorted()));
+                    break;
+                default:
+                    sink = store.find(null, "a", null, null, page(Sort.by("title").descending()));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static Pageable page(Sort sort) {
+        return PageRequest.of(0, 20, sort);
+    }
+
+    private static CatalogStore load(int books, int parallelism, int shardSize) throws InterruptedException {
+        SyntheticCatalog synthetic = new SyntheticCatalog(42L);
+        CatalogLoader loader = new CatalogLoader(null, null, null) {
+            @Override
+            public Result load(Set<Long> changed, Target target) {
+                for (long i = 1; i <= books; i++) {
+                    target.loaded(new CatalogSnapshot.Entry(i, synthetic.title(i), synthetic.author(i), synthetic.isbn(i)));
+                }
+                return new Result("synthetic", books);
+            }
+        };
+
+        CatalogStore store = new CatalogStore(loader, new BookSyncServiceImpl(null, null, 0, 30, 0),
+                new WarmUpTracker(event -> { }), true, Integer.MAX_VALUE, 0, parallelism, shardSize);
+        store.warmUp();
+        while (!store.isReady()) {
+            Thread.sleep(50);
+        }
+        return store;
+    }
+}
@@ -0,0 +1,84 @@
+package com.allan.libraryapi.benchmark;
+
+import com.allan.libraryapi.api.validation.BookDTOValidator;
+import com.allan.libraryapi.dto.BookDTO;
+import com.allan.libraryapi.exception.ValidationException;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compara a validacao do BookDTO pelo Bean Validation (como o @Valid fazia) com o BookDTOValidator.
+ *
+ * Uso:
+ * <pre>
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *        -Dops=1000000 com.allan.libraryapi.benchmark.ValidationBenchmark
+ * </pre>
+ *
+ * O caminho "antigo" chama o Validator e monta a lista de mensagens como o
+ * ApplicationControllerAdvice fazia com o BindingResult. Os dois caminhos sao medidos com
+ * corpo valido (o caso comum) e com corpo invalido.
+ */
+public class ValidationBenchmark {
+
+    static volatile Object sink;
+
+    public static void main(String[] args) {
+        int ops = Integer.getInteger("ops", 1000000);
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+        BookDTO valid = BookDTO.builder().title("As aventuras").author("Allan").isbn("9780306406157").build();
+        BookDTO invalid = BookDTO.builder().title("As aventuras").build();
+
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            long oldValidNanos = runBeanValidation(validator, valid, ops);
+            long newValidNanos = runFastPath(valid, ops);
+            long oldInvalidNanos = runBeanValidation(validator, invalid, ops);
+            long newInvalidNanos = runFastPath(invalid, ops);
+
+            if (report) {
+                print("valid", oldValidNanos, newValidNanos, ops);
+                print("invalid", oldInvalidNanos, newInvalidNanos, ops);
+            }
+        }
+    }
+
+    private static long runBeanValidation(Validator validator, BookDTO dto, int ops) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            Set<ConstraintViolation<BookDTO>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                List<String> errors = new ArrayList<>();
+                for (ConstraintViolation<BookDTO> violation : violations) {
+                    errors.add(violation.getMessage());
+                }
+                sink = errors;
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runFastPath(BookDTO dto, int ops) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            try {
+                BookDTOValidator.validate(dto);
+            } catch (ValidationException e) {
+                sink = e.getErrors();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void print(String body, long oldNanos, long newNanos, int ops) {
+        System.out.printf("%-8s before: %6d ns/op  after: %6d ns/op  (%.1fx)%n",
+                body, oldNanos / ops, newNanos / ops, oldNanos / (double) newNanos);
+    }
+}
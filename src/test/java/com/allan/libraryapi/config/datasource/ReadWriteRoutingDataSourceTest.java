@@ -0,0 +1,136 @@
+package com.allan.libraryapi.config.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dois bancos H2 em memoria fazem o papel de primario e replica. A "replicacao" do
+ * heartbeat e simulada gravando direto na replica.
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    DataSource primary = new DriverManagerDataSource("jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1", "sa", "");
+    DataSource replica = new DriverManagerDataSource("jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1", "sa", "");
+
+    ReplicaLagMonitor lagMonitor;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate readOnly;
+    TransactionTemplate readWrite;
+
+    @BeforeEach
+    public void setUp() {
+        new JdbcTemplate(primary).execute("create table node (name varchar(20))");
+        new JdbcTemplate(primary).update("insert into node values ('primary')");
+        new JdbcTemplate(replica).execute("create table node (name varchar(20))");
+        new JdbcTemplate(replica).update("insert into node values ('replica')");
+        new JdbcTemplate(replica).execute("create table replication_heartbeat (id int primary key, beat_at bigint not null)");
+
+        //intervalo longo: as medicoes do teste sao as chamadas diretas a refresh
+        lagMonitor = new ReplicaLagMonitor(primary, Collections.singletonMap("replica-0", replica), 5000, 60_000);
+        lagMonitor.start();
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReadWriteRoutingDataSource.PRIMARY, primary);
+        targets.put("replica-0", replica);
+
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(Collections.singletonList("replica-0"), lagMonitor);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        lagMonitor.stop();
+        new JdbcTemplate(primary).execute("drop all objects");
+        new JdbcTemplate(replica).execute("drop all objects");
+    }
+
+    @Test
+    @DisplayName("Deve enviar transacao somente leitura para a replica em dia")
+    public void readOnlyGoesToReplicaTest() {
+        replicateHeartbeat(System.currentTimeMillis());
+        lagMonitor.refresh();
+
+        assertThat(lagMonitor.isHealthy("replica-0")).isTrue();
+        String node = readOnly.execute(status -> currentNode());
+        assertThat(node).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Deve enviar transacao de escrita para o primario")
+    public void readWriteGoesToPrimaryTest() {
+        replicateHeartbeat(System.currentTimeMillis());
+        lagMonitor.refresh();
+
+        String node = readWrite.execute(status -> currentNode());
+        assertThat(node).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Deve ler do primario quando a replica estiver atrasada")
+    public void laggingReplicaFallsBackToPrimaryTest() {
+        replicateHeartbeat(System.currentTimeMillis() - 60_000);
+        lagMonitor.refresh();
+
+        assertThat(lagMonitor.isHealthy("replica-0")).isFalse();
+        assertThat(lagMonitor.lagMillis("replica-0")).isGreaterThan(5000);
+        String node = readOnly.execute(status -> currentNode());
+        assertThat(node).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Deve ler do primario quando a replica nunca recebeu heartbeat")
+    public void unknownLagFallsBackToPrimaryTest() {
+        lagMonitor.refresh();
+
+        assertThat(lagMonitor.isHealthy("replica-0")).isFalse();
+        String node = readOnly.execute(status -> currentNode());
+        assertThat(node).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Deve tratar como desconhecido o atraso medido ha mais de dois intervalos")
+    public void staleSampleFallsBackToPrimaryTest() throws Exception {
+        ReplicaLagMonitor stalled = new ReplicaLagMonitor(primary, Collections.singletonMap("replica-0", replica), 5000, 10);
+        replicateHeartbeat(System.currentTimeMillis());
+        stalled.refresh();
+        assertThat(stalled.isHealthy("replica-0")).isTrue();
+
+        //sem start: nenhuma medicao nova chega, como se a thread tivesse parado
+        Thread.sleep(50);
+
+        assertThat(stalled.isHealthy("replica-0")).isFalse();
+        assertThat(stalled.lagMillis("replica-0")).isEqualTo(ReplicaLagMonitor.UNKNOWN_LAG);
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private void replicateHeartbeat(long beatAt) {
+        new JdbcTemplate(replica).update("merge into replication_heartbeat key (id) values (1, ?)", beatAt);
+    }
+}
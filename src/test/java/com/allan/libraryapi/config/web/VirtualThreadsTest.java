@@ -0,0 +1,33 @@
+package com.allan.libraryapi.config.web;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class VirtualThreadsTest {
+
+    @Test
+    @DisplayName("Deve rodar tarefas em threads virtuais no JDK 21+ e recusar nos anteriores")
+    public void newExecutorTest() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            Throwable exception = catchThrowable(() -> VirtualThreads.newExecutor("test-"));
+            assertThat(exception).isInstanceOf(IllegalStateException.class).hasMessageContaining("JDK 21+");
+            return;
+        }
+
+        ExecutorService executor = VirtualThreads.newExecutor("test-");
+        Thread[] ran = new Thread[1];
+        executor.submit(() -> ran[0] = Thread.currentThread()).get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        Method isVirtual = Thread.class.getMethod("isVirtual");
+        assertThat((Boolean) isVirtual.invoke(ran[0])).isTrue();
+        assertThat(ran[0].getName()).isEqualTo("test-0");
+    }
+}
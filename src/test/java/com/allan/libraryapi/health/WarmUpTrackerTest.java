@@ -0,0 +1,56 @@
+package com.allan.libraryapi.health;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WarmUpTrackerTest {
+
+    WarmUpTracker tracker;
+    List<ReadinessState> published;
+
+    @BeforeEach
+    public void setUp() {
+        published = new ArrayList<>();
+        tracker = new WarmUpTracker(event -> {
+            AvailabilityChangeEvent<?> change = (AvailabilityChangeEvent<?>) event;
+            published.add((ReadinessState) change.getState());
+        });
+    }
+
+    @Test
+    @DisplayName("Deve recusar trafego ate o fim do aquecimento e aceitar quando a ultima tarefa terminar")
+    public void holdReadinessTest() {
+        tracker.started("suggestions");
+        tracker.started("catalogStore");
+
+        tracker.onReadinessChanged(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+        assertThat(published).containsExactly(ReadinessState.REFUSING_TRAFFIC);
+
+        tracker.completed("suggestions");
+        assertThat(published).containsExactly(ReadinessState.REFUSING_TRAFFIC);
+        assertThat(tracker.getTasks()).containsEntry("suggestions", "done").containsEntry("catalogStore", "running");
+
+        tracker.completed("catalogStore");
+        assertThat(published).containsExactly(ReadinessState.REFUSING_TRAFFIC, ReadinessState.ACCEPTING_TRAFFIC);
+        assertThat(tracker.isComplete()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Nao deve mexer na readiness se o aquecimento terminou antes da aplicacao ficar pronta")
+    public void warmUpBeforeReadyTest() {
+        tracker.started("suggestions");
+        tracker.completed("suggestions");
+
+        tracker.onReadinessChanged(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+
+        assertThat(published).isEmpty();
+    }
+}
@@ -0,0 +1,370 @@
+package com.allan.libraryapi.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Gerador de carga contra uma instancia rodando com o profile "loadtest".
+ *
+ * Uso:
+ * <pre>
+ *   mvn spring-boot:run -Dspring-boot.run.profiles=loadtest -Dspring-boot.run.jvmArguments=-Xmx4g
+ *   (aguardar "Load test catalog seeded" no log)
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes \
+ *        -Dthreads=32 -Dduration=60 -Dmix=search:60,get:25,create:10,checkout:5 \
+ *        com.allan.libraryapi.loadtest.LoadTestRunner
+ * </pre>
+ *
+ * A seed e o numero de livros devem ser os mesmos usados pelo seeder (library.loadtest.*),
+ * assim ids, ISBNs e termos de busca sorteados existem no banco. Ao final imprime vazao e
+ * percentis de latencia por operacao. Para repetir a carga na mesma instancia sem colidir
+ * ISBNs dos livros criados, use um -DcreateOffset diferente a cada execucao.
+ *
+ * Tambem amostra o servidor pelo actuator (threads vivas e heap usado) antes da carga e a cada
+ * segundo durante a medicao; com -Dpid=&lt;pid do servidor&gt; (Linux) inclui o RSS do processo,
+ * onde aparecem as pilhas das threads de plataforma. Para comparar threads virtuais com o pool
+ * de plataforma, suba o servidor no JDK 21 (build com -Pjdk21) com e sem
+ * --library.web.virtual-threads=true e rode a mesma carga com muitas threads (ex.: -Dthreads=2000).
+ */
+public class LoadTestRunner {
+
+    enum Operation { SEARCH, GET, CREATE, CHECKOUT }
+
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+
+    private final String baseUrl;
+    private final SyntheticCatalog catalog;
+    private final int books;
+    private final long createOffset;
+    private final Operation[] mix;
+    private final AtomicLong createdBooks = new AtomicLong();
+
+    LoadTestRunner(String baseUrl, long seed, int books, long createOffset, Operation[] mix) {
+        this.baseUrl = baseUrl;
+        this.catalog = new SyntheticCatalog(seed);
+        this.books = books;
+        this.createOffset = createOffset;
+        this.mix = mix;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("baseUrl", "http://localhost:8080");
+        long seed = Long.getLong("seed", 42L);
+        int books = Integer.getInteger("books", 1_000_000);
+        int threads = Integer.getInteger("threads", 32);
+        int warmup = Integer.getInteger("warmup", 10);
+        int duration = Integer.getInteger("duration", 60);
+        long createOffset = Long.getLong("createOffset", 0L);
+        long pid = Long.getLong("pid", 0L);
+        Operation[] mix = parseMix(System.getProperty("mix", "search:60,get:25,create:10,checkout:5"));
+
+        LoadTestRunner runner = new LoadTestRunner(baseUrl, seed, books, createOffset, mix);
+
+        System.out.printf("Warm-up: %d s with %d threads%n", warmup, threads);
+        runner.run(threads, warmup, seed + 1);
+
+        ServerStats idle = runner.sample(pid);
+
+        System.out.printf("Measuring: %d s with %d threads against %s%n", duration, threads, baseUrl);
+        ServerStats peak = new ServerStats();
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.max(runner.sample(pid));
+                try {
+                    Thread.sleep(1_000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "load-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        Result[] results = runner.run(threads, duration, seed);
+        sampler.interrupt();
+        report(results, duration);
+        report(idle, peak, threads);
+    }
+
+    ServerStats sample(long pid) {
+        ServerStats stats = new ServerStats();
+        stats.threads = metric("jvm.threads.live", "");
+        stats.heapBytes = metric("jvm.memory.used", "?tag=area:heap");
+        stats.rssBytes = rss(pid);
+        return stats;
+    }
+
+    private double metric(String name, String query) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/actuator/metrics/" + name + query)
+                    .openConnection();
+            connection.setConnectTimeout(5_000);
+            connection.setReadTimeout(5_000);
+            try (InputStream in = connection.getInputStream()) {
+                Matcher matcher = METRIC_VALUE.matcher(new String(readAll(in), StandardCharsets.UTF_8));
+                return matcher.find() ? Double.parseDouble(matcher.group(1)) : -1;
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    //VmRSS de /proc/<pid>/status, em bytes; -1 fora do Linux ou sem -Dpid
+    private static double rss(long pid) {
+        if (pid <= 0) {
+            return -1;
+        }
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/" + pid + "/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024.0;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            //sem RSS no relatorio
+        }
+        return -1;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    Result[] run(int threads, int seconds, long runSeed) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        Worker[] workers = new Worker[threads];
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(new SplittableRandom(runSeed * 31 + i), deadline, done);
+            Thread thread = new Thread(workers[i], "load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        Result[] merged = new Result[Operation.values().length];
+        for (Operation operation : Operation.values()) {
+            merged[operation.ordinal()] = new Result(operation);
+            for (Worker worker : workers) {
+                merged[operation.ordinal()].merge(worker.results[operation.ordinal()]);
+            }
+        }
+        return merged;
+    }
+
+    private class Worker implements Runnable {
+
+        private final SplittableRandom random;
+        private final long deadline;
+        private final CountDownLatch done;
+        private final Result[] results = new Result[Operation.values().length];
+
+        Worker(SplittableRandom random, long deadline, CountDownLatch done) {
+            this.random = random;
+            this.deadline = deadline;
+            this.done = done;
+            for (Operation operation : Operation.values()) {
+                results[operation.ordinal()] = new Result(operation);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (System.nanoTime() < deadline) {
+                    Operation operation = mix[random.nextInt(mix.length)];
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = execute(operation, random);
+                    } catch (IOException e) {
+                        status = -1;
+                    }
+                    results[operation.ordinal()].record(System.nanoTime() - start, status);
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    private int execute(Operation operation, SplittableRandom random) throws IOException {
+        switch (operation) {
+            case SEARCH:
+                String query = random.nextBoolean()
+                        ? "title=" + encode(catalog.searchWord(random))
+                        : "author=" + encode(catalog.authorName(random));
+                return request("GET", "/api/books?" + query + "&page=" + random.nextInt(5) + "&size=20", null);
+            case GET:
+                return request("GET", "/api/books/" + (1 + random.nextInt(books)), null);
+            case CREATE:
+                long index = books + createOffset + createdBooks.incrementAndGet();
+                return request("POST", "/api/books", String.format(
+                        "{\"title\":\"%s\",\"author\":\"%s\",\"isbn\":\"%s\"}",
+                        catalog.title(index), catalog.author(index), catalog.isbn(index)));
+            case CHECKOUT:
+                return request("POST", "/api/loans", String.format(
+                        "{\"isbn\":\"%s\",\"customer\":\"customer-%d\"}",
+                        catalog.isbn(random.nextInt(books)), random.nextInt(100_000)));
+            default:
+                throw new IllegalStateException("Unknown operation " + operation);
+        }
+    }
+
+    private int request(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept", "application/json");
+        connection.setConnectTimeout(5_000);
+        connection.setReadTimeout(30_000);
+
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        int status = connection.getResponseCode();
+        //consome o corpo inteiro para a conexao voltar ao pool do keep-alive
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) != -1) {
+                    //descarta
+                }
+            }
+        }
+        return status;
+    }
+
+    static class Result {
+
+        final Operation operation;
+        long[] latencies = new long[1024];
+        int count;
+        long clientErrors;
+        long serverErrors;
+
+        Result(Operation operation) {
+            this.operation = operation;
+        }
+
+        void record(long nanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+
+            if (status < 0 || status >= 500) {
+                serverErrors++;
+            } else if (status >= 400) {
+                clientErrors++;
+            }
+        }
+
+        void merge(Result other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], 200);
+            }
+            clientErrors += other.clientErrors;
+            serverErrors += other.serverErrors;
+        }
+
+        double percentileMillis(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            return latencies[Math.max(0, Math.min(index, count - 1))] / 1_000_000.0;
+        }
+    }
+
+    static void report(Result[] results, int seconds) {
+        long total = 0;
+        System.out.printf("%-9s %10s %10s %8s %8s %8s %8s %8s %8s %8s%n",
+                "operation", "requests", "req/s", "4xx", "5xx", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        for (Result result : results) {
+            Arrays.sort(result.latencies, 0, result.count);
+            total += result.count;
+            System.out.printf("%-9s %10d %10.1f %8d %8d %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+                    result.operation.name().toLowerCase(), result.count, result.count / (double) seconds,
+                    result.clientErrors, result.serverErrors,
+                    result.percentileMillis(50), result.percentileMillis(90), result.percentileMillis(99),
+                    result.percentileMillis(99.9), result.percentileMillis(100));
+        }
+
+        System.out.printf("total     %10d %10.1f%n", total, total / (double) seconds);
+    }
+
+    static class ServerStats {
+
+        double threads = -1;
+        double heapBytes = -1;
+        double rssBytes = -1;
+
+        synchronized void max(ServerStats other) {
+            threads = Math.max(threads, other.threads);
+            heapBytes = Math.max(heapBytes, other.heapBytes);
+            rssBytes = Math.max(rssBytes, other.rssBytes);
+        }
+    }
+
+    static void report(ServerStats idle, ServerStats peak, int clients) {
+        System.out.printf("%-14s %12s %12s %22s%n", "server", "idle", "peak", "(peak - idle) / client");
+        print("threads live", idle.threads, peak.threads, clients, 1);
+        print("heap used MB", idle.heapBytes, peak.heapBytes, clients, 1024 * 1024);
+        print("RSS MB", idle.rssBytes, peak.rssBytes, clients, 1024 * 1024);
+    }
+
+    private static void print(String name, double idle, double peak, int clients, double unit) {
+        if (idle < 0 || peak < 0) {
+            System.out.printf("%-14s %12s %12s %22s%n", name, "-", "-", "-");
+            return;
+        }
+        System.out.printf("%-14s %12.1f %12.1f %22.3f%n", name, idle / unit, peak / unit, (peak - idle) / unit / clients);
+    }
+
+    static Operation[] parseMix(String value) {
+        List<Operation> operations = new ArrayList<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            Operation operation = Operation.valueOf(parts[0].trim().toUpperCase());
+            int weight = Integer.parseInt(parts[1].trim());
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        }
+        return operations.toArray(new Operation[0]);
+    }
+
+    private static String encode(String value) throws IOException {
+        return URLEncoder.encode(value, "UTF-8");
+    }
+}
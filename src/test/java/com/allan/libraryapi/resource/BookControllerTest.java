@@ -1,9 +1,15 @@
 package com.allan.libraryapi.resource;
 
+import com.allan.libraryapi.api.pageable.PageablePolicy;
 import com.allan.libraryapi.dto.BookDTO;
 import com.allan.libraryapi.exception.BusinessException;
 import com.allan.libraryapi.model.entity.Book;
 import com.allan.libraryapi.service.BookService;
+import com.allan.libraryapi.service.catalog.BookView;
+import com.allan.libraryapi.service.catalog.CatalogStore;
+import com.allan.libraryapi.service.snapshot.CatalogSnapshot;
+import com.allan.libraryapi.service.popularity.BookPopularityTracker;
+import com.allan.libraryapi.service.views.BookViewCounter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
@@ -16,6 +22,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -23,6 +30,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -38,6 +46,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 @WebMvcTest(controllers = BookController.class)
 @AutoConfigureMockMvc
+@Import(PageablePolicy.class)
 public class BookControllerTest {
 
     static String BOOK_API = "/api/books";
@@ -48,12 +57,21 @@ public class BookControllerTest {
     @MockBean
     BookService bookService;
 
+    @MockBean
+    BookPopularityTracker popularityTracker;
+
+    @MockBean
+    BookViewCounter viewCounter;
+
+    @MockBean
+    CatalogStore catalogStore;
+
     @Test
     @DisplayName("Deve criar um livro com sucesso")
     public void createBookTest() throws Exception {
 
-        BookDTO dto = BookDTO.builder().author("Allan").title("As aventuras").isbn("001").build();
-        Book savedBook = Book.builder().id(1L).author("Allan").title("As aventuras").isbn("001").build();
+        BookDTO dto = BookDTO.builder().author("Allan").title("As aventuras").isbn("0306406152").build();
+        Book savedBook = Book.builder().id(1L).author("Allan").title("As aventuras").isbn("0306406152").build();
         BDDMockito.given(bookService.save(Mockito.any(Book.class))).willReturn(savedBook);
         String json = new ObjectMapper().writeValueAsString(dto);
 
@@ -135,6 +153,8 @@ public class BookControllerTest {
             .andExpect(jsonPath("title").value(createNewBook().getTitle()) )
             .andExpect(jsonPath("author").value(createNewBook().getAuthor()) )
             .andExpect(jsonPath("isbn").value(createNewBook().getIsbn()) );
+
+        Mockito.verify(viewCounter).record(id);
     }
 
     @Test
@@ -149,7 +169,8 @@ public class BookControllerTest {
 
         mvc
                 .perform(request)
-                .andExpect(status().isNotFound());
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("errors[0]").value("Not found"));
     }
 
     @Test
@@ -187,10 +208,10 @@ public class BookControllerTest {
     public void updateBookTest() throws Exception{
         Long id = 1L;
         String json = new ObjectMapper().writeValueAsString(createNewBook());
-        Book updatingbook = Book.builder().id(1L).author("Outro autor").title("Outro titulo").isbn("123").build();
+        Book updatingbook = Book.builder().id(1L).author("Outro autor").title("Outro titulo").isbn("9780306406157").build();
         BDDMockito.given(bookService.getById(id)).willReturn(Optional.of(updatingbook));
 
-        Book updatedBook = Book.builder().id(id).author("Allan").title("As aventuras").isbn("123").build();
+        Book updatedBook = Book.builder().id(id).author("Allan").title("As aventuras").isbn("9780306406157").build();
         BDDMockito.given(bookService.update(updatingbook)).willReturn(updatedBook);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -205,7 +226,7 @@ public class BookControllerTest {
                 .andExpect(jsonPath("id").value(id) )
                 .andExpect(jsonPath("title").value(createNewBook().getTitle()) )
                 .andExpect(jsonPath("author").value(createNewBook().getAuthor()) )
-                .andExpect(jsonPath("isbn").value("123") );
+                .andExpect(jsonPath("isbn").value("9780306406157") );
         ;
     }
 
@@ -262,8 +283,166 @@ public class BookControllerTest {
 
 
 
+    @Test
+    @DisplayName("Deve atender a consulta por id pelo catalogo em memoria quando ele estiver carregado")
+    public void getBookFromCatalogStoreTest() throws Exception {
+        BookView book = new CatalogSnapshot.Entry(1L, "As aventuras", "Allan", "9780306406157");
+        BDDMockito.given(catalogStore.isReady()).willReturn(true);
+        BDDMockito.given(catalogStore.getById(1L)).willReturn(Optional.of(book));
+
+        mvc
+            .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("id").value(1))
+            .andExpect(jsonPath("title").value("As aventuras"))
+            .andExpect(jsonPath("isbn").value("9780306406157"));
+
+        Mockito.verify(bookService, Mockito.never()).getById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve buscar no banco o livro que ainda nao chegou ao catalogo em memoria")
+    public void getBookMissingFromCatalogStoreTest() throws Exception {
+        Book book = Book.builder().id(1L).title("As aventuras").author("Allan").isbn("9780306406157").build();
+        BDDMockito.given(catalogStore.isReady()).willReturn(true);
+        BDDMockito.given(catalogStore.getById(1L)).willReturn(Optional.empty());
+        BDDMockito.given(bookService.getById(1L)).willReturn(Optional.of(book));
+
+        mvc
+            .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("id").value(1))
+            .andExpect(jsonPath("title").value("As aventuras"));
+
+        Mockito.verify(bookService).getById(1L);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros pelo catalogo em memoria quando a ordem pedida permitir")
+    public void findBooksFromCatalogStoreTest() throws Exception {
+        BookView book = new CatalogSnapshot.Entry(1L, "As aventuras", "Allan", "9780306406157");
+        BDDMockito.given(catalogStore.canServe(Mockito.any(Pageable.class))).willReturn(true);
+        BDDMockito.given(catalogStore.find(Mockito.isNull(), Mockito.eq("aventuras"), Mockito.isNull(),
+                Mockito.isNull(), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<>(Arrays.asList(book), PageRequest.of(0, 10), 1));
+
+        mvc
+            .perform(MockMvcRequestBuilders.get(BOOK_API.concat("?title=aventuras&page=0&size=10"))
+                    .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("content", Matchers.hasSize(1)))
+            .andExpect(jsonPath("content[0].author").value("Allan"))
+            .andExpect(jsonPath("totalElements").value(1));
+
+        Mockito.verify(bookService, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros pelo prefixo do titulo")
+    public void findBooksByPrefixTest() throws Exception {
+        Book book = Book.builder()
+                    .id(1L)
+                    .title(createNewBook().getTitle())
+                    .author(createNewBook().getAuthor())
+                    .isbn(createNewBook().getIsbn())
+                    .build();
+
+        BDDMockito.given( bookService.findByPrefix(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 10), 1));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=as%20av&match=prefix&page=0&size=10"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("totalElements").value(1));
+
+        Mockito.verify(bookService, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar busca com tamanho de pagina acima do limite")
+    public void findBooksWithPageSizeAboveLimitTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?page=0&size=1000"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc
+                .perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors", hasSize(1)))
+                .andExpect(jsonPath("errors[0]").value("Page size must be at most 100"));
+
+        Mockito.verify(bookService, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar busca com pagina alem da janela de resultados")
+    public void findBooksWithPageBeyondResultWindowTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?page=100&size=100"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc
+                .perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Page must end within the first 10000 results"));
+
+        Mockito.verify(bookService, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar busca ordenada por campo nao permitido")
+    public void findBooksSortedByUnknownFieldTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?page=0&size=10&sort=publisher,desc"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc
+                .perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Sort not allowed on field publisher"));
+
+        Mockito.verify(bookService, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros retornando uma linha JSON por livro")
+    public void streamBooksTest() throws Exception {
+        Book book = Book.builder()
+                    .id(1L)
+                    .title(createNewBook().getTitle())
+                    .author(createNewBook().getAuthor())
+                    .isbn(createNewBook().getIsbn())
+                    .build();
+        Book otherBook = Book.builder().id(2L).title("Outro titulo").author("Outro autor").isbn("456").build();
+
+        BDDMockito.given( bookService.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<Book>(Arrays.asList(book, otherBook), PageRequest.of(0, 100), 2));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/stream?page=0&size=100"))
+                .accept("application/x-ndjson");
+
+        MvcResult result = mvc
+                .perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "2"))
+                .andExpect(content().string(
+                        "{\"id\":1,\"title\":\"As aventuras\",\"author\":\"Allan\",\"isbn\":\"9780306406157\"}\n" +
+                        "{\"id\":2,\"title\":\"Outro titulo\",\"author\":\"Outro autor\",\"isbn\":\"456\"}\n"));
+    }
+
     private BookDTO createNewBook() {
-        return BookDTO.builder().id(1L).author("Allan").title("As aventuras").isbn("123").build();
+        return BookDTO.builder().id(1L).author("Allan").title("As aventuras").isbn("9780306406157").build();
     }
 
 }
@@ -0,0 +1,129 @@
+package com.allan.libraryapi.resource;
+
+import com.allan.libraryapi.dto.HoldDTO;
+import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.Hold;
+import com.allan.libraryapi.service.BookService;
+import com.allan.libraryapi.service.HoldService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = HoldController.class)
+@AutoConfigureMockMvc
+public class HoldControllerTest {
+
+    static final String HOLD_API = "/api/holds";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    BookService bookService;
+
+    @MockBean
+    HoldService holdService;
+
+    @Test
+    @DisplayName("Deve reservar um livro e informar a posição na fila")
+    public void placeHoldTest() throws Exception {
+        HoldDTO dto = HoldDTO.builder().isbn("123").customer("Fulano").build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+        Book book = Book.builder().id(1L).isbn("123").build();
+        Hold hold = Hold.builder().id(10L).book(book).customer("Fulano").status(Hold.Status.WAITING).build();
+
+        BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Optional.of(book));
+        BDDMockito.given(holdService.place(Mockito.any(Hold.class))).willReturn(hold);
+        BDDMockito.given(holdService.getPosition(hold)).willReturn(2L);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(HOLD_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("id").value(10))
+                .andExpect(jsonPath("status").value("WAITING"))
+                .andExpect(jsonPath("position").value(2));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao reservar um livro disponível")
+    public void placeHoldAvailableBookTest() throws Exception {
+        HoldDTO dto = HoldDTO.builder().isbn("123").customer("Fulano").build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Optional.of(Book.builder().id(1L).isbn("123").build()));
+        BDDMockito.given(holdService.place(Mockito.any(Hold.class))).willThrow(new BusinessException("Book available for loan"));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(HOLD_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors", Matchers.hasSize(1)))
+                .andExpect(jsonPath("errors[0]").value("Book available for loan"));
+    }
+
+    @Test
+    @DisplayName("Deve cancelar uma reserva")
+    public void cancelHoldTest() throws Exception {
+        Hold hold = Hold.builder().id(10L).status(Hold.Status.WAITING).build();
+        BDDMockito.given(holdService.getById(10L)).willReturn(Optional.of(hold));
+
+        mvc.perform(MockMvcRequestBuilders.delete(HOLD_API.concat("/10")))
+                .andExpect(status().isNoContent());
+
+        Mockito.verify(holdService).cancel(hold);
+    }
+
+    @Test
+    @DisplayName("Deve retornar not found ao cancelar uma reserva inexistente")
+    public void cancelInexistentHoldTest() throws Exception {
+        BDDMockito.given(holdService.getById(Mockito.anyLong())).willReturn(Optional.empty());
+
+        mvc.perform(MockMvcRequestBuilders.delete(HOLD_API.concat("/10")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve listar a fila de reservas de um livro em ordem")
+    public void listQueueTest() throws Exception {
+        Book book = Book.builder().id(1L).isbn("123").build();
+        BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Optional.of(book));
+        BDDMockito.given(holdService.getQueue(book)).willReturn(Arrays.asList(
+                Hold.builder().id(10L).book(book).customer("Fulano").status(Hold.Status.WAITING).build(),
+                Hold.builder().id(11L).book(book).customer("Ciclano").status(Hold.Status.WAITING).build()));
+
+        mvc.perform(MockMvcRequestBuilders.get(HOLD_API.concat("?isbn=123")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(2)))
+                .andExpect(jsonPath("$[1].customer").value("Ciclano"))
+                .andExpect(jsonPath("$[1].position").value(2));
+    }
+}
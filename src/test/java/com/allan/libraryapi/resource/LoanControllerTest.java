@@ -1,11 +1,14 @@
 package com.allan.libraryapi.resource;
 
+import com.allan.libraryapi.api.pageable.PageablePolicy;
 import com.allan.libraryapi.dto.LoanDTO;
+import com.allan.libraryapi.dto.ReturnedLoanDTO;
 import com.allan.libraryapi.exception.BusinessException;
 import com.allan.libraryapi.model.entity.Book;
 import com.allan.libraryapi.model.entity.Loan;
 import com.allan.libraryapi.service.BookService;
 import com.allan.libraryapi.service.LoanService;
+import com.allan.libraryapi.service.popularity.BookPopularityTracker;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
@@ -17,6 +20,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -25,6 +32,8 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -33,6 +42,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 @WebMvcTest(controllers = LoanController.class)
 @AutoConfigureMockMvc
+@Import(PageablePolicy.class)
 public class LoanControllerTest {
 
     static final String LOAN_API = "/api/loans";
@@ -46,17 +56,20 @@ public class LoanControllerTest {
     @MockBean
     LoanService loanService;
 
+    @MockBean
+    BookPopularityTracker popularityTracker;
+
     @Test
     @DisplayName("Deve realizar um empréstimo")
     public void createLoanTest() throws Exception {
 
         //cenario
-        LoanDTO dto = LoanDTO.builder().isbn("123").customer("Allan").build();
+        LoanDTO dto = LoanDTO.builder().isbn("9780306406157").customer("Allan").build();
         String json = new ObjectMapper().writeValueAsString(dto);
-        Book book = Book.builder().id(1L).isbn("123").build();
+        Book book = Book.builder().id(1L).isbn("9780306406157").build();
 
-        BDDMockito.given(bookService.getBookByIsbn("123"))
-                .willReturn(Optional.of(Book.builder().id(1L).isbn("123").build()));
+        BDDMockito.given(bookService.getBookByIsbn("9780306406157"))
+                .willReturn(Optional.of(Book.builder().id(1L).isbn("9780306406157").build()));
 
         Loan loan = Loan.builder().id(1L).customer("Allan").book(book).loanDate(LocalDate.now()).build();
         BDDMockito.given(loanService.save(Mockito.any(Loan.class))).willReturn(loan);
@@ -70,15 +83,33 @@ public class LoanControllerTest {
                 .andExpect(status().isCreated())
                 .andExpect(content().string("1"));
 
+        Mockito.verify(popularityTracker).record(BookPopularityTracker.Metric.LOANS, 1L);
+    }
+
+    @Test
+    @DisplayName("Deve emprestar livro cadastrado com ISBN sem digito verificador valido")
+    public void legacyIsbnCreateLoanTest() throws Exception {
+        LoanDTO dto = LoanDTO.builder().isbn("123").customer("Allan").build();
+        Book book = Book.builder().id(1L).isbn("123").build();
+
+        BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Optional.of(book));
+        BDDMockito.given(loanService.save(Mockito.any(Loan.class)))
+                .willReturn(Loan.builder().id(1L).customer("Allan").book(book).loanDate(LocalDate.now()).build());
+
+        mvc.perform(MockMvcRequestBuilders.post(LOAN_API)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(dto)))
+                .andExpect(status().isCreated());
     }
 
     @Test
     @DisplayName("Deve retornar erro ao tentar realizar empréstimo de livro inexistente")
     public void invalidIsbnCreateLoanTest() throws Exception{
-        LoanDTO dto = LoanDTO.builder().isbn("123").customer("Allan").build();
+        LoanDTO dto = LoanDTO.builder().isbn("9780306406157").customer("Allan").build();
         String json = new ObjectMapper().writeValueAsString(dto);
 
-        BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Optional.empty());
+        BDDMockito.given(bookService.getBookByIsbn("9780306406157")).willReturn(Optional.empty());
 
         MockHttpServletRequestBuilder request =  MockMvcRequestBuilders.post( LOAN_API)
                 .accept(MediaType.APPLICATION_JSON)
@@ -96,11 +127,11 @@ public class LoanControllerTest {
     @Test
     @DisplayName("Deve retornar erro ao tentar realizar empréstimo de livro já emprestado")
     public void loanedBookErrorOnCreateLoanTest() throws Exception{
-        LoanDTO dto = LoanDTO.builder().isbn("123").customer("Allan").build();
+        LoanDTO dto = LoanDTO.builder().isbn("9780306406157").customer("Allan").build();
         String json = new ObjectMapper().writeValueAsString(dto);
 
-        Book book = Book.builder().id(1L).isbn("123").build();
-        BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Optional.of(book));
+        Book book = Book.builder().id(1L).isbn("9780306406157").build();
+        BDDMockito.given(bookService.getBookByIsbn("9780306406157")).willReturn(Optional.of(book));
         BDDMockito.given(loanService.save(Mockito.any(Loan.class))).willThrow(new BusinessException("Book already loaned"));
 
 
@@ -116,4 +147,107 @@ public class LoanControllerTest {
         ;
 
     }
+
+    @Test
+    @DisplayName("Deve retornar um livro")
+    public void returnBookTest() throws Exception {
+        ReturnedLoanDTO dto = ReturnedLoanDTO.builder().returned(true).build();
+        Loan loan = Loan.builder().id(1L).build();
+        BDDMockito.given(loanService.getById(Mockito.anyLong())).willReturn(Optional.of(loan));
+
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        mvc.perform(
+                MockMvcRequestBuilders.patch(LOAN_API.concat("/1"))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json)
+        ).andExpect(status().isOk());
+
+        Mockito.verify(loanService, Mockito.times(1)).update(loan);
+    }
+
+    @Test
+    @DisplayName("Deve retornar 400 quando a devolucao vier sem o campo returned")
+    public void returnWithoutReturnedTest() throws Exception {
+        mvc.perform(
+                MockMvcRequestBuilders.patch(LOAN_API.concat("/1"))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}")
+        )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors", Matchers.hasSize(1)))
+                .andExpect(jsonPath("errors[0]").value("must not be null"));
+
+        Mockito.verify(loanService, Mockito.never()).update(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Deve retornar 404 quando tentar devolver um livro inexistente")
+    public void returnInexistentBookTest() throws Exception {
+        ReturnedLoanDTO dto = ReturnedLoanDTO.builder().returned(true).build();
+        BDDMockito.given(loanService.getById(Mockito.anyLong())).willReturn(Optional.empty());
+
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        mvc.perform(
+                MockMvcRequestBuilders.patch(LOAN_API.concat("/1"))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json)
+        ).andExpect(status().isNotFound());
+
+        Mockito.verify(loanService, Mockito.never()).update(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Deve listar os empréstimos em aberto do cliente")
+    public void findOpenLoansTest() throws Exception {
+        Book book = Book.builder().id(1L).isbn("9780306406157").build();
+        Loan loan = Loan.builder().id(1L).book(book).customer("Allan").loanDate(LocalDate.now()).returned(false).build();
+        BDDMockito.given(loanService.getOpenByCustomer("Allan")).willReturn(Collections.singletonList(loan));
+
+        mvc.perform(
+                MockMvcRequestBuilders.get(LOAN_API.concat("?customer=Allan"))
+                        .accept(MediaType.APPLICATION_JSON)
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].isbn").value("9780306406157"))
+                .andExpect(jsonPath("$[0].returned").value(false));
+    }
+
+    @Test
+    @DisplayName("Deve paginar o histórico de empréstimos do cliente")
+    public void findLoanHistoryTest() throws Exception {
+        Book book = Book.builder().id(1L).isbn("9780306406157").build();
+        Loan loan = Loan.builder().id(2L).book(book).customer("Allan").loanDate(LocalDate.now()).returned(true).build();
+        BDDMockito.given(loanService.getHistoryByCustomer(Mockito.eq("Allan"), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<>(Arrays.asList(loan), PageRequest.of(0, 10), 1));
+
+        mvc.perform(
+                MockMvcRequestBuilders.get(LOAN_API.concat("/history?customer=Allan&page=0&size=10"))
+                        .accept(MediaType.APPLICATION_JSON)
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(2))
+                .andExpect(jsonPath("content[0].returned").value(true))
+                .andExpect(jsonPath("totalElements").value(1));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar histórico com tamanho de pagina acima do limite")
+    public void findLoanHistoryWithPageSizeAboveLimitTest() throws Exception {
+        mvc.perform(
+                MockMvcRequestBuilders.get(LOAN_API.concat("/history?customer=Allan&page=0&size=1000"))
+                        .accept(MediaType.APPLICATION_JSON)
+        )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Page size must be at most 100"));
+
+        Mockito.verify(loanService, Mockito.never()).getHistoryByCustomer(Mockito.anyString(), Mockito.any(Pageable.class));
+    }
 }
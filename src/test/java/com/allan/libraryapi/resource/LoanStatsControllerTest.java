@@ -0,0 +1,44 @@
+package com.allan.libraryapi.resource;
+
+import com.allan.libraryapi.service.LoanStatsService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = LoanStatsController.class)
+@AutoConfigureMockMvc
+public class LoanStatsControllerTest {
+
+    static final String STATS_API = "/api/loans/stats";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    LoanStatsService loanStatsService;
+
+    @Test
+    @DisplayName("Deve retornar 400 quando o mes informado for invalido")
+    public void invalidMonthTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get(STATS_API.concat("/books/top?month=2024-13"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Invalid date"));
+
+        Mockito.verifyNoInteractions(loanStatsService);
+    }
+}
@@ -3,19 +3,25 @@ package com.allan.libraryapi.service;
 import com.allan.libraryapi.exception.BusinessException;
 import com.allan.libraryapi.model.entity.Book;
 import com.allan.libraryapi.model.repository.BookRepository;
+import com.allan.libraryapi.service.event.BookChangedEvent;
 import com.allan.libraryapi.service.impl.BookServiceImpl;
+import com.allan.libraryapi.tenant.TenantContext;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -34,9 +40,12 @@ public class BookServiceTest {
     @MockBean
     BookRepository bookRepository;
 
+    ApplicationEventPublisher eventPublisher;
+
     @BeforeEach
     public void setUp() {
-        this.bookService = new BookServiceImpl(bookRepository);
+        this.eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        this.bookService = new BookServiceImpl(bookRepository, eventPublisher);
     }
 
     @Test
@@ -44,7 +53,7 @@ public class BookServiceTest {
     public void saveBookTest() {
         //cenario
         Book book = createValidBook();
-        Mockito.when(bookRepository.existsByIsbn(Mockito.anyString())).thenReturn(false);
+        Mockito.when(bookRepository.existsByTenantIdAndIsbn(Mockito.anyString(), Mockito.anyString())).thenReturn(false);
 
         Mockito.when( bookRepository.save(book))
                 .thenReturn(Book.builder()
@@ -70,7 +79,7 @@ public class BookServiceTest {
     public void shouldNotSaveABookWithDuplicatedISBN() {
         Book book = createValidBook();
         //default da inteface de retorno boolean é false
-        Mockito.when(bookRepository.existsByIsbn(Mockito.anyString())).thenReturn(true);
+        Mockito.when(bookRepository.existsByTenantIdAndIsbn(Mockito.anyString(), Mockito.anyString())).thenReturn(true);
 
         Throwable exception = Assertions.catchThrowable(() -> bookService.save(book));
         assertThat(exception)
@@ -119,6 +128,28 @@ public class BookServiceTest {
         assertThat(book.isPresent()).isFalse();
     }
 
+    @Test
+    @DisplayName("Deve retornar vazio ao obter por ID um livro de outro tenant")
+    public void bookOfOtherTenantByIdTest() {
+        Long id = 1L;
+        Book book = createValidBook();
+        book.setId(id);
+        book.setTenantId("filial-b");
+        Mockito.when(bookRepository.findById(id)).thenReturn(Optional.of(book));
+
+        //execucao
+        TenantContext.set("filial-a");
+        Optional<Book> found;
+        try {
+            found = bookService.getById(id);
+        } finally {
+            TenantContext.clear();
+        }
+
+        //verificacao
+        assertThat(found.isPresent()).isFalse();
+    }
+
     @Test
     @DisplayName("Deve deletar um livro.")
     public void deleteBookTest() {
@@ -207,4 +238,53 @@ public class BookServiceTest {
 
 
     }
+
+    @Test
+    @DisplayName("Deve obter um livro pelo isbn")
+    public void getBookByIsbnTest() {
+        String isbn = "123";
+        Mockito.when(bookRepository.findByTenantIdAndIsbn(TenantContext.DEFAULT_TENANT, isbn))
+                .thenReturn(Optional.of(Book.builder().id(1L).isbn(isbn).build()));
+
+        Optional<Book> book = bookService.getBookByIsbn(isbn);
+
+        assertThat(book.isPresent()).isTrue();
+        assertThat(book.get().getId()).isEqualTo(1L);
+        assertThat(book.get().getIsbn()).isEqualTo(isbn);
+        Mockito.verify(bookRepository, Mockito.times(1)).findByTenantIdAndIsbn(TenantContext.DEFAULT_TENANT, isbn);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros pelo prefixo das colunas normalizadas")
+    public void findBookByPrefixTest() {
+        Book filter = Book.builder().title("Memórias").build();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+
+        List<Book> list = Arrays.asList(createValidBook());
+        Mockito.when(bookRepository.findAll(Mockito.any(Specification.class), Mockito.any(Pageable.class)))
+                .thenReturn(new PageImpl<Book>(list, pageRequest, 1));
+
+        Page<Book> result = bookService.findByPrefix(filter, pageRequest);
+
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent()).isEqualTo(list);
+        Mockito.verify(bookRepository, Mockito.never()).findAll(Mockito.any(Example.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve publicar evento de criacao ao salvar um livro")
+    public void publishEventOnSaveTest() {
+        Book book = createValidBook();
+        Book savedBook = createValidBook();
+        savedBook.setId(1L);
+        Mockito.when(bookRepository.existsByTenantIdAndIsbn(Mockito.anyString(), Mockito.anyString())).thenReturn(false);
+        Mockito.when(bookRepository.save(book)).thenReturn(savedBook);
+
+        bookService.save(book);
+
+        ArgumentCaptor<BookChangedEvent> captor = ArgumentCaptor.forClass(BookChangedEvent.class);
+        Mockito.verify(eventPublisher).publishEvent(captor.capture());
+        assertThat(captor.getValue().getType()).isEqualTo(BookChangedEvent.Type.CREATED);
+        assertThat(captor.getValue().getBook()).isSameAs(savedBook);
+    }
 }
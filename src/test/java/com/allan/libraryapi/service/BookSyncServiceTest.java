@@ -0,0 +1,133 @@
+package com.allan.libraryapi.service;
+
+import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.DeletedBook;
+import com.allan.libraryapi.model.repository.BookRepository;
+import com.allan.libraryapi.model.repository.DeletedBookRepository;
+import com.allan.libraryapi.service.event.BookChangedEvent;
+import com.allan.libraryapi.service.impl.BookSyncServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class BookSyncServiceTest {
+
+    BookSyncService bookSyncService;
+
+    @MockBean
+    BookRepository bookRepository;
+
+    @MockBean
+    DeletedBookRepository deletedBookRepository;
+
+    @BeforeEach
+    public void setUp() {
+        this.bookSyncService = new BookSyncServiceImpl(bookRepository, deletedBookRepository, 0, 30, 1000);
+    }
+
+    @Test
+    @DisplayName("Deve intercalar livros alterados e removidos pela marca d'agua")
+    public void findChangesSinceTest() {
+        Instant now = Instant.now();
+        Book first = Book.builder().id(1L).updatedAt(now.minusSeconds(30)).build();
+        Book third = Book.builder().id(3L).updatedAt(now.minusSeconds(10)).build();
+        DeletedBook second = DeletedBook.builder().bookId(2L).deletedAt(now.minusSeconds(20)).build();
+
+        Mockito.when(bookRepository.findChangedSince(Mockito.any(Instant.class), Mockito.anyLong(),
+                Mockito.any(Instant.class), Mockito.any(Pageable.class))).thenReturn(Arrays.asList(first, third));
+        Mockito.when(deletedBookRepository.findDeletedSince(Mockito.any(Instant.class), Mockito.anyLong(),
+                Mockito.any(Instant.class), Mockito.any(Pageable.class))).thenReturn(Collections.singletonList(second));
+
+        BookChanges changes = bookSyncService.findChangesSince(null, 2);
+
+        assertThat(changes.getChanged()).containsExactly(first);
+        assertThat(changes.getDeleted()).containsExactly(second);
+        assertThat(changes.getWatermark()).isEqualTo(second.getDeletedAt().toEpochMilli() + ":2");
+        assertThat(changes.isHasMore()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve ler so os livros e lapides do tenant informado")
+    public void findTenantChangesSinceTest() {
+        Instant now = Instant.now();
+        Book book = Book.builder().id(1L).tenantId("filial").updatedAt(now.minusSeconds(30)).build();
+
+        Mockito.when(bookRepository.findTenantChangedSince(Mockito.eq("filial"), Mockito.any(Instant.class),
+                Mockito.anyLong(), Mockito.any(Instant.class), Mockito.any(Pageable.class)))
+                .thenReturn(Collections.singletonList(book));
+
+        BookChanges changes = bookSyncService.findChangesSince("filial", null, 10);
+
+        assertThat(changes.getChanged()).containsExactly(book);
+        Mockito.verify(deletedBookRepository).findTenantDeletedSince(Mockito.eq("filial"), Mockito.any(Instant.class),
+                Mockito.anyLong(), Mockito.any(Instant.class), Mockito.any(Pageable.class));
+        Mockito.verify(bookRepository, Mockito.never()).findChangedSince(Mockito.any(Instant.class), Mockito.anyLong(),
+                Mockito.any(Instant.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve reler a janela antes da marca d'agua e entregar o commit atrasado sem repetir a pagina")
+    public void rereadLateCommitTest() {
+        long mark = Instant.now().minusSeconds(60).toEpochMilli();
+        Book late = Book.builder().id(9L).tenantId("filial").updatedAt(Instant.ofEpochMilli(mark - 500)).build();
+        Book next = Book.builder().id(2L).tenantId("filial").updatedAt(Instant.ofEpochMilli(mark + 1000)).build();
+
+        //a releitura vai de 1s antes da marca d'agua ate ela; a pagina, dela em diante
+        Mockito.when(bookRepository.findTenantChangedSince(Mockito.eq("filial"), Mockito.eq(Instant.ofEpochMilli(mark)),
+                Mockito.eq(7L), Mockito.any(Instant.class), Mockito.any(Pageable.class)))
+                .thenReturn(Collections.singletonList(next));
+        Mockito.when(bookRepository.findTenantChangedSince(Mockito.eq("filial"), Mockito.eq(Instant.ofEpochMilli(mark - 1000)),
+                Mockito.eq(0L), Mockito.eq(Instant.ofEpochMilli(mark)), Mockito.any(Pageable.class)))
+                .thenReturn(Collections.singletonList(late));
+
+        BookChanges changes = bookSyncService.findChangesSince("filial", mark + ":7", 10);
+
+        assertThat(changes.getChanged()).containsExactly(late, next);
+        assertThat(changes.getWatermark()).isEqualTo((mark + 1000) + ":2");
+        assertThat(changes.isHasMore()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar marca d'agua invalida")
+    public void invalidWatermarkTest() {
+        Throwable exception = catchThrowable(() -> bookSyncService.findChangesSince("abc", 10));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Invalid watermark");
+    }
+
+    @Test
+    @DisplayName("Deve recuar a marca d'agua pela janela informada")
+    public void rewindTest() {
+        assertThat(bookSyncService.rewind("5000:7", 1000)).isEqualTo("4000:0");
+        assertThat(bookSyncService.rewind("500:7", 1000)).isEqualTo("0:0");
+        assertThat(bookSyncService.rewind(null, 1000)).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve gravar lapide ao remover um livro")
+    public void saveTombstoneOnDeleteTest() {
+        Book book = Book.builder().id(1L).isbn("123").tenantId("filial").build();
+
+        ((BookSyncServiceImpl) bookSyncService).onBookChanged(new BookChangedEvent(BookChangedEvent.Type.DELETED, book));
+
+        Mockito.verify(deletedBookRepository).save(Mockito.<DeletedBook>argThat(tombstone ->
+                tombstone.getBookId().equals(1L) && tombstone.getDeletedAt() != null
+                        && tombstone.getTenantId().equals("filial")));
+    }
+}
@@ -0,0 +1,180 @@
+package com.allan.libraryapi.service;
+
+import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.OutboxEvent;
+import com.allan.libraryapi.model.entity.OutboxSequence;
+import com.allan.libraryapi.model.repository.OutboxEventRepository;
+import com.allan.libraryapi.model.repository.OutboxSequenceRepository;
+import com.allan.libraryapi.service.event.BookChangedEvent;
+import com.allan.libraryapi.service.impl.ChangeEventServiceImpl;
+import com.allan.libraryapi.tenant.TenantContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import({ChangeEventServiceImpl.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ChangeEventServiceTest {
+
+    @Autowired
+    ChangeEventServiceImpl service;
+
+    @Autowired
+    OutboxEventRepository repository;
+
+    @Autowired
+    OutboxSequenceRepository sequenceRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transaction;
+
+    @BeforeEach
+    public void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        repository.deleteAll();
+        sequenceRepository.save(OutboxSequence.builder().id(OutboxSequence.ID).lastPosition(0L).build());
+    }
+
+    @Test
+    @DisplayName("Deve numerar os eventos na ordem de commit, nao na ordem de gravacao")
+    public void commitOrderTest() throws Exception {
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        //grava o evento do livro 1 primeiro, mas so faz commit depois do livro 2
+        Future<?> slow = executor.submit(() -> transaction.execute(status -> {
+            service.onBookChanged(event(1L));
+            recorded.countDown();
+            await(release);
+            return null;
+        }));
+        assertThat(recorded.await(5, TimeUnit.SECONDS)).isTrue();
+
+        transaction.execute(status -> {
+            service.onBookChanged(event(2L));
+            return null;
+        });
+        assertThat(service.findSince(0L, 10)).extracting(OutboxEvent::getAggregateId).containsExactly(2L);
+
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        List<OutboxEvent> events = service.findSince(0L, 10);
+        assertThat(events).extracting(OutboxEvent::getAggregateId).containsExactly(2L, 1L);
+        assertThat(events).extracting(OutboxEvent::getPosition).containsExactly(1L, 2L);
+        assertThat(service.findSince(1L, 10)).extracting(OutboxEvent::getAggregateId).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Nao deve deixar buraco na numeracao quando a transacao for desfeita")
+    public void rollbackTest() {
+        transaction.execute(status -> {
+            service.onBookChanged(event(1L));
+            status.setRollbackOnly();
+            return null;
+        });
+        transaction.execute(status -> {
+            service.onBookChanged(event(2L));
+            service.onBookChanged(event(3L));
+            return null;
+        });
+
+        List<OutboxEvent> events = service.findSince(0L, 10);
+        assertThat(events).extracting(OutboxEvent::getAggregateId).containsExactly(2L, 3L);
+        assertThat(events).extracting(OutboxEvent::getPosition).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Deve gravar o tenant do livro e filtrar a leitura por tenant")
+    public void tenantTest() {
+        transaction.execute(status -> {
+            service.onBookChanged(event(1L, "filial"));
+            service.onBookChanged(event(2L));
+            return null;
+        });
+
+        assertThat(service.findSince("filial", 0L, 10)).extracting(OutboxEvent::getAggregateId).containsExactly(1L);
+        assertThat(service.findSince(TenantContext.DEFAULT_TENANT, 0L, 10))
+                .extracting(OutboxEvent::getAggregateId).containsExactly(2L);
+        assertThat(service.findSince(0L, 10)).extracting(OutboxEvent::getAggregateId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Deve exigir nova sincronizacao completa quando a posicao ja foi apagada do outbox")
+    public void expiredPositionTest() {
+        transaction.execute(status -> {
+            service.onBookChanged(event(1L));
+            service.onBookChanged(event(2L));
+            service.onBookChanged(event(3L));
+            return null;
+        });
+        //o OutboxRelay publica e depois a limpeza apaga as posicoes 1 e 2
+        repository.saveAll(publish(repository.findAll()));
+        transaction.execute(status -> repository.deletePublishedBefore(LocalDateTime.now().plusHours(1), 2L));
+        repository.findAll().forEach(event -> assertThat(event.getPosition()).isEqualTo(3L));
+
+        assertThat(service.findSince(TenantContext.DEFAULT_TENANT, 2L, 10))
+                .extracting(OutboxEvent::getAggregateId).containsExactly(3L);
+        Throwable exception = catchThrowable(() -> service.findSince(TenantContext.DEFAULT_TENANT, 1L, 10));
+        assertThat(exception).isInstanceOf(BusinessException.class)
+                .hasMessage("Position expired, a full resync is required");
+
+        //com o outbox vazio vale a ultima posicao numerada
+        transaction.execute(status -> repository.deletePublishedBefore(LocalDateTime.now().plusHours(1), 3L));
+        assertThat(service.findSince(TenantContext.DEFAULT_TENANT, 3L, 10)).isEmpty();
+        assertThat(catchThrowable(() -> service.findSince(TenantContext.DEFAULT_TENANT, 2L, 10)))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    private static List<OutboxEvent> publish(List<OutboxEvent> events) {
+        events.forEach(event -> event.setPublishedAt(LocalDateTime.now()));
+        return events;
+    }
+
+    private static BookChangedEvent event(Long bookId) {
+        return event(bookId, TenantContext.DEFAULT_TENANT);
+    }
+
+    private static BookChangedEvent event(Long bookId, String tenantId) {
+        return new BookChangedEvent(BookChangedEvent.Type.UPDATED,
+                Book.builder().id(bookId).tenantId(tenantId).title("Aventuras").author("Fulano").isbn("123").build());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.allan.libraryapi.service;
+
+import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.Hold;
+import com.allan.libraryapi.model.entity.Loan;
+import com.allan.libraryapi.model.repository.BookRepository;
+import com.allan.libraryapi.model.repository.HoldRepository;
+import com.allan.libraryapi.model.repository.LoanRepository;
+import com.allan.libraryapi.service.event.LoanChangedEvent;
+import com.allan.libraryapi.service.impl.HoldServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class HoldServiceTest {
+
+    HoldServiceImpl holdService;
+
+    @MockBean
+    HoldRepository repository;
+
+    @MockBean
+    BookRepository bookRepository;
+
+    @MockBean
+    LoanRepository loanRepository;
+
+    @MockBean
+    LoanService loanService;
+
+    Book book;
+
+    @BeforeEach
+    public void setUp() {
+        this.holdService = new HoldServiceImpl(repository, bookRepository, loanRepository, loanService);
+        this.book = Book.builder().id(1L).isbn("123").build();
+        Mockito.when(bookRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(book));
+    }
+
+    @Test
+    @DisplayName("Deve reservar um livro emprestado")
+    public void placeHoldTest() {
+        Hold hold = Hold.builder().book(book).customer("Fulano").build();
+        Mockito.when(loanRepository.existsByBookAndNotReturned(book)).thenReturn(true);
+        Mockito.when(repository.existsByBookAndCustomerAndStatus(book, "Fulano", Hold.Status.WAITING)).thenReturn(false);
+        Mockito.when(repository.save(hold)).thenReturn(hold);
+
+        Hold placed = holdService.place(hold);
+
+        assertThat(placed.getStatus()).isEqualTo(Hold.Status.WAITING);
+        assertThat(placed.getCreatedAt()).isNotNull();
+        Mockito.verify(bookRepository).findByIdForUpdate(1L);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio ao reservar um livro disponível")
+    public void placeHoldAvailableBookTest() {
+        Hold hold = Hold.builder().book(book).customer("Fulano").build();
+        Mockito.when(loanRepository.existsByBookAndNotReturned(book)).thenReturn(false);
+
+        Throwable exception = Assertions.catchThrowable(() -> holdService.place(hold));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book available for loan");
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(Hold.class));
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio ao reservar duas vezes o mesmo livro")
+    public void duplicatedHoldTest() {
+        Hold hold = Hold.builder().book(book).customer("Fulano").build();
+        Mockito.when(loanRepository.existsByBookAndNotReturned(book)).thenReturn(true);
+        Mockito.when(repository.existsByBookAndCustomerAndStatus(book, "Fulano", Hold.Status.WAITING)).thenReturn(true);
+
+        Throwable exception = Assertions.catchThrowable(() -> holdService.place(hold));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Customer already holds this book");
+    }
+
+    @Test
+    @DisplayName("Deve cancelar uma reserva na fila")
+    public void cancelHoldTest() {
+        Hold hold = Hold.builder().id(1L).book(book).customer("Fulano").status(Hold.Status.WAITING).build();
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(hold));
+        Mockito.when(repository.save(hold)).thenReturn(hold);
+
+        Hold cancelled = holdService.cancel(hold);
+
+        assertThat(cancelled.getStatus()).isEqualTo(Hold.Status.CANCELLED);
+    }
+
+    @Test
+    @DisplayName("Deve emprestar o livro para a primeira reserva na devolução")
+    public void assignNextHoldOnReturnTest() {
+        Hold hold = Hold.builder().id(1L).book(book).customer("Ciclano").status(Hold.Status.WAITING).build();
+        Loan returned = Loan.builder().id(1L).book(book).customer("Fulano").returned(true).build();
+        Mockito.when(loanRepository.existsByBookAndNotReturned(book)).thenReturn(false);
+        Mockito.when(repository.findFirstByBookAndStatusOrderByIdAsc(book, Hold.Status.WAITING)).thenReturn(Optional.of(hold));
+        Mockito.when(loanService.save(Mockito.any(Loan.class))).thenReturn(Loan.builder().id(2L).build());
+
+        holdService.onLoanChanged(new LoanChangedEvent(LoanChangedEvent.Type.RETURNED, returned));
+
+        ArgumentCaptor<Loan> loan = ArgumentCaptor.forClass(Loan.class);
+        Mockito.verify(loanService).save(loan.capture());
+        assertThat(loan.getValue().getCustomer()).isEqualTo("Ciclano");
+        assertThat(loan.getValue().getBook()).isEqualTo(book);
+        assertThat(hold.getStatus()).isEqualTo(Hold.Status.FULFILLED);
+        assertThat(hold.getLoanId()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Não deve atender reservas se o livro já foi emprestado de novo")
+    public void skipAssignWhenLoanedTest() {
+        Loan returned = Loan.builder().id(1L).book(book).customer("Fulano").returned(true).build();
+        Mockito.when(loanRepository.existsByBookAndNotReturned(book)).thenReturn(true);
+
+        holdService.onLoanChanged(new LoanChangedEvent(LoanChangedEvent.Type.RETURNED, returned));
+
+        Mockito.verify(loanService, Mockito.never()).save(Mockito.any(Loan.class));
+    }
+}
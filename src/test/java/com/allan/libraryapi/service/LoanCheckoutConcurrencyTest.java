@@ -0,0 +1,101 @@
+package com.allan.libraryapi.service;
+
+import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.Loan;
+import com.allan.libraryapi.model.repository.BookRepository;
+import com.allan.libraryapi.model.repository.LoanRepository;
+import com.allan.libraryapi.service.impl.LoanServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import(LoanServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LoanCheckoutConcurrencyTest {
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve recusar o segundo emprestimo simultaneo do mesmo livro")
+    public void concurrentCheckoutTest() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("Aventuras").author("Fulano").isbn("123").build());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CountDownLatch saved = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //o primeiro emprestimo grava e segura o commit ate o segundo ja estar esperando
+        Future<?> first = executor.submit(() -> transaction.execute(status -> {
+            loanService.save(loan(book, "Fulano"));
+            saved.countDown();
+            await(release);
+            return null;
+        }));
+        assertThat(saved.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Future<?> second = executor.submit(() -> transaction.execute(status -> loanService.save(loan(book, "Ciclano"))));
+        Thread.sleep(200);
+        release.countDown();
+
+        first.get(10, TimeUnit.SECONDS);
+        Throwable exception = catchThrowable(() -> second.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertThat(exception).isInstanceOf(ExecutionException.class);
+        assertThat(exception.getCause()).isInstanceOf(BusinessException.class).hasMessage("Book already loaned");
+        assertThat(loanRepository.count()).isEqualTo(1);
+    }
+
+    private static Loan loan(Book book, String customer) {
+        return Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.allan.libraryapi.service;
+
+import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.model.entity.ArchivedLoan;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.Loan;
+import com.allan.libraryapi.model.repository.ArchivedLoanRepository;
+import com.allan.libraryapi.model.repository.BookRepository;
+import com.allan.libraryapi.model.repository.LoanRepository;
+import com.allan.libraryapi.service.event.LoanChangedEvent;
+import com.allan.libraryapi.service.impl.LoanServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class LoanServiceTest {
+
+    LoanService loanService;
+
+    @MockBean
+    LoanRepository repository;
+
+    @MockBean
+    ArchivedLoanRepository archivedRepository;
+
+    @MockBean
+    BookRepository bookRepository;
+
+    ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    public void setUp() {
+        this.eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        this.loanService = new LoanServiceImpl(repository, archivedRepository, bookRepository, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Deve salvar um empréstimo")
+    public void saveLoanTest() {
+        Book book = Book.builder().id(1L).build();
+        Loan savingLoan = Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build();
+
+        Loan savedLoan = Loan.builder().id(1L).book(book).customer("Fulano").loanDate(LocalDate.now()).returned(false).build();
+
+        Mockito.when(repository.existsByBookAndNotReturned(book)).thenReturn(false);
+        Mockito.when(repository.save(savingLoan)).thenReturn(savedLoan);
+
+        Loan loan = loanService.save(savingLoan);
+
+        assertThat(loan.getId()).isEqualTo(savedLoan.getId());
+        assertThat(loan.getBook().getId()).isEqualTo(book.getId());
+        assertThat(loan.getCustomer()).isEqualTo("Fulano");
+        assertThat(savingLoan.getReturned()).isFalse();
+
+        //o livro e travado antes de conferir se ja esta emprestado
+        InOrder inOrder = Mockito.inOrder(bookRepository, repository);
+        inOrder.verify(bookRepository).findByIdForUpdate(1L);
+        inOrder.verify(repository).existsByBookAndNotReturned(book);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio ao salvar um empréstimo com livro já emprestado")
+    public void loanedBookSaveTest() {
+        Book book = Book.builder().id(1L).build();
+        Loan savingLoan = Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build();
+
+        Mockito.when(repository.existsByBookAndNotReturned(book)).thenReturn(true);
+
+        Throwable exception = Assertions.catchThrowable(() -> loanService.save(savingLoan));
+
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Book already loaned");
+
+        Mockito.verify(repository, Mockito.never()).save(savingLoan);
+    }
+
+    @Test
+    @DisplayName("Deve obter um empréstimo pelo id")
+    public void getLoanDetailsTest() {
+        Loan loan = Loan.builder().id(1L).customer("Fulano").book(Book.builder().id(1L).build()).build();
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(loan));
+
+        Optional<Loan> result = loanService.getById(1L);
+
+        assertThat(result.isPresent()).isTrue();
+        assertThat(result.get().getId()).isEqualTo(1L);
+        Mockito.verify(repository).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Deve obter do historico um empréstimo ja arquivado")
+    public void getArchivedLoanTest() {
+        Book book = Book.builder().id(1L).build();
+        ArchivedLoan archived = ArchivedLoan.builder().id(1L).customer("Fulano").book(book)
+                .loanDate(LocalDate.now()).archivedAt(LocalDateTime.now()).build();
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.empty());
+        Mockito.when(archivedRepository.findById(1L)).thenReturn(Optional.of(archived));
+
+        Optional<Loan> result = loanService.getById(1L);
+
+        assertThat(result.isPresent()).isTrue();
+        assertThat(result.get().getCustomer()).isEqualTo("Fulano");
+        assertThat(result.get().getReturned()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve arquivar o empréstimo e publicar a devolução")
+    public void updateLoanTest() {
+        Loan loan = Loan.builder().id(1L).customer("Fulano").book(Book.builder().id(1L).build()).returned(true).build();
+        Mockito.when(archivedRepository.existsById(1L)).thenReturn(false);
+        Mockito.when(repository.findByIdForUpdate(1L)).thenReturn(Optional.of(
+                Loan.builder().id(1L).customer("Fulano").returned(false).build()));
+
+        Loan updatedLoan = loanService.update(loan);
+
+        assertThat(updatedLoan.getReturned()).isTrue();
+        ArgumentCaptor<ArchivedLoan> archived = ArgumentCaptor.forClass(ArchivedLoan.class);
+        Mockito.verify(archivedRepository).save(archived.capture());
+        assertThat(archived.getValue().getId()).isEqualTo(1L);
+        assertThat(archived.getValue().getCustomer()).isEqualTo("Fulano");
+        Mockito.verify(repository).deleteById(1L);
+        Mockito.verify(eventPublisher).publishEvent(Mockito.any(LoanChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Nao deve publicar outra devolução de um empréstimo que ja estava devolvido")
+    public void updateAlreadyReturnedLoanTest() {
+        Loan loan = Loan.builder().id(1L).customer("Fulano").book(Book.builder().id(1L).build()).returned(true).build();
+        Mockito.when(archivedRepository.existsById(1L)).thenReturn(false);
+        Mockito.when(repository.findByIdForUpdate(1L)).thenReturn(Optional.of(
+                Loan.builder().id(1L).customer("Fulano").returned(true).build()));
+
+        loanService.update(loan);
+
+        Mockito.verify(archivedRepository).save(Mockito.any(ArchivedLoan.class));
+        Mockito.verify(repository).deleteById(1L);
+        Mockito.verify(eventPublisher, Mockito.never()).publishEvent(Mockito.any(LoanChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Nao deve arquivar de novo um empréstimo devolvido por uma requisicao concorrente")
+    public void updateConcurrentlyReturnedLoanTest() {
+        Loan loan = Loan.builder().id(1L).customer("Fulano").book(Book.builder().id(1L).build()).returned(true).build();
+        Mockito.when(archivedRepository.existsById(1L)).thenReturn(false);
+        //a outra devolucao fez commit enquanto esta esperava o lock da linha
+        Mockito.when(repository.findByIdForUpdate(1L)).thenReturn(Optional.empty());
+
+        Loan updatedLoan = loanService.update(loan);
+
+        assertThat(updatedLoan.getReturned()).isTrue();
+        Mockito.verify(archivedRepository, Mockito.never()).save(Mockito.any(ArchivedLoan.class));
+        Mockito.verify(repository, Mockito.never()).deleteById(1L);
+        Mockito.verify(eventPublisher, Mockito.never()).publishEvent(Mockito.any(LoanChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Deve manter na tabela de empréstimos uma atualizacao sem devolução")
+    public void updateOpenLoanTest() {
+        Loan loan = Loan.builder().id(1L).customer("Fulano").book(Book.builder().id(1L).build()).returned(false).build();
+        Mockito.when(archivedRepository.existsById(1L)).thenReturn(false);
+        Mockito.when(repository.save(loan)).thenReturn(loan);
+
+        loanService.update(loan);
+
+        Mockito.verify(repository).save(loan);
+        Mockito.verify(archivedRepository, Mockito.never()).save(Mockito.any(ArchivedLoan.class));
+        Mockito.verify(eventPublisher, Mockito.never()).publishEvent(Mockito.any(LoanChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Deve recusar reabrir um empréstimo arquivado")
+    public void reopenArchivedLoanTest() {
+        Loan loan = Loan.builder().id(1L).customer("Fulano").book(Book.builder().id(1L).build()).returned(false).build();
+        Mockito.when(archivedRepository.existsById(1L)).thenReturn(true);
+
+        Throwable exception = Assertions.catchThrowable(() -> loanService.update(loan));
+
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Loan already returned and archived");
+        Mockito.verify(repository, Mockito.never()).save(loan);
+    }
+}
@@ -0,0 +1,92 @@
+package com.allan.libraryapi.service.archive;
+
+import com.allan.libraryapi.model.entity.ArchivedLoan;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.Loan;
+import com.allan.libraryapi.model.repository.ArchivedLoanRepository;
+import com.allan.libraryapi.model.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class LoanArchiverTest {
+
+    @MockBean
+    LoanRepository loanRepository;
+
+    @MockBean
+    ArchivedLoanRepository archivedLoanRepository;
+
+    LoanArchiver archiver;
+
+    @BeforeEach
+    public void setUp() {
+        archiver = new LoanArchiver(loanRepository, archivedLoanRepository, 2);
+    }
+
+    @Test
+    @DisplayName("Deve copiar o lote de devolvidos para o historico e remover da tabela de emprestimos")
+    @SuppressWarnings("unchecked")
+    public void archiveBatchTest() {
+        Book book = Book.builder().id(1L).build();
+        List<Loan> returned = Arrays.asList(
+                Loan.builder().id(1L).customer("Fulano").book(book).loanDate(LocalDate.now()).returned(true).build(),
+                Loan.builder().id(2L).customer("Ciclano").book(book).loanDate(LocalDate.now()).returned(true).build());
+        Mockito.when(loanRepository.findReturnedForUpdate(PageRequest.of(0, 2))).thenReturn(returned);
+
+        int archived = archiver.archive();
+
+        assertThat(archived).isEqualTo(2);
+        ArgumentCaptor<List<ArchivedLoan>> saved = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(archivedLoanRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(ArchivedLoan::getId).containsExactly(1L, 2L);
+        Mockito.verify(loanRepository).deleteAllInBatch(returned);
+    }
+
+    @Test
+    @DisplayName("Nao deve inserir de novo no historico um emprestimo que ja esta la")
+    @SuppressWarnings("unchecked")
+    public void alreadyArchivedTest() {
+        Book book = Book.builder().id(1L).build();
+        List<Loan> returned = Arrays.asList(
+                Loan.builder().id(1L).customer("Fulano").book(book).loanDate(LocalDate.now()).returned(true).build(),
+                Loan.builder().id(2L).customer("Ciclano").book(book).loanDate(LocalDate.now()).returned(true).build());
+        Mockito.when(loanRepository.findReturnedForUpdate(PageRequest.of(0, 2))).thenReturn(returned);
+        Mockito.when(archivedLoanRepository.findArchivedIds(Arrays.asList(1L, 2L)))
+                .thenReturn(Collections.singleton(1L));
+
+        archiver.archive();
+
+        ArgumentCaptor<List<ArchivedLoan>> saved = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(archivedLoanRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(ArchivedLoan::getId).containsExactly(2L);
+        Mockito.verify(loanRepository).deleteAllInBatch(returned);
+    }
+
+    @Test
+    @DisplayName("Nao deve fazer nada quando nao houver emprestimos devolvidos")
+    public void nothingToArchiveTest() {
+        Mockito.when(loanRepository.findReturnedForUpdate(PageRequest.of(0, 2))).thenReturn(Collections.emptyList());
+
+        int archived = archiver.archive();
+
+        assertThat(archived).isEqualTo(0);
+        Mockito.verify(archivedLoanRepository, Mockito.never()).saveAll(Mockito.anyList());
+    }
+}
@@ -0,0 +1,183 @@
+package com.allan.libraryapi.service.catalog;
+
+import com.allan.libraryapi.health.WarmUpTracker;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.DeletedBook;
+import com.allan.libraryapi.service.BookChanges;
+import com.allan.libraryapi.service.BookSyncService;
+import com.allan.libraryapi.service.event.BookChangedEvent;
+import com.allan.libraryapi.service.snapshot.CatalogLoader;
+import com.allan.libraryapi.service.snapshot.CatalogSnapshot;
+import com.allan.libraryapi.tenant.TenantContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CatalogStoreTest {
+
+    CatalogStore store;
+
+    BookSyncService bookSyncService;
+
+    @BeforeEach
+    public void setUp() {
+        CatalogLoader loader = new CatalogLoader(null, null, null) {
+            @Override
+            public Result load(Set<Long> changed, Target target) {
+                //livro 2 mudou no banco depois do snapshot; livro 4 foi removido
+                changed.add(2L);
+                target.changed(new CatalogSnapshot.Entry(2L, "Dom Casmurro (2a edicao)", "Machado", "2"));
+                changed.add(4L);
+                target.deleted(4L);
+
+                target.loaded(new CatalogSnapshot.Entry(1L, "Memorias Postumas", "Machado", "1"));
+                target.loaded(new CatalogSnapshot.Entry(3L, "O Cortico", "Aluisio", "3"));
+                return new Result("test", 2);
+            }
+        };
+        bookSyncService = Mockito.mock(BookSyncService.class);
+        Mockito.when(bookSyncService.watermarkAt(Mockito.any(Instant.class))).thenReturn("10:0");
+        store = new CatalogStore(loader, bookSyncService, new WarmUpTracker(event -> { }), true, 2, 5, 1, 65536);
+        store.loadCatalog();
+    }
+
+    @Test
+    @DisplayName("Deve dar precedencia as mudancas sobre a base carregada")
+    public void getByIdTest() {
+        assertThat(store.isReady()).isTrue();
+        assertThat(store.getById(1L).get().getTitle()).isEqualTo("Memorias Postumas");
+        assertThat(store.getById(2L).get().getTitle()).isEqualTo("Dom Casmurro (2a edicao)");
+        assertThat(store.getById(4L).isPresent()).isFalse();
+
+        store.onBookChanged(new BookChangedEvent(BookChangedEvent.Type.DELETED, Book.builder().id(1L).build()));
+
+        assertThat(store.getById(1L).isPresent()).isFalse();
+        assertThat(store.getByIsbn("1").isPresent()).isFalse();
+        assertThat(store.getByIsbn("3").get().getId()).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar base e mudancas juntas, em ordem de id e paginado")
+    public void findTest() {
+        store.onBookChanged(new BookChangedEvent(BookChangedEvent.Type.CREATED,
+                Book.builder().id(5L).title("Helena").author("Machado").isbn("5").build()));
+
+        Page<BookView> page = store.find(null, null, "machado", null, PageRequest.of(0, 2));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(BookView::getId).containsExactly(1L, 2L);
+
+        Page<BookView> byTitle = store.find(null, "CORTI", null, null, PageRequest.of(0, 10));
+        assertThat(byTitle.getContent()).extracting(BookView::getId).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Deve atender cada tenant so com os seus livros")
+    public void tenantTest() {
+        store.onBookChanged(new BookChangedEvent(BookChangedEvent.Type.CREATED,
+                Book.builder().id(5L).tenantId("filial-b").title("Helena").author("Machado").isbn("1").build()));
+
+        assertThat(store.find(null, null, "machado", null, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(2);
+        assertThat(store.getByIsbn("1").get().getId()).isEqualTo(1L);
+
+        TenantContext.set("filial-b");
+        try {
+            assertThat(store.getById(1L).isPresent()).isFalse();
+            assertThat(store.getByIsbn("1").get().getId()).isEqualTo(5L);
+            assertThat(store.find(null, null, "machado", null, PageRequest.of(0, 10)).getContent())
+                    .extracting(BookView::getId).containsExactly(5L);
+        } finally {
+            TenantContext.clear();
+        }
+
+        TenantContext.set("filial-c");
+        try {
+            assertThat(store.find(null, null, null, null, PageRequest.of(0, 10)).getTotalElements()).isZero();
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve compactar as mudancas numa nova base sem mudar o resultado das consultas")
+    public void compactTest() {
+        store.onBookChanged(new BookChangedEvent(BookChangedEvent.Type.CREATED,
+                Book.builder().id(5L).title("Helena").author("Machado").isbn("5").build()));
+
+        store.compact();
+
+        assertThat(store.getById(2L).get().getTitle()).isEqualTo("Dom Casmurro (2a edicao)");
+        assertThat(store.getById(4L).isPresent()).isFalse();
+        assertThat(store.getByIsbn("5").get().getId()).isEqualTo(5L);
+        assertThat(store.find(null, null, null, null, PageRequest.of(0, 10)).getContent())
+                .extracting(BookView::getId).containsExactly(1L, 2L, 3L, 5L);
+    }
+
+    @Test
+    @DisplayName("Deve ordenar base e mudancas juntas pelo campo pedido")
+    public void findSortedTest() {
+        store.onBookChanged(new BookChangedEvent(BookChangedEvent.Type.CREATED,
+                Book.builder().id(5L).title("Helena").author("Machado").isbn("5").build()));
+
+        Page<BookView> page = store.find(null, null, null, null, PageRequest.of(0, 3, Sort.by("title")));
+
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).extracting(BookView::getTitle)
+                .containsExactly("Dom Casmurro (2a edicao)", "Helena", "Memorias Postumas");
+
+        Page<BookView> last = store.find(null, null, null, null, PageRequest.of(1, 3, Sort.by("title").descending()));
+        assertThat(last.getContent()).extracting(BookView::getId).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Nao deve atender paginas ordenadas por mais de um campo ou por campo desconhecido")
+    public void canServeTest() {
+        assertThat(store.canServe(PageRequest.of(0, 10))).isTrue();
+        assertThat(store.canServe(PageRequest.of(0, 10, Sort.by("id")))).isTrue();
+        assertThat(store.canServe(PageRequest.of(0, 10, Sort.by("title").descending()))).isTrue();
+        assertThat(store.canServe(PageRequest.of(0, 10, Sort.by("author", "title")))).isFalse();
+        assertThat(store.canServe(PageRequest.of(0, 10, Sort.by("loans")))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve aplicar na reconciliacao as mudancas feitas no banco por outras instancias")
+    public void reconcileTest() {
+        Mockito.when(bookSyncService.rewind("10:0", 5)).thenReturn("5:0");
+        Mockito.when(bookSyncService.findChangesSince("5:0", 1000)).thenReturn(new BookChanges(
+                Arrays.asList(
+                        Book.builder().id(1L).title("Memorias Postumas").author("Machado").isbn("1").build(),
+                        Book.builder().id(3L).title("O Cortico (revisto)").author("Aluisio").isbn("3").build(),
+                        Book.builder().id(6L).title("Iracema").author("Alencar").isbn("6").build()),
+                Arrays.asList(DeletedBook.builder().bookId(2L).build(), DeletedBook.builder().bookId(99L).build()),
+                "20:6", false));
+
+        store.reconcile();
+
+        assertThat(store.getById(1L).get().getTitle()).isEqualTo("Memorias Postumas");
+        assertThat(store.getById(2L).isPresent()).isFalse();
+        assertThat(store.getById(3L).get().getTitle()).isEqualTo("O Cortico (revisto)");
+        assertThat(store.getById(6L).get().getTitle()).isEqualTo("Iracema");
+        assertThat(store.getById(99L).isPresent()).isFalse();
+
+        //sem mudancas novas a marca d'agua nao recua
+        Mockito.when(bookSyncService.rewind("20:6", 5)).thenReturn("15:0");
+        Mockito.when(bookSyncService.findChangesSince("15:0", 1000)).thenReturn(new BookChanges(
+                Collections.emptyList(), Collections.emptyList(), "15:0", false));
+
+        store.reconcile();
+        store.reconcile();
+
+        Mockito.verify(bookSyncService, Mockito.times(2)).rewind("20:6", 5);
+    }
+}
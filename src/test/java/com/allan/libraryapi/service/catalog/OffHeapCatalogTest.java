@@ -0,0 +1,77 @@
+package com.allan.libraryapi.service.catalog;
+
+import com.allan.libraryapi.service.snapshot.CatalogSnapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class OffHeapCatalogTest {
+
+    @Test
+    @DisplayName("Deve encontrar livros por id e por ISBN e ler os campos de volta")
+    public void lookupTest() {
+        OffHeapCatalog catalog = OffHeapCatalog.builder()
+                .add(new CatalogSnapshot.Entry(2L, "As aventuras", "Allan", "9780306406157"))
+                .add(new CatalogSnapshot.Entry(5L, "Coração", "Allan", null))
+                .add(new CatalogSnapshot.Entry(9L, null, null, "0306406152"))
+                .build();
+
+        assertThat(catalog.size()).isEqualTo(3);
+        assertThat(catalog.authorCount()).isEqualTo(1);
+        assertThat(catalog.rowOf(5L)).isEqualTo(1);
+        assertThat(catalog.rowOf(4L)).isEqualTo(-1);
+        assertThat(catalog.rowOfIsbn("0306406152")).isEqualTo(2);
+        assertThat(catalog.rowOfIsbn("123")).isEqualTo(-1);
+
+        BookView book = catalog.view(catalog.rowOf(5L));
+        assertThat(book.getId()).isEqualTo(5L);
+        assertThat(book.getTitle()).isEqualTo("Coração");
+        assertThat(book.getAuthor()).isEqualTo("Allan");
+        assertThat(book.getIsbn()).isNull();
+
+        BookView untitled = catalog.view(2);
+        assertThat(untitled.getTitle()).isNull();
+        assertThat(untitled.getAuthor()).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve comparar trechos ASCII direto nos bytes sem diferenciar maiusculas")
+    public void containsAsciiTest() {
+        OffHeapCatalog catalog = OffHeapCatalog.builder()
+                .add(new CatalogSnapshot.Entry(1L, "Memórias Póstumas de Brás Cubas", "Machado", "1"))
+                .build();
+
+        assertThat(catalog.titleContainsAscii(0, "cubas".getBytes())).isTrue();
+        assertThat(catalog.titleContainsAscii(0, "memo".getBytes())).isFalse();
+        assertThat(catalog.titleContainsAscii(0, "stumas de br".getBytes())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve exigir ids em ordem crescente")
+    public void unorderedIdsTest() {
+        OffHeapCatalog.Builder builder = OffHeapCatalog.builder()
+                .add(new CatalogSnapshot.Entry(2L, "A", "B", "C"));
+
+        Throwable exception = catchThrowable(() -> builder.add(new CatalogSnapshot.Entry(1L, "A", "B", "C")));
+
+        assertThat(exception).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Deve crescer os buffers alem da capacidade inicial")
+    public void growTest() {
+        OffHeapCatalog.Builder builder = OffHeapCatalog.builder();
+        for (long id = 1; id <= 5000; id++) {
+            builder.add(new CatalogSnapshot.Entry(id, "Titulo " + id, "Autor " + (id % 10), "isbn-" + id));
+        }
+
+        OffHeapCatalog catalog = builder.build();
+
+        assertThat(catalog.size()).isEqualTo(5000);
+        assertThat(catalog.authorCount()).isEqualTo(10);
+        assertThat(catalog.title(catalog.rowOf(4321L))).isEqualTo("Titulo 4321");
+        assertThat(catalog.id(catalog.rowOfIsbn("isbn-4999"))).isEqualTo(4999L);
+    }
+}
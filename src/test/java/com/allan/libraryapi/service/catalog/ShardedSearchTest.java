@@ -0,0 +1,104 @@
+package com.allan.libraryapi.service.catalog;
+
+import com.allan.libraryapi.service.snapshot.CatalogSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShardedSearchTest {
+
+    static final String[] WORDS = {"Rio", "mar", "Sol", "lua", "Vento", "fogo"};
+
+    OffHeapCatalog catalog;
+    List<CatalogSnapshot.Entry> books;
+    ForkJoinPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(3);
+        books = new ArrayList<>();
+        OffHeapCatalog.Builder builder = OffHeapCatalog.builder();
+        for (long id = 1; id <= 2000; id++) {
+            //titulos repetidos para exercitar o desempate por id; alguns autores nulos
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            String author = random.nextInt(10) == 0 ? null : "Autor " + random.nextInt(50);
+            CatalogSnapshot.Entry book = new CatalogSnapshot.Entry(id * 3, title, author, String.valueOf(id * 7));
+            books.add(book);
+            builder.add(book);
+        }
+        catalog = builder.build();
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Deve dar o mesmo resultado em paralelo e na thread atual, para qualquer ordem")
+    public void parallelMatchesSequentialTest() {
+        for (Sort sort : Arrays.asList(Sort.unsorted(), Sort.by("id").descending(), Sort.by("title"),
+                Sort.by("author").descending(), Sort.by(Sort.Order.asc("title").ignoreCase()), Sort.by("isbn"))) {
+            CatalogFilter filter = new CatalogFilter(catalog, null, "o", null, null);
+
+            ShardedSearch sequential = new ShardedSearch(catalog, filter, sort, 25, Integer.MAX_VALUE, new long[0]);
+            ShardedSearch sharded = new ShardedSearch(catalog, filter, sort, 25, 100, new long[0]);
+
+            ShardedSearch.Partial expected = sequential.searchBase(null);
+            ShardedSearch.Partial actual = sharded.searchBase(pool);
+
+            assertThat(actual.getTotal()).isEqualTo(expected.getTotal());
+            assertThat(ids(sharded.page(actual, 0))).isEqualTo(ids(sequential.page(expected, 0)));
+            assertThat(ids(sharded.page(actual, 0))).hasSize(25);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve ordenar por autor com desempate por id e nulos primeiro")
+    public void sortOrderTest() {
+        CatalogFilter filter = new CatalogFilter(catalog, null, null, null, null);
+        ShardedSearch search = new ShardedSearch(catalog, filter, Sort.by("author"), 2000, 64, new long[0]);
+
+        List<BookView> page = search.page(search.searchBase(pool), 0);
+
+        List<CatalogSnapshot.Entry> expected = new ArrayList<>(books);
+        expected.sort((a, b) -> {
+            if (a.getAuthor() == null || b.getAuthor() == null) {
+                return a.getAuthor() == b.getAuthor() ? Long.compare(a.getId(), b.getId()) : a.getAuthor() == null ? -1 : 1;
+            }
+            int byAuthor = a.getAuthor().compareTo(b.getAuthor());
+            return byAuthor != 0 ? byAuthor : Long.compare(a.getId(), b.getId());
+        });
+        assertThat(ids(page)).isEqualTo(expected.stream().map(BookView::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Deve ignorar linhas substituidas pelo overlay e intercalar as mudancas")
+    public void replacedRowsTest() {
+        CatalogFilter filter = new CatalogFilter(catalog, null, null, null, null);
+        ShardedSearch search = new ShardedSearch(catalog, filter, Sort.unsorted(), 3, 100, new long[]{3L, 6L});
+
+        ShardedSearch.Partial result = search.merge(search.searchBase(pool), search.searchChanges(
+                Collections.<BookView>singletonList(new CatalogSnapshot.Entry(6L, "Novo", null, null))));
+
+        assertThat(result.getTotal()).isEqualTo(1999);
+        assertThat(ids(search.page(result, 0))).containsExactly(6L, 9L, 12L);
+    }
+
+    private static List<Long> ids(List<BookView> page) {
+        return page.stream().map(BookView::getId).collect(Collectors.toList());
+    }
+}
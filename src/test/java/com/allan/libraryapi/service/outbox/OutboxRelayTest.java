@@ -0,0 +1,97 @@
+package com.allan.libraryapi.service.outbox;
+
+import com.allan.libraryapi.model.entity.OutboxEvent;
+import com.allan.libraryapi.model.repository.OutboxEventRepository;
+import com.allan.libraryapi.model.repository.ProjectionCheckpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class OutboxRelayTest {
+
+    @MockBean
+    OutboxEventRepository repository;
+
+    @MockBean
+    ProjectionCheckpointRepository checkpointRepository;
+
+    InMemoryChangeEventSink sink;
+
+    OutboxRelay relay;
+
+    @BeforeEach
+    public void setUp() {
+        sink = new InMemoryChangeEventSink(10);
+        relay = new OutboxRelay(repository, checkpointRepository, sink, 100, 24);
+    }
+
+    @Test
+    @DisplayName("Deve publicar os eventos pendentes e marca-los como publicados")
+    public void relayPendingEventsTest() {
+        List<OutboxEvent> pending = Arrays.asList(
+                OutboxEvent.builder().id(1L).aggregateType("BOOK").aggregateId(1L).type("CREATED").build(),
+                OutboxEvent.builder().id(2L).aggregateType("BOOK").aggregateId(1L).type("UPDATED").build());
+        Mockito.when(repository.findByPublishedAtIsNullOrderByIdAsc(Mockito.any(Pageable.class))).thenReturn(pending);
+
+        int published = relay.relay();
+
+        assertThat(published).isEqualTo(2);
+        assertThat(sink.getEvents()).containsExactlyElementsOf(pending);
+        assertThat(pending).allMatch(event -> event.getPublishedAt() != null);
+        Mockito.verify(repository).saveAll(pending);
+    }
+
+    @Test
+    @DisplayName("Deve manter os eventos pendentes quando o sink falhar")
+    public void keepPendingWhenSinkFailsTest() {
+        ChangeEventSink failingSink = Mockito.mock(ChangeEventSink.class);
+        Mockito.doThrow(new IllegalStateException("sink down")).when(failingSink).publish(Mockito.anyList());
+        relay = new OutboxRelay(repository, checkpointRepository, failingSink, 100, 24);
+
+        OutboxEvent event = OutboxEvent.builder().id(1L).build();
+        Mockito.when(repository.findByPublishedAtIsNullOrderByIdAsc(Mockito.any(Pageable.class)))
+                .thenReturn(Collections.singletonList(event));
+
+        Throwable exception = catchThrowable(() -> relay.relay());
+
+        assertThat(exception).isInstanceOf(IllegalStateException.class);
+        assertThat(event.getPublishedAt()).isNull();
+        Mockito.verify(repository, Mockito.never()).saveAll(Mockito.anyList());
+    }
+
+    @Test
+    @DisplayName("Nao deve apagar eventos que a projecao mais atrasada ainda nao leu")
+    public void purgeStopsAtCheckpointTest() {
+        Mockito.when(checkpointRepository.findMinLastPosition()).thenReturn(42L);
+
+        relay.purgePublished();
+
+        Mockito.verify(repository).deletePublishedBefore(Mockito.any(LocalDateTime.class), Mockito.eq(42L));
+    }
+
+    @Test
+    @DisplayName("Deve apagar so pela retencao quando nao houver projecao")
+    public void purgeWithoutCheckpointTest() {
+        Mockito.when(checkpointRepository.findMinLastPosition()).thenReturn(null);
+
+        relay.purgePublished();
+
+        Mockito.verify(repository).deletePublishedBefore(Mockito.any(LocalDateTime.class), Mockito.eq(Long.MAX_VALUE));
+    }
+}
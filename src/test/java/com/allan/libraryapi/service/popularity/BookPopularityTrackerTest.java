@@ -0,0 +1,48 @@
+package com.allan.libraryapi.service.popularity;
+
+import com.allan.libraryapi.dto.PopularBookDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class BookPopularityTrackerTest {
+
+    @Test
+    @DisplayName("Deve publicar o ranking por metrica apos drenar a fila")
+    public void rankingTest() {
+        BookPopularityTracker tracker = new BookPopularityTracker(10, 100, 10);
+        tracker.record(BookPopularityTracker.Metric.LOANS, 1L);
+        tracker.record(BookPopularityTracker.Metric.LOANS, 2L);
+        tracker.record(BookPopularityTracker.Metric.LOANS, 2L);
+        tracker.record(BookPopularityTracker.Metric.VIEWS, 3L);
+
+        assertThat(tracker.ranking(BookPopularityTracker.Metric.LOANS, BookPopularityTracker.Window.DAY, 10)).isEmpty();
+
+        tracker.drain();
+
+        List<PopularBookDTO> loans = tracker.ranking(BookPopularityTracker.Metric.LOANS, BookPopularityTracker.Window.DAY, 10);
+        assertThat(loans).extracting(PopularBookDTO::getBookId).containsExactly(2L, 1L);
+        assertThat(loans.get(0).getScore()).isCloseTo(2, within(0.01));
+
+        List<PopularBookDTO> views = tracker.ranking(BookPopularityTracker.Metric.VIEWS, BookPopularityTracker.Window.HOUR, 1);
+        assertThat(views).extracting(PopularBookDTO::getBookId).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Deve descartar registros quando a fila estiver cheia")
+    public void dropWhenFullTest() {
+        BookPopularityTracker tracker = new BookPopularityTracker(10, 2, 10);
+        tracker.record(BookPopularityTracker.Metric.VIEWS, 1L);
+        tracker.record(BookPopularityTracker.Metric.VIEWS, 1L);
+        tracker.record(BookPopularityTracker.Metric.VIEWS, 2L);
+
+        tracker.drain();
+
+        List<PopularBookDTO> views = tracker.ranking(BookPopularityTracker.Metric.VIEWS, BookPopularityTracker.Window.DAY, 10);
+        assertThat(views).extracting(PopularBookDTO::getBookId).containsExactly(1L);
+    }
+}
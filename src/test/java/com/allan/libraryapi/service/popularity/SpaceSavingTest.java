@@ -0,0 +1,61 @@
+package com.allan.libraryapi.service.popularity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpaceSavingTest {
+
+    @Test
+    @DisplayName("Deve manter os itens mais frequentes mesmo com mais chaves que contadores")
+    public void heavyHittersTest() {
+        SpaceSaving sketch = new SpaceSaving(10);
+        for (int i = 0; i < 1000; i++) {
+            sketch.offer(1L, 1);
+            if (i % 2 == 0) {
+                sketch.offer(2L, 1);
+            }
+            sketch.offer(100L + i, 1);
+        }
+
+        List<SpaceSaving.Counter> top = sketch.top(2);
+
+        assertThat(sketch.size()).isEqualTo(10);
+        assertThat(top).extracting(SpaceSaving.Counter::getKey).containsExactly(1L, 2L);
+        assertThat(top.get(0).getCount() - top.get(0).getError()).isLessThanOrEqualTo(1000);
+        assertThat(top.get(0).getCount()).isGreaterThanOrEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("Deve herdar o contador do menos frequente ao substituir uma chave")
+    public void replaceMinimumTest() {
+        SpaceSaving sketch = new SpaceSaving(2);
+        sketch.offer(1L, 5);
+        sketch.offer(2L, 2);
+
+        sketch.offer(3L, 1);
+
+        List<SpaceSaving.Counter> top = sketch.top(10);
+        assertThat(top).extracting(SpaceSaving.Counter::getKey).containsExactly(1L, 3L);
+        assertThat(top.get(1).getCount()).isEqualTo(3);
+        assertThat(top.get(1).getError()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve reescalar os contadores sem mudar a ordem")
+    public void scaleTest() {
+        SpaceSaving sketch = new SpaceSaving(10);
+        sketch.offer(1L, 8);
+        sketch.offer(2L, 4);
+
+        sketch.scale(0.5);
+
+        List<SpaceSaving.Counter> top = sketch.top(10);
+        assertThat(top).extracting(SpaceSaving.Counter::getKey).containsExactly(1L, 2L);
+        assertThat(top.get(0).getCount()).isEqualTo(4);
+        assertThat(top.get(1).getCount()).isEqualTo(2);
+    }
+}
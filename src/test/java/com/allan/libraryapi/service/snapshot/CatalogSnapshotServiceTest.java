@@ -0,0 +1,148 @@
+package com.allan.libraryapi.service.snapshot;
+
+import com.allan.libraryapi.exception.BusinessException;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.model.entity.DeletedBook;
+import com.allan.libraryapi.service.BookChanges;
+import com.allan.libraryapi.service.BookSyncService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CatalogSnapshotServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Deve gravar o catalogo completo e depois intercalar so as mudancas desde a marca d'agua")
+    public void incrementalWriteTest() throws IOException {
+        FakeSyncService sync = new FakeSyncService();
+        sync.pages.put(null, new BookChanges(Arrays.asList(book(1L, "A"), book(2L, "B"), book(3L, "C")),
+                Collections.emptyList(), "10:3", false));
+        sync.pages.put("10:3", new BookChanges(Arrays.asList(book(4L, "D"), book(2L, "B2")),
+                Collections.singletonList(DeletedBook.builder().bookId(1L).build()), "20:4", false));
+        sync.pages.put("20:4", new BookChanges(Collections.emptyList(), Collections.emptyList(), "20:4", false));
+
+        CatalogSnapshotService service = new CatalogSnapshotService(sync, true, dir.resolve("catalog.snapshot").toString(), 100, 0);
+
+        assertThat(service.write()).isEqualTo(3);
+        assertThat(service.write()).isEqualTo(3);
+        assertThat(service.write()).isEqualTo(-1);
+
+        try (CatalogSnapshot.Cursor cursor = service.open()) {
+            assertThat(cursor.getWatermark()).isEqualTo("20:4");
+            assertThat(titles(cursor)).containsExactly("2:B2", "3:C", "4:D");
+        }
+        assertThat(sync.requested).containsExactly(null, "10:3", "20:4");
+    }
+
+    @Test
+    @DisplayName("Deve refazer o snapshot do zero quando a marca d'agua expirar")
+    public void expiredWatermarkTest() throws IOException {
+        FakeSyncService sync = new FakeSyncService();
+        sync.pages.put(null, new BookChanges(Collections.singletonList(book(1L, "A")),
+                Collections.emptyList(), "10:1", false));
+
+        CatalogSnapshotService service = new CatalogSnapshotService(sync, true, dir.resolve("catalog.snapshot").toString(), 100, 0);
+        service.write();
+
+        sync.pages.put(null, new BookChanges(Collections.singletonList(book(5L, "E")),
+                Collections.emptyList(), "30:5", false));
+        sync.expired = "10:1";
+
+        assertThat(service.write()).isEqualTo(1);
+        try (CatalogSnapshot.Cursor cursor = service.open()) {
+            assertThat(titles(cursor)).containsExactly("5:E");
+        }
+    }
+
+    @Test
+    @DisplayName("Deve reler a janela antes da marca d'agua para pegar commits atrasados")
+    public void lateCommitTest() throws IOException {
+        FakeSyncService sync = new FakeSyncService();
+        sync.pages.put(null, new BookChanges(Arrays.asList(book(1L, "A"), book(3L, "C")),
+                Collections.emptyList(), "20:3", false));
+        sync.rewound.put("20:3", "15:0");
+        //o livro 2 fez commit depois da marca 20:3, mas com updatedAt 16
+        sync.pages.put("15:0", new BookChanges(Arrays.asList(book(2L, "B"), book(3L, "C")),
+                Collections.emptyList(), "20:3", false));
+
+        CatalogSnapshotService service = new CatalogSnapshotService(sync, true, dir.resolve("catalog.snapshot").toString(), 100, 5);
+
+        assertThat(service.write()).isEqualTo(2);
+        assertThat(service.write()).isEqualTo(3);
+        //relendo a mesma janela sem nada novo nao regrava
+        assertThat(service.write()).isEqualTo(-1);
+
+        try (CatalogSnapshot.Cursor cursor = service.open()) {
+            assertThat(titles(cursor)).containsExactly("1:A", "2:B", "3:C");
+        }
+        assertThat(sync.requested).containsExactly(null, "15:0", "15:0");
+    }
+
+    @Test
+    @DisplayName("Nao deve abrir snapshot quando estiver desligado")
+    public void disabledTest() {
+        CatalogSnapshotService service = new CatalogSnapshotService(new FakeSyncService(), false,
+                dir.resolve("catalog.snapshot").toString(), 100, 0);
+
+        assertThat(service.open()).isNull();
+    }
+
+    private static List<String> titles(CatalogSnapshot.Cursor cursor) throws IOException {
+        List<String> result = new ArrayList<>();
+        for (CatalogSnapshot.Entry entry = cursor.next(); entry != null; entry = cursor.next()) {
+            result.add(entry.getId() + ":" + entry.getTitle());
+        }
+        return result;
+    }
+
+    private static Book book(Long id, String title) {
+        return Book.builder().id(id).title(title).author("Autor").isbn("9780306406157").build();
+    }
+
+    static class FakeSyncService implements BookSyncService {
+
+        final Map<String, BookChanges> pages = new HashMap<>();
+        final List<String> requested = new ArrayList<>();
+        final Map<String, String> rewound = new HashMap<>();
+        String expired;
+
+        @Override
+        public BookChanges findChangesSince(String watermark, int limit) {
+            if (watermark != null && watermark.equals(expired)) {
+                throw new BusinessException("Watermark expired, a full sync is required");
+            }
+            requested.add(watermark);
+            return pages.get(watermark);
+        }
+
+        @Override
+        public BookChanges findChangesSince(String tenantId, String watermark, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String rewind(String watermark, long windowMillis) {
+            return rewound.getOrDefault(watermark, watermark);
+        }
+
+        @Override
+        public String watermarkAt(Instant instant) {
+            return instant.toEpochMilli() + ":0";
+        }
+    }
+}
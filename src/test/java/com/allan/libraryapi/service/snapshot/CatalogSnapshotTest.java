@@ -0,0 +1,65 @@
+package com.allan.libraryapi.service.snapshot;
+
+import com.allan.libraryapi.tenant.TenantContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class CatalogSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Deve ler de volta a marca d'agua e os registros gravados, inclusive nulos e acentos")
+    public void roundTripTest() throws IOException {
+        Path file = dir.resolve("catalog.snapshot");
+
+        int written = CatalogSnapshot.write(file, "1000:2", Arrays.asList(
+                new CatalogSnapshot.Entry(1L, "As aventuras", "Allan", "9780306406157"),
+                new CatalogSnapshot.Entry(2L, "Coração", null, "", "filial-b")).iterator());
+
+        try (CatalogSnapshot.Cursor cursor = CatalogSnapshot.open(file)) {
+            assertThat(written).isEqualTo(2);
+            assertThat(cursor.getWatermark()).isEqualTo("1000:2");
+
+            CatalogSnapshot.Entry first = cursor.next();
+            assertThat(first.getId()).isEqualTo(1L);
+            assertThat(first.getTitle()).isEqualTo("As aventuras");
+            assertThat(first.getIsbn()).isEqualTo("9780306406157");
+            assertThat(first.getTenantId()).isEqualTo(TenantContext.DEFAULT_TENANT);
+
+            CatalogSnapshot.Entry second = cursor.next();
+            assertThat(second.getTitle()).isEqualTo("Coração");
+            assertThat(second.getAuthor()).isNull();
+            assertThat(second.getIsbn()).isEmpty();
+            assertThat(second.getTenantId()).isEqualTo("filial-b");
+
+            assertThat(cursor.next()).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve recusar um snapshot corrompido")
+    public void corruptedSnapshotTest() throws IOException {
+        Path file = dir.resolve("catalog.snapshot");
+        CatalogSnapshot.write(file, "1000:1", Arrays.asList(
+                new CatalogSnapshot.Entry(1L, "As aventuras", "Allan", "9780306406157")).iterator());
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(file, bytes);
+
+        Throwable exception = catchThrowable(() -> CatalogSnapshot.open(file));
+
+        assertThat(exception).isInstanceOf(IOException.class).hasMessageContaining("checksum");
+    }
+}
@@ -0,0 +1,168 @@
+package com.allan.libraryapi.service.stats;
+
+import com.allan.libraryapi.model.entity.AuthorLoanStats;
+import com.allan.libraryapi.model.entity.CustomerLoanStats;
+import com.allan.libraryapi.model.entity.MonthlyBookLoanStats;
+import com.allan.libraryapi.model.entity.OutboxEvent;
+import com.allan.libraryapi.model.entity.ProjectionCheckpoint;
+import com.allan.libraryapi.model.repository.AuthorLoanStatsRepository;
+import com.allan.libraryapi.model.repository.CustomerLoanStatsRepository;
+import com.allan.libraryapi.model.repository.MonthlyBookLoanStatsRepository;
+import com.allan.libraryapi.model.repository.ProjectionCheckpointRepository;
+import com.allan.libraryapi.service.ChangeEventService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class LoanStatsProjectorTest {
+
+    static final String LOAN_PAYLOAD = "{\"id\":1,\"customer\":\"Fulano\",\"bookId\":7,\"isbn\":\"123\","
+            + "\"title\":\"As aventuras\",\"author\":\"Artur\",\"loanDate\":\"2020-11-05\",\"returned\":false}";
+
+    @MockBean
+    ChangeEventService changeEventService;
+
+    @MockBean
+    ProjectionCheckpointRepository checkpointRepository;
+
+    @MockBean
+    CustomerLoanStatsRepository customerRepository;
+
+    @MockBean
+    AuthorLoanStatsRepository authorRepository;
+
+    @MockBean
+    MonthlyBookLoanStatsRepository monthlyBookRepository;
+
+    LoanStatsProjector projector;
+
+    @BeforeEach
+    public void setUp() {
+        projector = new LoanStatsProjector(changeEventService, checkpointRepository, customerRepository,
+                authorRepository, monthlyBookRepository, new ObjectMapper(), 100);
+    }
+
+    @Test
+    @DisplayName("Deve contabilizar um novo emprestimo e avancar o checkpoint")
+    public void projectCreatedLoanTest() {
+        Mockito.when(checkpointRepository.findByNameForUpdate(LoanStatsProjector.NAME))
+                .thenReturn(Optional.of(ProjectionCheckpoint.builder().name(LoanStatsProjector.NAME).lastPosition(0L).build()));
+        Mockito.when(changeEventService.findSince(0L, 100)).thenReturn(Arrays.asList(
+                OutboxEvent.builder().id(3L).position(3L).aggregateType("BOOK").type("CREATED").payload("{}").build(),
+                OutboxEvent.builder().id(4L).position(4L).aggregateType("LOAN").type("CREATED").payload(LOAN_PAYLOAD).build()));
+
+        int projected = projector.project();
+
+        assertThat(projected).isEqualTo(2);
+
+        ArgumentCaptor<CustomerLoanStats> customer = ArgumentCaptor.forClass(CustomerLoanStats.class);
+        Mockito.verify(customerRepository).save(customer.capture());
+        assertThat(customer.getValue().getCustomer()).isEqualTo("Fulano");
+        assertThat(customer.getValue().getTotalLoans()).isEqualTo(1);
+        assertThat(customer.getValue().getActiveLoans()).isEqualTo(1);
+
+        ArgumentCaptor<MonthlyBookLoanStats> monthly = ArgumentCaptor.forClass(MonthlyBookLoanStats.class);
+        Mockito.verify(monthlyBookRepository).save(monthly.capture());
+        assertThat(monthly.getValue().getId()).isEqualTo("2020-11:7");
+        assertThat(monthly.getValue().getLoans()).isEqualTo(1);
+
+        ArgumentCaptor<AuthorLoanStats> author = ArgumentCaptor.forClass(AuthorLoanStats.class);
+        Mockito.verify(authorRepository).save(author.capture());
+        assertThat(author.getValue().getActiveLoans()).isEqualTo(1);
+
+        ArgumentCaptor<ProjectionCheckpoint> checkpoint = ArgumentCaptor.forClass(ProjectionCheckpoint.class);
+        Mockito.verify(checkpointRepository).save(checkpoint.capture());
+        assertThat(checkpoint.getValue().getLastPosition()).isEqualTo(4L);
+    }
+
+    @Test
+    @DisplayName("Deve decrementar os emprestimos ativos na devolucao")
+    public void projectReturnedLoanTest() {
+        Mockito.when(checkpointRepository.findByNameForUpdate(LoanStatsProjector.NAME))
+                .thenReturn(Optional.of(ProjectionCheckpoint.builder().name(LoanStatsProjector.NAME).lastPosition(4L).build()));
+        Mockito.when(changeEventService.findSince(4L, 100)).thenReturn(Collections.singletonList(
+                OutboxEvent.builder().id(5L).position(5L).aggregateType("LOAN").type("RETURNED").payload(LOAN_PAYLOAD).build()));
+        Mockito.when(customerRepository.findById("default:Fulano"))
+                .thenReturn(Optional.of(CustomerLoanStats.builder().id("default:Fulano").customer("Fulano")
+                        .totalLoans(2).activeLoans(1).build()));
+        Mockito.when(authorRepository.findById("default:Artur"))
+                .thenReturn(Optional.of(AuthorLoanStats.builder().id("default:Artur").author("Artur").activeLoans(3).build()));
+
+        projector.project();
+
+        ArgumentCaptor<CustomerLoanStats> customer = ArgumentCaptor.forClass(CustomerLoanStats.class);
+        Mockito.verify(customerRepository).save(customer.capture());
+        assertThat(customer.getValue().getTotalLoans()).isEqualTo(2);
+        assertThat(customer.getValue().getActiveLoans()).isEqualTo(0);
+
+        ArgumentCaptor<AuthorLoanStats> author = ArgumentCaptor.forClass(AuthorLoanStats.class);
+        Mockito.verify(authorRepository).save(author.capture());
+        assertThat(author.getValue().getActiveLoans()).isEqualTo(2);
+
+        Mockito.verify(monthlyBookRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve separar as estatisticas pelo tenant do evento")
+    public void projectByTenantTest() {
+        Mockito.when(checkpointRepository.findByNameForUpdate(LoanStatsProjector.NAME))
+                .thenReturn(Optional.of(ProjectionCheckpoint.builder().name(LoanStatsProjector.NAME).lastPosition(0L).build()));
+        Mockito.when(changeEventService.findSince(0L, 100)).thenReturn(Collections.singletonList(
+                OutboxEvent.builder().id(1L).position(1L).tenantId("filial").aggregateType("LOAN").type("CREATED")
+                        .payload(LOAN_PAYLOAD).build()));
+
+        projector.project();
+
+        ArgumentCaptor<CustomerLoanStats> customer = ArgumentCaptor.forClass(CustomerLoanStats.class);
+        Mockito.verify(customerRepository).save(customer.capture());
+        assertThat(customer.getValue().getId()).isEqualTo("filial:Fulano");
+        assertThat(customer.getValue().getTenantId()).isEqualTo("filial");
+
+        ArgumentCaptor<AuthorLoanStats> author = ArgumentCaptor.forClass(AuthorLoanStats.class);
+        Mockito.verify(authorRepository).save(author.capture());
+        assertThat(author.getValue().getId()).isEqualTo("filial:Artur");
+
+        ArgumentCaptor<MonthlyBookLoanStats> monthly = ArgumentCaptor.forClass(MonthlyBookLoanStats.class);
+        Mockito.verify(monthlyBookRepository).save(monthly.capture());
+        assertThat(monthly.getValue().getTenantId()).isEqualTo("filial");
+    }
+
+    @Test
+    @DisplayName("Nao deve gravar o checkpoint quando nao houver eventos novos")
+    public void noEventsTest() {
+        Mockito.when(checkpointRepository.findByNameForUpdate(LoanStatsProjector.NAME))
+                .thenReturn(Optional.of(ProjectionCheckpoint.builder().name(LoanStatsProjector.NAME).lastPosition(0L).build()));
+        Mockito.when(changeEventService.findSince(0L, 100)).thenReturn(Collections.emptyList());
+
+        assertThat(projector.project()).isZero();
+        Mockito.verify(checkpointRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve criar o checkpoint na posicao zero quando ainda nao existir")
+    public void createCheckpointTest() {
+        Mockito.when(checkpointRepository.existsById(LoanStatsProjector.NAME)).thenReturn(false);
+
+        projector.createCheckpoint();
+
+        ArgumentCaptor<ProjectionCheckpoint> checkpoint = ArgumentCaptor.forClass(ProjectionCheckpoint.class);
+        Mockito.verify(checkpointRepository).save(checkpoint.capture());
+        assertThat(checkpoint.getValue().getName()).isEqualTo(LoanStatsProjector.NAME);
+        assertThat(checkpoint.getValue().getLastPosition()).isZero();
+    }
+}
@@ -0,0 +1,61 @@
+package com.allan.libraryapi.service.suggestion;
+
+import com.allan.libraryapi.dto.SuggestionDTO;
+import com.allan.libraryapi.health.WarmUpTracker;
+import com.allan.libraryapi.model.entity.Book;
+import com.allan.libraryapi.service.event.BookChangedEvent;
+import com.allan.libraryapi.service.snapshot.CatalogLoader;
+import com.allan.libraryapi.service.snapshot.CatalogSnapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookSuggestionServiceTest {
+
+    BookSuggestionService service;
+
+    @Test
+    @DisplayName("Deve aplicar depois da carga os eventos recebidos durante ela")
+    public void eventDuringLoadTest() {
+        CatalogLoader loader = new CatalogLoader(null, null, null) {
+            @Override
+            public Result load(Set<Long> changed, Target target) {
+                //o livro 1 e renomeado e commitado depois que a carga ja o tinha lido
+                service.onBookChanged(new BookChangedEvent(BookChangedEvent.Type.UPDATED,
+                        Book.builder().id(1L).title("Memorias").author("Machado").build()));
+                target.loaded(new CatalogSnapshot.Entry(1L, "Dom Casmurro", "Machado", "123"));
+                target.loaded(new CatalogSnapshot.Entry(2L, "Dom Quixote", "Cervantes", "456"));
+                return new Result("database", 2);
+            }
+        };
+        service = new BookSuggestionService(loader, new WarmUpTracker(event -> { }), 256);
+
+        service.loadCatalog();
+
+        assertThat(service.suggest("mem", 5)).extracting(SuggestionDTO::getText).containsExactly("Memorias");
+        List<SuggestionDTO> dom = service.suggest("dom", 5);
+        assertThat(dom).extracting(SuggestionDTO::getText).containsExactly("Dom Quixote");
+    }
+
+    @Test
+    @DisplayName("Deve aplicar o evento direto no indice depois da carga")
+    public void eventAfterLoadTest() {
+        CatalogLoader loader = new CatalogLoader(null, null, null) {
+            @Override
+            public Result load(Set<Long> changed, Target target) {
+                target.loaded(new CatalogSnapshot.Entry(1L, "Dom Casmurro", "Machado", "123"));
+                return new Result("database", 1);
+            }
+        };
+        service = new BookSuggestionService(loader, new WarmUpTracker(event -> { }), 256);
+        service.loadCatalog();
+
+        service.onBookChanged(new BookChangedEvent(BookChangedEvent.Type.DELETED, Book.builder().id(1L).build()));
+
+        assertThat(service.suggest("dom", 5)).isEmpty();
+    }
+}
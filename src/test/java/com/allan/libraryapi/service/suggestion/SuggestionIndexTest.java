@@ -0,0 +1,55 @@
+package com.allan.libraryapi.service.suggestion;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SuggestionIndexTest {
+
+    @Test
+    @DisplayName("Deve sugerir textos pelo prefixo ignorando maiusculas e acentos, mais populares primeiro")
+    public void suggestByPrefixTest() {
+        SuggestionIndex index = new SuggestionIndex();
+        index.put(1L, "Memórias Póstumas");
+        index.put(2L, "Memorial do Convento");
+        index.put(3L, "memórias póstumas");
+        index.put(4L, "O Cortiço");
+
+        List<Suggestion> suggestions = index.suggest("MEMO", 10, 100);
+
+        assertThat(suggestions).hasSize(2);
+        assertThat(suggestions.get(0).getText()).isEqualTo("Memórias Póstumas");
+        assertThat(suggestions.get(0).getBooks()).isEqualTo(2);
+        assertThat(suggestions.get(1).getText()).isEqualTo("Memorial do Convento");
+    }
+
+    @Test
+    @DisplayName("Deve atualizar e remover sugestoes conforme o livro muda")
+    public void updateAndRemoveTest() {
+        SuggestionIndex index = new SuggestionIndex();
+        index.put(1L, "Dom Casmurro");
+
+        index.put(1L, "Quincas Borba");
+        assertThat(index.suggest("dom", 10, 100)).isEmpty();
+        assertThat(index.suggest("quin", 10, 100)).hasSize(1);
+
+        index.remove(1L);
+        assertThat(index.suggest("quin", 10, 100)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve limitar a quantidade de sugestoes")
+    public void limitTest() {
+        SuggestionIndex index = new SuggestionIndex();
+        for (long id = 1; id <= 20; id++) {
+            index.put(id, "Livro " + id);
+        }
+
+        assertThat(index.suggest("livro", 5, 100)).hasSize(5);
+        assertThat(index.suggest("livro", 5, 3)).hasSize(3);
+    }
+}
@@ -0,0 +1,151 @@
+package com.allan.libraryapi.service.views;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookViewCounterTest {
+
+    JdbcTemplate jdbcTemplate;
+    BookViewCounter counter;
+
+    @BeforeEach
+    public void setUp() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:book-views;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("drop table if exists book_view_stats");
+        jdbcTemplate.execute("create table book_view_stats (id_book bigint primary key, views bigint not null, updated_at timestamp)");
+
+        counter = new BookViewCounter(jdbcTemplate, new DataSourceTransactionManager(dataSource), 100, 2);
+    }
+
+    @Test
+    @DisplayName("Deve gravar so o que mudou desde o ultimo flush, inserindo ou incrementando a linha")
+    public void flushTest() {
+        counter.record(1L);
+        counter.record(1L);
+        counter.record(2L);
+        counter.record(3L);
+
+        assertThat(stored(1L)).isNull();
+        assertThat(counter.getViews(1L)).isEqualTo(2);
+
+        assertThat(counter.flush()).isEqualTo(3);
+        assertThat(stored(1L)).isEqualTo(2);
+        assertThat(stored(3L)).isEqualTo(1);
+        assertThat(counter.getViews(1L)).isEqualTo(2);
+
+        counter.record(1L);
+        assertThat(counter.flush()).isEqualTo(1);
+        assertThat(counter.flush()).isZero();
+        assertThat(stored(1L)).isEqualTo(3);
+        assertThat(stored(2L)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve manter os incrementos pendentes quando a gravacao falhar")
+    public void failedFlushTest() {
+        counter.record(1L);
+        jdbcTemplate.execute("alter table book_view_stats rename to book_view_stats_offline");
+
+        assertThat(counter.flush()).isZero();
+
+        jdbcTemplate.execute("alter table book_view_stats_offline rename to book_view_stats");
+        counter.record(1L);
+        counter.stop();
+
+        assertThat(stored(1L)).isEqualTo(2);
+        assertThat(counter.isRunning()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve descartar visualizacoes de livros novos alem do limite de livros em memoria")
+    public void maxBooksTest() {
+        BookViewCounter limited = new BookViewCounter(jdbcTemplate, new DataSourceTransactionManager(jdbcTemplate.getDataSource()), 2, 2);
+        limited.record(1L);
+        limited.record(2L);
+        limited.record(3L);
+        limited.record(1L);
+
+        assertThat(limited.flush()).isEqualTo(2);
+        assertThat(stored(1L)).isEqualTo(2);
+        assertThat(stored(3L)).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve liberar os livros parados e contar mais livros que o limite ao longo de varios ciclos")
+    public void evictionTest() {
+        BookViewCounter limited = new BookViewCounter(jdbcTemplate, new DataSourceTransactionManager(jdbcTemplate.getDataSource()), 2, 2);
+        for (long book = 1; book <= 10; book += 2) {
+            limited.record(book);
+            limited.record(book + 1);
+            assertThat(limited.flush()).isEqualTo(2);
+            //sem visualizacoes novas no ciclo seguinte: os dois saem da memoria
+            assertThat(limited.flush()).isZero();
+        }
+        limited.record(1L);
+        limited.flush();
+
+        assertThat(stored(1L)).isEqualTo(2);
+        assertThat(limited.getViews(1L)).isEqualTo(2);
+        for (long book = 2; book <= 10; book++) {
+            assertThat(stored(book)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Nao deve perder visualizacoes contadas enquanto livros parados saem da memoria")
+    public void concurrentEvictionTest() throws Exception {
+        BookViewCounter limited = new BookViewCounter(jdbcTemplate, new DataSourceTransactionManager(jdbcTemplate.getDataSource()), 1000, 50);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    limited.record(i % 500);
+                }
+            });
+        }
+        while (!executor.awaitTermination(1, TimeUnit.MILLISECONDS)) {
+            limited.flush();
+            executor.shutdown();
+        }
+        limited.flush();
+
+        assertThat(jdbcTemplate.queryForObject("select sum(views) from book_view_stats", Long.class)).isEqualTo(80000L);
+    }
+
+    @Test
+    @DisplayName("Nao deve perder visualizacoes contadas durante o flush")
+    public void concurrentRecordTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    counter.record(i % 5);
+                }
+            });
+        }
+        while (!executor.awaitTermination(10, TimeUnit.MILLISECONDS)) {
+            counter.flush();
+            executor.shutdown();
+        }
+        counter.flush();
+
+        assertThat(jdbcTemplate.queryForObject("select sum(views) from book_view_stats", Long.class)).isEqualTo(40000L);
+    }
+
+    private Long stored(long bookId) {
+        return jdbcTemplate.query("select views from book_view_stats where id_book = ?",
+                rs -> rs.next() ? rs.getLong(1) : null, bookId);
+    }
+}
@@ -0,0 +1,60 @@
+package com.allan.libraryapi.tenant;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TenantFilterTest {
+
+    TenantFilter filter = new TenantFilter(new String[]{"default", "filial-a", " "});
+
+    List<String> seen = new ArrayList<>();
+
+    FilterChain chain = (request, response) -> seen.add(TenantContext.current());
+
+    @Test
+    @DisplayName("Deve definir o tenant do header durante a requisicao e limpar depois")
+    public void tenantFromHeaderTest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        request.addHeader(TenantFilter.TENANT_HEADER, "filial-a");
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(seen).containsExactly("filial-a");
+        assertThat(TenantContext.current()).isEqualTo(TenantContext.DEFAULT_TENANT);
+    }
+
+    @Test
+    @DisplayName("Deve usar o tenant padrao quando o header nao for enviado")
+    public void defaultTenantTest() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/books"), new MockHttpServletResponse(), chain);
+
+        assertThat(seen).containsExactly(TenantContext.DEFAULT_TENANT);
+    }
+
+    @Test
+    @DisplayName("Deve recusar tenants fora da lista configurada")
+    public void unknownTenantTest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        request.addHeader(TenantFilter.TENANT_HEADER, "filial-z");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(400);
+        assertThat(seen).isEmpty();
+
+        MockHttpServletRequest actuator = new MockHttpServletRequest("GET", "/actuator/health");
+        actuator.addHeader(TenantFilter.TENANT_HEADER, "filial-z");
+        filter.doFilter(actuator, new MockHttpServletResponse(), chain);
+
+        assertThat(seen).containsExactly(TenantContext.DEFAULT_TENANT);
+    }
+}
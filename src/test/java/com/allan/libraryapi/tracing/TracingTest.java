@@ -0,0 +1,119 @@
+package com.allan.libraryapi.tracing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TracingTest {
+
+    InMemoryTraceExporter exporter;
+
+    @BeforeEach
+    public void setUp() {
+        exporter = new InMemoryTraceExporter(10);
+        Tracing.configure(1.0, exporter);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Tracing.configure(0, TraceExporter.NOOP);
+        Tracing.detach();
+    }
+
+    @Test
+    @DisplayName("Deve exportar o trace com os spans aninhados quando o span raiz terminar")
+    public void nestedSpansTest() {
+        try (Span root = Tracing.startTrace("GET /api/books")) {
+            try (Span service = Tracing.startSpan("BookService.find")) {
+                try (Span jdbc = Tracing.startSpan("jdbc")) {
+                    jdbc.tag("sql", "select count(*) from book");
+                }
+            }
+            try (Span mapping = Tracing.startSpan("modelMapper.toDTO")) {
+                assertThat(Tracing.current()).isSameAs(mapping);
+            }
+            assertThat(exporter.getTraces()).isEmpty();
+        }
+
+        assertThat(exporter.getTraces()).hasSize(1);
+        List<Span> spans = exporter.getTraces().get(0).getSpans();
+        assertThat(spans).extracting(Span::getName)
+                .containsExactly("jdbc", "BookService.find", "modelMapper.toDTO", "GET /api/books");
+        assertThat(spans.get(0).getParentId()).isEqualTo(spans.get(1).getId());
+        assertThat(spans.get(0).getTags()).containsEntry("sql", "select count(*) from book");
+        assertThat(spans.get(2).getParentId()).isEqualTo(spans.get(3).getId());
+        assertThat(Tracing.current()).isSameAs(Span.NOOP);
+    }
+
+    @Test
+    @DisplayName("Nao deve medir nada sem trace ativo na thread")
+    public void noActiveTraceTest() {
+        try (Span span = Tracing.startSpan("BookService.find")) {
+            assertThat(span).isSameAs(Span.NOOP);
+            assertThat(span.isSampled()).isFalse();
+        }
+
+        assertThat(exporter.getTraces()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve propagar o trace para tarefas executadas em outra thread")
+    public void asyncPropagationTest() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (Span root = Tracing.startTrace("GET /api/books/stream")) {
+            executor.submit(Tracing.wrap(() -> {
+                try (Span span = Tracing.startSpan("BookController.stream.write")) {
+                    span.tag("thread", Thread.currentThread().getName());
+                }
+            })).get(5, TimeUnit.SECONDS);
+
+            executor.submit(() -> assertThat(Tracing.current()).isSameAs(Span.NOOP)).get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Span> spans = exporter.getTraces().get(0).getSpans();
+        assertThat(spans).extracting(Span::getName).containsExactly("BookController.stream.write", "GET /api/books/stream");
+        assertThat(spans.get(0).getParentId()).isEqualTo(spans.get(1).getId());
+    }
+
+    @Test
+    @DisplayName("Deve abrir o span raiz da requisicao e devolver o id do trace")
+    public void filterTest() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new TracingFilter().doFilter(new MockHttpServletRequest("GET", "/api/books"), response, (req, res) -> {
+            try (Span span = Tracing.startSpan("BookController.find")) {
+                assertThat(span.isSampled()).isTrue();
+            }
+        });
+
+        assertThat(exporter.getTraces()).hasSize(1);
+        assertThat(response.getHeader(TracingFilter.TRACE_ID_HEADER))
+                .isEqualTo(exporter.getTraces().get(0).getTraceId());
+        assertThat(exporter.getTraces().get(0).getSpans()).extracting(Span::getName)
+                .containsExactly("BookController.find", "GET /api/books");
+    }
+
+    @Test
+    @DisplayName("Nao deve abrir trace quando a amostragem estiver desligada")
+    public void notSampledTest() throws Exception {
+        Tracing.configure(0, exporter);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new TracingFilter().doFilter(new MockHttpServletRequest("GET", "/api/books"), response, (req, res) -> { });
+
+        assertThat(response.getHeader(TracingFilter.TRACE_ID_HEADER)).isNull();
+        assertThat(exporter.getTraces()).isEmpty();
+    }
+}
@@ -0,0 +1,23 @@
+package com.allan.libraryapi.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SearchTextTest {
+
+    @Test
+    @DisplayName("Deve normalizar texto para minusculas e sem acentos")
+    public void normalizeTest() {
+        assertThat(SearchText.normalize("  Memórias Póstumas de BRÁS Cubas ")).isEqualTo("memorias postumas de bras cubas");
+        assertThat(SearchText.normalize("Araújo")).isEqualTo(SearchText.normalize("ARAUJO"));
+        assertThat(SearchText.normalize(null)).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve escapar os curingas do like")
+    public void escapeLikeTest() {
+        assertThat(SearchText.escapeLike("100%_\\")).isEqualTo("100\\%\\_\\\\");
+    }
+}